@@ -9,10 +9,14 @@ package fr.nc0.cda.controleur;
 import fr.nc0.cda.modele.jeu.CoupInvalideException;
 import fr.nc0.cda.modele.jeu.EtatPartie;
 import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.modele.joueur.Joueur;
 import fr.nc0.cda.modele.joueur.Strategie;
 import fr.nc0.cda.modele.joueur.StrategieNimAiAleatoire;
 import fr.nc0.cda.modele.joueur.StrategieNimAiGagnante;
+import fr.nc0.cda.modele.joueur.StrategieNimAiGrundy;
+import fr.nc0.cda.modele.joueur.StrategieNimAiMisere;
+import fr.nc0.cda.modele.nim.AffichageNim;
 import fr.nc0.cda.modele.nim.ChoixNim;
 import fr.nc0.cda.modele.nim.JeuNim;
 import fr.nc0.cda.modele.nim.PlateauNim;
@@ -26,6 +30,12 @@ public class ControleurNim extends ControleurTemplate {
   /** Une partie du jeu de Nim */
   private JeuNim nim;
 
+  /** L'affichage des plateaux */
+  private final AffichageNim affichage = new AffichageNim();
+
+  /** Le tampon de l'affichage, réutilisé d'un coup à l'autre */
+  private final StringBuilder tampon = new StringBuilder();
+
   public ControleurNim(Ihm ihm, Joueur joueur1, Joueur joueur2) {
     super(ihm, joueur1, joueur2);
 
@@ -42,7 +52,9 @@ public class ControleurNim extends ControleurTemplate {
 
   @Override
   String creerAffichagePlateau() {
-    return nim.getPlateau().toString();
+    PlateauNim plateau = nim.getPlateau();
+    tampon.setLength(0);
+    return affichage.afficher(plateau, 1, plateau.getTaille(), tampon).toString();
   }
 
   @Override
@@ -53,21 +65,62 @@ public class ControleurNim extends ControleurTemplate {
   @Override
   void initialiserPartie() {
     while (true) {
-      int contrainte =
-          ihm.demanderInt(
-              "Saisissez le nombre maximal d'allumettes à retirer par "
-                  + "coup, ou 0 pour ne pas mettre de contrainte");
+      String reponse =
+          ihm.demanderString(
+              "Saisissez le nombre maximal d'allumettes à retirer par coup, 0 pour ne pas mettre "
+                  + "de contrainte, ou les retraits autorisés séparés par des virgules, dont 1 "
+                  + "(par exemple 1,3,4)");
+
+      int contrainte = 0;
+      int[] retraits = null;
+      try {
+        String[] valeurs = reponse.trim().split("\\s*,\\s*");
+        if (valeurs.length == 1) {
+          contrainte = Integer.parseInt(valeurs[0]);
+        } else {
+          retraits = new int[valeurs.length];
+          for (int i = 0; i < valeurs.length; ++i) {
+            retraits[i] = Integer.parseInt(valeurs[i]);
+          }
+        }
+      } catch (NumberFormatException e) {
+        ihm.afficherErreur("Valeur entrée non-numérique");
+        continue;
+      }
 
       if (contrainte < 0) {
         ihm.afficherErreur("La contrainte ne peut pas être négative");
         continue;
       }
 
-      nim = new JeuNim(nombreTas, contrainte);
+      boolean misere =
+          ihm.demanderBoolean(
+              "Voulez-vous jouer en règle misère, où retirer la dernière allumette fait perdre ?");
+      if (retraits == null) {
+        nim = new JeuNim(nombreTas, contrainte, misere);
+      } else {
+        try {
+          nim = new JeuNim(nombreTas, retraits, misere);
+        } catch (IllegalArgumentException e) {
+          ihm.afficherErreur(e.getMessage());
+          continue;
+        }
+      }
 
       if (joueur2.estAI()) {
-        Strategie strategie =
-            contrainte == 0 ? new StrategieNimAiGagnante() : new StrategieNimAiAleatoire();
+        Strategie strategie;
+        if (misere && retraits != null) {
+          ihm.afficherMessage(
+              "Aucune stratégie gagnante n'est connue en règle misère avec ces retraits, "
+                  + "l'AI jouera au hasard");
+          strategie = new StrategieNimAiAleatoire();
+        } else if (misere) {
+          strategie = new StrategieNimAiMisere();
+        } else if (contrainte != 0 || retraits != null) {
+          strategie = new StrategieNimAiGrundy();
+        } else {
+          strategie = new StrategieNimAiGagnante();
+        }
         joueur2.setStrategie(strategie);
       }
 
@@ -78,11 +131,15 @@ public class ControleurNim extends ControleurTemplate {
   @Override
   void jouerCoup() throws CoupInvalideException, EtatPartieException {
     Joueur joueur = getJoueur(joueurCourant);
-    PlateauNim plateau = nim.getPlateau().dupliquer();
-    ChoixNim choix = (ChoixNim) joueur.getStrategie().jouer(ihm, plateau, joueur);
-    if (joueur.estAI()){
-        ihm.afficherMessage("L'Ordinateur fait son choix...");
-    }
+    // Les stratégies du Nim ne modifient pas le plateau : copier ses tas, et son index des
+    // allumettes, coûterait un temps linéaire à chaque coup.
+    ChoixNim choix = (ChoixNim) choisir(joueur, nim.getPlateau());
     nim.jouer(joueurCourant, choix);
   }
+
+  @Override
+  ChoixNim coupParDefaut(Plateau plateau) {
+    // Retirer une allumette est toujours autorisé.
+    return new ChoixNim(((PlateauNim) plateau).getPremierTasNonVide(), 1);
+  }
 }
@@ -10,9 +10,14 @@ import fr.nc0.cda.modele.jeu.CoupInvalideException;
 import fr.nc0.cda.modele.jeu.EtatPartie;
 import fr.nc0.cda.modele.jeu.EtatPartieException;
 import fr.nc0.cda.modele.jeu.Joueurs;
+import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.modele.joueur.Joueur;
 import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiMcts;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiNegamax;
 import fr.nc0.cda.modele.joueur.StrategiePuissance4AiOptimisee;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiParallele;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiPonderee;
 import fr.nc0.cda.modele.joueur.StrategiePuissance4AiSimple;
 import fr.nc0.cda.modele.puissance4.*;
 import fr.nc0.cda.vue.Ihm;
@@ -39,11 +44,11 @@ public class ControleurPuissance4 extends ControleurTemplate {
   /** True si la partie peut se faire avec des rotations. */
   private boolean rotationsActivees = false;
 
-  /** Rotations restantes possibles pour le premier joueur */
-  private int rotationsRestantesJoueur1;
-
-  /** Rotations restantes possibles pour le second joueur */
-  private int rotationsRestantesJoueur2;
+  /**
+   * Décrit la stratégie de l'AI en cours, selon l'AI avancée et les rotations, pour la garder
+   * d'une partie à l'autre tant qu'elles ne changent pas, ou null
+   */
+  private String configurationAi;
 
   public ControleurPuissance4(Ihm ihm, Joueur joueur1, Joueur joueur2) {
     super(ihm, joueur1, joueur2);
@@ -62,19 +67,46 @@ public class ControleurPuissance4 extends ControleurTemplate {
   @Override
   void initialiserPartie() {
     puissance4 = new JeuPuissance4(LONGUEUR, HAUTEUR);
+    puissance4.getPlateau().setTrait(joueurCourant);
     rotationsActivees =
         ihm.demanderBoolean("Voulez-vous activer la possibilité de rotation de la grille ?");
     if (rotationsActivees) {
-      rotationsRestantesJoueur1 = ROTATIONS_DISPONIBLES_DEFAUT;
-      rotationsRestantesJoueur2 = ROTATIONS_DISPONIBLES_DEFAUT;
+      // Les rotations restantes font partie de la position, que voient aussi les AI.
+      PlateauPuissance4 plateau = puissance4.getPlateau();
+      plateau.setRotationsRestantes(Joueurs.JOUEUR_1, ROTATIONS_DISPONIBLES_DEFAUT);
+      plateau.setRotationsRestantes(Joueurs.JOUEUR_2, ROTATIONS_DISPONIBLES_DEFAUT);
     }
 
     if (joueur2.estAI()) {
-      Strategie strategie =
-          rotationsActivees
-              ? new StrategiePuissance4AiSimple()
-              : new StrategiePuissance4AiOptimisee();
+      boolean avancee = ihm.demanderBoolean("Voulez-vous affronter l'AI avancée ?");
+      String configuration = avancee + "/" + rotationsActivees;
+      if (configuration.equals(configurationAi) && joueur2.getStrategie() != null) {
+        // La stratégie, ses threads et sa table de transposition servent à nouveau.
+        return;
+      }
+
+      Strategie strategie;
+      if (avancee && rotationsActivees) {
+        strategie = new StrategiePuissance4AiMcts();
+      } else if (avancee && Runtime.getRuntime().availableProcessors() > 1) {
+        strategie = new StrategiePuissance4AiParallele();
+      } else if (avancee) {
+        strategie = new StrategiePuissance4AiNegamax();
+      } else if (rotationsActivees) {
+        strategie = new StrategiePuissance4AiSimple();
+      } else {
+        strategie = new StrategiePuissance4AiOptimisee();
+      }
+      if (avancee) {
+        // L'AI avancée réfléchit pendant que le joueur saisit son coup.
+        strategie = new StrategiePuissance4AiPonderee(strategie);
+      }
+      if (joueur2.getStrategie() != null) {
+        // Arrête la réflexion et les threads de l'ancienne stratégie, si elle tourne encore.
+        joueur2.getStrategie().fermer();
+      }
       joueur2.setStrategie(strategie);
+      configurationAi = configuration;
     }
   }
 
@@ -82,28 +114,34 @@ public class ControleurPuissance4 extends ControleurTemplate {
   void jouerCoup() throws CoupInvalideException, EtatPartieException {
     Joueur joueur = getJoueur(joueurCourant);
     PlateauPuissance4 plateau = puissance4.getPlateau().dupliquer();
-    ChoixPuissance4 choix = (ChoixPuissance4) joueur.getStrategie().jouer(ihm, plateau, joueur);
+    ChoixPuissance4 choix = (ChoixPuissance4) choisir(joueur, plateau);
 
-    if (choix.getCoup() == CoupPuissance4.ROTATION) {
-      if (!rotationsActivees) {
-        throw new CoupInvalideException("Les rotations ne sont pas autorisées cette partie.");
-      }
+    // Les rotations restantes sont vérifiées et décomptées par la partie.
+    if (choix.getCoup() == CoupPuissance4.ROTATION && !rotationsActivees) {
+      throw new CoupInvalideException("Les rotations ne sont pas autorisées cette partie.");
+    }
+    puissance4.jouer(joueurCourant, choix);
+  }
 
-      int rotationsRestantesJoueur =
-          joueurCourant == Joueurs.JOUEUR_1 ? rotationsRestantesJoueur1 : rotationsRestantesJoueur2;
-      if (rotationsRestantesJoueur <= 0) {
-        throw new CoupInvalideException("Vous avez utilisé toutes vos rotations possibles.");
-      }
+  @Override
+  ChoixPuissance4 coupParDefaut(Plateau plateau) {
+    return ChoixPuissance4.premierCoupAutorise((PlateauPuissance4) plateau);
+  }
 
-      if (joueurCourant == Joueurs.JOUEUR_1) {
-        --rotationsRestantesJoueur1;
-      } else {
-        --rotationsRestantesJoueur2;
-      }
+  @Override
+  protected void terminerPartie() {
+    // La stratégie peut servir à la partie suivante, seule sa réflexion s'arrête.
+    if (joueur2.estAI() && joueur2.getStrategie() instanceof StrategiePuissance4AiPonderee p) {
+      p.arreter();
+    }
+  }
+
+  @Override
+  protected void terminerParties() {
+    // Arrête les threads de la stratégie, qui ne servira plus.
+    if (joueur2.estAI()) {
+      joueur2.getStrategie().fermer();
+      configurationAi = null;
     }
-      if (joueur.estAI()){
-          ihm.afficherMessage("L'Ordinateur fait son choix...");
-      }
-    puissance4.jouer(joueurCourant, choix);
   }
 }
@@ -6,18 +6,34 @@
 
 package fr.nc0.cda.controleur;
 
+import fr.nc0.cda.modele.jeu.Choix;
 import fr.nc0.cda.modele.jeu.CoupInvalideException;
 import fr.nc0.cda.modele.jeu.EtatPartie;
 import fr.nc0.cda.modele.jeu.EtatPartieException;
 import fr.nc0.cda.modele.jeu.Joueurs;
+import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.modele.joueur.Joueur;
+import fr.nc0.cda.modele.joueur.Strategie;
 import fr.nc0.cda.vue.Ihm;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Template pour les contrôleurs de jeu, suivant le design pattern "Template Method", ou "Patron de
  * méthode modèle" en français.
  */
 public abstract class ControleurTemplate {
+  /** Le temps laissé à une AI pour choisir son coup, en millisecondes */
+  private static final long DELAI_AI = 2_000;
+
+  /**
+   * Le temps accordé à une AI au-delà de son délai, avant d'abandonner sa recherche, en
+   * millisecondes
+   */
+  private static final long MARGE_AI = 1_000;
+
   /** IHM */
   protected final Ihm ihm;
 
@@ -63,6 +79,54 @@ public abstract class ControleurTemplate {
    */
   abstract void jouerCoup() throws CoupInvalideException, EtatPartieException;
 
+  /**
+   * Retourne le coup joué à la place d'une AI qui n'a pas choisi le sien à temps.
+   *
+   * @param plateau le plateau de la partie, qui n'est pas terminée
+   * @return un coup valide
+   */
+  abstract Choix coupParDefaut(Plateau plateau);
+
+  /**
+   * Demande son coup à un joueur. Une AI le cherche sur un autre thread, dans un temps limité,
+   * après lequel le coup par défaut est joué à sa place : la redemander occuperait un thread de
+   * plus à chaque essai, sa recherche précédente pouvant ne pas s'arrêter.
+   *
+   * @param joueur le joueur
+   * @param plateau le plateau, ou une copie si les stratégies le modifient
+   * @return le choix du joueur
+   */
+  protected Choix choisir(Joueur joueur, Plateau plateau) {
+    Strategie strategie = joueur.getStrategie();
+    if (!joueur.estAI()) {
+      return strategie.jouer(ihm, plateau, joueur);
+    }
+
+    ihm.afficherMessage("L'Ordinateur fait son choix...");
+    long echeance = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAI_AI);
+    CompletableFuture<Choix> choix = strategie.jouerAsync(ihm, plateau, joueur, echeance);
+    try {
+      return choix.get(DELAI_AI + MARGE_AI, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      choix.cancel(true);
+      ihm.afficherErreur(
+          "L'Ordinateur n'a pas choisi son coup à temps, le coup par défaut est joué.");
+      return coupParDefaut(plateau);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("L'Ordinateur n'a pas pu choisir son coup", e.getCause());
+    } catch (InterruptedException e) {
+      choix.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("La partie a été interrompue", e);
+    }
+  }
+
+  /** Termine une partie, avant de demander aux joueurs s'ils veulent rejouer. */
+  protected void terminerPartie() {}
+
+  /** Termine la dernière partie, les joueurs ne voulant pas rejouer. */
+  protected void terminerParties() {}
+
   /**
    * Demande si les joueurs veulent rejouer.
    *
@@ -106,6 +170,7 @@ public abstract class ControleurTemplate {
 
       changerJoueurCourant();
     }
+    terminerPartie();
 
     ihm.afficherMessage(this.creerAffichagePlateau());
     EtatPartie etat = this.getEtatPartie();
@@ -129,6 +194,7 @@ public abstract class ControleurTemplate {
     ihm.afficherScores(gagnant, perdant);
 
     if (!demanderRejouer()) {
+      terminerParties();
       boolean exaequo = gagnant.getVictoires() == perdant.getVictoires();
       ihm.afficherVainqueur(gagnant, exaequo);
       return;
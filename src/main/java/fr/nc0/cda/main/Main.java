@@ -13,7 +13,10 @@ import fr.nc0.cda.modele.Jeux;
 import fr.nc0.cda.modele.joueur.Joueur;
 import fr.nc0.cda.modele.joueur.StrategieNimHumain;
 import fr.nc0.cda.modele.joueur.StrategiePuissance4Humain;
+import fr.nc0.cda.serveur.Serveur;
 import fr.nc0.cda.vue.Ihm;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class Main {
   /**
@@ -42,7 +45,12 @@ public class Main {
     }
   }
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equalsIgnoreCase("serveur")) {
+      Serveur.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
     Ihm ihm = new Ihm();
 
     ihm.afficherMessage("Bienvenue dans notre application de jeux à deux !");
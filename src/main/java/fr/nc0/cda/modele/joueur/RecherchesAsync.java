@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/** Lance les recherches de coups de {@link Strategie#jouerAsync}. */
+final class RecherchesAsync {
+  /** Les threads des recherches, qui n'empêchent pas l'application de s'arrêter */
+  private static final ExecutorService THREADS =
+      Executors.newCachedThreadPool(
+          tache -> {
+            Thread thread = new Thread(tache, "strategie");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private RecherchesAsync() {}
+
+  /**
+   * Lance une recherche sur un autre thread.
+   *
+   * @param recherche cherche le coup, en recevant le futur, annulé lorsque la recherche peut
+   *     s'arrêter
+   * @return le futur, complété par le coup trouvé
+   */
+  static CompletableFuture<Choix> lancer(Function<CompletableFuture<Choix>, Choix> recherche) {
+    CompletableFuture<Choix> resultat = new CompletableFuture<>();
+    THREADS.execute(
+        () -> {
+          if (resultat.isDone()) {
+            return;
+          }
+
+          try {
+            resultat.complete(recherche.apply(resultat));
+          } catch (Throwable e) {
+            resultat.completeExceptionally(e);
+          }
+        });
+
+    return resultat;
+  }
+
+  /**
+   * Calcule le temps de recherche restant avant une échéance.
+   *
+   * @param echeance l'instant, selon {@link System#nanoTime()}, auquel le coup doit être trouvé
+   * @param budget le temps de recherche habituel, en millisecondes
+   * @return le plus petit des deux temps, en millisecondes, positif
+   */
+  static long budget(long echeance, long budget) {
+    return Math.max(0, Math.min(budget, (echeance - System.nanoTime()) / 1_000_000));
+  }
+}
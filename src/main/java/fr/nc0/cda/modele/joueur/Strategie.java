@@ -9,6 +9,7 @@ package fr.nc0.cda.modele.joueur;
 import fr.nc0.cda.modele.jeu.Choix;
 import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.vue.Ihm;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Une stratégie est un algorithme qui détermine la façon de jouer un tour par joueur (humain et
@@ -22,4 +23,38 @@ public interface Strategie {
    * @param plateau - le plateau du jeu actuel
    */
   Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur);
+
+  /**
+   * Laisse le joueur effectuer un tour sur un autre thread, en choisissant son coup avant une
+   * échéance.
+   *
+   * <p>Annuler le futur demande à la recherche de s'arrêter au plus vite, son coup étant alors
+   * perdu. Une stratégie qui cherche ses coups dans un temps limité s'arrête à l'échéance et donne
+   * le meilleur coup trouvé jusque-là. Par défaut, le coup est celui de {@link #jouer}, qui ne peut
+   * être ni interrompu ni arrêté à l'échéance.
+   *
+   * @param ihm - l'IHM pour communiquer avec le joueur, si besoin
+   * @param plateau - le plateau du jeu actuel, qui ne doit pas être modifié pendant la recherche
+   * @param joueur - le joueur
+   * @param echeance - l'instant, selon {@link System#nanoTime()}, auquel le coup doit être choisi
+   * @return le futur, complété par le coup du joueur
+   */
+  default CompletableFuture<Choix> jouerAsync(
+      Ihm ihm, Plateau plateau, Joueur joueur, long echeance) {
+    return RecherchesAsync.lancer(resultat -> jouer(ihm, plateau, joueur));
+  }
+
+  /**
+   * Réinitialise le hasard de la stratégie, pour qu'elle rejoue les mêmes coups depuis les mêmes
+   * positions. Par défaut, la stratégie ne tire rien au hasard.
+   *
+   * @param graine - la graine du hasard
+   */
+  default void semer(long graine) {}
+
+  /**
+   * Libère les ressources de la stratégie, comme ses threads, à la fin de ses parties. La stratégie
+   * ne peut plus être utilisée ensuite. Par défaut, il n'y a rien à libérer.
+   */
+  default void fermer() {}
 }
@@ -11,26 +11,112 @@ import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.modele.nim.ChoixNim;
 import fr.nc0.cda.modele.nim.PlateauNim;
 import fr.nc0.cda.vue.Ihm;
-import java.util.ArrayList;
-import java.util.List;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Random;
 
+/**
+ * Stratégie du jeu de Nim jouant un coup au hasard, servant notamment à générer des parties.
+ *
+ * <p>Le tas est tiré parmi les tas non vides, uniformément ou selon leur nombre d'allumettes, à
+ * l'aide des structures tenues à jour par {@link PlateauNim}, sans parcourir les tas.
+ */
 public class StrategieNimAiAleatoire implements Strategie {
+  /** Le générateur des coups. */
+  private final Random rand = new Random();
+
+  /** True si les tas sont tirés avec une probabilité proportionnelle à leur nombre d'allumettes. */
+  private final boolean pondere;
+
+  /** Créer une stratégie tirant les tas non vides uniformément. */
+  public StrategieNimAiAleatoire() {
+    this(false);
+  }
+
+  /**
+   * Créer une stratégie aléatoire.
+   *
+   * @param pondere true pour tirer les tas selon leur nombre d'allumettes, ce qui n'est possible
+   *     qu'hors mode grand, les tas étant sinon tirés uniformément
+   */
+  public StrategieNimAiAleatoire(boolean pondere) {
+    this.pondere = pondere;
+  }
+
+  @Override
+  public void semer(long graine) {
+    rand.setSeed(graine);
+  }
+
   @Override
   public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
     PlateauNim nim = (PlateauNim) plateau;
-    Random rand = new Random();
 
-    List<Integer> tasValide = new ArrayList<>();
-    for (int i = 1; i <= nim.getTaille(); ++i) {
-      if (nim.getAllumettesRestantes(i) > 0) {
-        tasValide.add(i);
-      }
+    int tas;
+    if (pondere && !nim.estGrand()) {
+      tas = nim.getTasContenant(rand.nextLong(nim.getTotalAllumettes()));
+    } else {
+      tas = nim.getTasNonVide(rand.nextInt(nim.getTasNonVides()));
     }
 
-    int tas = tasValide.get(rand.nextInt(tasValide.size()));
-    int allumettesRestantes = nim.getAllumettesRestantes(tas);
-    int allumettes = rand.nextInt(Math.min(allumettesRestantes, nim.getContrainte())) + 1;
-    return new ChoixNim(tas, allumettes);
+    int[] retraits = nim.getRetraits();
+    if (retraits != null) {
+      long allumettesRestantes =
+          nim.estGrand()
+              ? nim.getAllumettesRestantesExactes(tas)
+                  .min(BigInteger.valueOf(Long.MAX_VALUE))
+                  .longValue()
+              : nim.getAllumettesRestantes(tas);
+      return new ChoixNim(tas, retraitAutorise(rand, retraits, allumettesRestantes));
+    }
+
+    if (nim.estGrand()) {
+      return new ChoixNim(tas, retraitGrand(rand, nim, tas));
+    }
+
+    long allumettesRestantes = nim.getAllumettesRestantes(tas);
+    int contrainte = nim.getContrainte();
+    long maximum =
+        contrainte == 0 ? allumettesRestantes : Math.min(allumettesRestantes, contrainte);
+    return new ChoixNim(tas, rand.nextLong(maximum) + 1);
+  }
+
+  /**
+   * Tire un nombre d'allumettes à retirer d'un tas d'un plateau en mode grand.
+   *
+   * @param rand le générateur
+   * @param nim le plateau
+   * @param tas le numéro du tas, non vide
+   * @return le nombre d'allumettes, entre 1 et le maximum autorisé
+   */
+  private static BigInteger retraitGrand(Random rand, PlateauNim nim, int tas) {
+    BigInteger allumettesRestantes = nim.getAllumettesRestantesExactes(tas);
+    int contrainte = nim.getContrainte();
+    if (contrainte != 0) {
+      BigInteger maximum = allumettesRestantes.min(BigInteger.valueOf(contrainte));
+      return BigInteger.valueOf(rand.nextInt(maximum.intValue()) + 1L);
+    }
+
+    // Tirage uniforme entre 0 et le tas - 1, en rejetant les valeurs trop grandes.
+    BigInteger retrait;
+    do {
+      retrait = new BigInteger(allumettesRestantes.bitLength(), rand);
+    } while (retrait.compareTo(allumettesRestantes) >= 0);
+    return retrait.add(BigInteger.ONE);
+  }
+
+  /**
+   * Tire un retrait parmi les retraits autorisés ne dépassant pas un tas.
+   *
+   * @param rand le générateur
+   * @param retraits les retraits autorisés, triés et distincts, dont 1
+   * @param allumettesRestantes le nombre d'allumettes du tas, au moins 1
+   * @return le nombre d'allumettes
+   */
+  private static long retraitAutorise(Random rand, int[] retraits, long allumettesRestantes) {
+    int indice =
+        Arrays.binarySearch(retraits, (int) Math.min(allumettesRestantes, Integer.MAX_VALUE));
+    int possibles = indice >= 0 ? indice + 1 : -indice - 1;
+    return retraits[rand.nextInt(possibles)];
   }
 }
@@ -11,37 +11,60 @@ import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.modele.nim.ChoixNim;
 import fr.nc0.cda.modele.nim.PlateauNim;
 import fr.nc0.cda.vue.Ihm;
+import java.math.BigInteger;
 
+/**
+ * Stratégie gagnante du jeu de Nim, ramenant la somme de Nim des tas à 0.
+ *
+ * <p>La somme de Nim et les tas ayant chaque bit sont tenus à jour par {@link PlateauNim}, le coup
+ * se trouve donc sans parcourir les tas, et sans allocation tant que le plateau n'est pas en mode
+ * grand.
+ */
 public class StrategieNimAiGagnante implements Strategie {
   @Override
   public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
     PlateauNim nim = (PlateauNim) plateau;
-    int taille = nim.getTaille();
-
-    int resultatXor = 0;
-    for (int i = 1; i <= taille; ++i) {
-      resultatXor ^= nim.getAllumettesRestantes(i);
+    if (nim.estGrand()) {
+      return jouerGrand(nim);
     }
 
+    long resultatXor = nim.getNimSomme();
+
     // Si aucune idée, on enlève une allumette là où possible
     if (resultatXor == 0) {
-      for (int i = 1; i <= taille; ++i) {
-        if (nim.getAllumettesRestantes(i) != 0) {
-          return new ChoixNim(i, 1);
-        }
+      int tas = nim.getPremierTasNonVide();
+      if (tas != 0) {
+        return new ChoixNim(tas, 1);
       }
+    } else {
+      // Les tas ayant le bit de poids fort de la somme sont exactement ceux qu'on peut réduire
+      // pour l'annuler.
+      int tas = nim.getPremierTasAvecBit(63 - Long.numberOfLeadingZeros(resultatXor));
+      long allumettesRestantes = nim.getAllumettesRestantes(tas);
+      long aRetirer = resultatXor ^ allumettesRestantes;
+      return new ChoixNim(tas, allumettesRestantes - aRetirer);
     }
 
-    for (int i = 1; i <= taille; ++i) {
-      int allumettesRestantes = nim.getAllumettesRestantes(i);
-      int aRetirer = resultatXor ^ allumettesRestantes;
+    /* unreachable */
+    return new ChoixNim(1, 1);
+  }
 
-      if (aRetirer < allumettesRestantes) {
-        return new ChoixNim(i, allumettesRestantes - aRetirer);
-      }
+  /**
+   * Joue sur un plateau en mode grand, de la même manière qu'avec des {@code long}.
+   *
+   * @param nim le plateau
+   * @return le choix
+   */
+  private Choix jouerGrand(PlateauNim nim) {
+    BigInteger resultatXor = nim.getNimSommeExacte();
+    if (resultatXor.signum() == 0) {
+      int tas = nim.getPremierTasNonVide();
+      return new ChoixNim(tas == 0 ? 1 : tas, 1);
     }
 
-    /* unreachable */
-    return new ChoixNim(1, 1);
+    int tas = nim.getPremierTasAvecBit(resultatXor.bitLength() - 1);
+    BigInteger allumettesRestantes = nim.getAllumettesRestantesExactes(tas);
+    BigInteger aRetirer = resultatXor.xor(allumettesRestantes);
+    return new ChoixNim(tas, allumettesRestantes.subtract(aRetirer));
   }
 }
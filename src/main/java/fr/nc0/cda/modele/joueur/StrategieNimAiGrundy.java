@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.nim.ChoixNim;
+import fr.nc0.cda.modele.nim.MoteurGrundy;
+import fr.nc0.cda.modele.nim.PlateauNim;
+import fr.nc0.cda.vue.Ihm;
+
+/**
+ * Stratégie gagnante du jeu de Nim avec une contrainte sur le nombre d'allumettes retirées par
+ * coup, ou un ensemble de retraits autorisés, ramenant le XOR des valeurs de Grundy des tas à 0.
+ *
+ * <p>Les valeurs d'un ensemble de retraits sont calculées jusqu'à leur période par le moteur
+ * partagé de cet ensemble, puis conservées dans un fichier pour les parties suivantes.
+ */
+public class StrategieNimAiGrundy implements Strategie {
+  @Override
+  public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
+    PlateauNim nim = (PlateauNim) plateau;
+    int[] retraits = nim.getRetraits();
+    MoteurGrundy moteur =
+        retraits == null
+            ? MoteurGrundy.pourContrainte(nim.getContrainte())
+            : MoteurGrundy.pourRetraits(retraits);
+    int taille = nim.getTaille();
+
+    boolean grand = nim.estGrand();
+
+    long resultatXor = 0;
+    for (int i = 1; i <= taille; ++i) {
+      resultatXor ^= grundy(moteur, nim, i, grand);
+    }
+
+    if (resultatXor != 0) {
+      for (int i = 1; i <= taille; ++i) {
+        long valeur = grundy(moteur, nim, i, grand);
+        long cible = valeur ^ resultatXor;
+
+        if (cible < valeur) {
+          long retrait =
+              grand
+                  ? moteur.retraitVers(nim.getAllumettesRestantesExactes(i), cible)
+                  : moteur.retraitVers(nim.getAllumettesRestantes(i), cible);
+          if (retrait != 0) {
+            return new ChoixNim(i, retrait);
+          }
+        }
+      }
+    }
+
+    // Position perdante, on enlève une allumette là où possible
+    int tas = nim.getPremierTasNonVide();
+    return new ChoixNim(tas == 0 ? 1 : tas, 1);
+  }
+
+  /**
+   * Retourne la valeur de Grundy d'un tas du plateau.
+   *
+   * @param moteur le moteur des retraits du plateau
+   * @param nim le plateau
+   * @param tas le numéro du tas
+   * @param grand true si le plateau est en mode grand
+   * @return la valeur de Grundy
+   */
+  private static long grundy(MoteurGrundy moteur, PlateauNim nim, int tas, boolean grand) {
+    return grand
+        ? moteur.grundy(nim.getAllumettesRestantesExactes(tas))
+        : moteur.grundy(nim.getAllumettesRestantes(tas));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.nim.ChoixNim;
+import fr.nc0.cda.modele.nim.MoteurGrundy;
+import fr.nc0.cda.modele.nim.PlateauNim;
+import fr.nc0.cda.vue.Ihm;
+import java.math.BigInteger;
+
+/**
+ * Stratégie gagnante du jeu de Nim en règle misère, où le joueur retirant la dernière allumette
+ * perd.
+ *
+ * <p>Tant qu'au moins deux tas ont plus d'une allumette, le coup est celui de la règle normale.
+ * Lorsqu'il n'en reste qu'un, il est réduit à 0 ou 1 allumette de sorte que l'adversaire se
+ * retrouve face à un nombre impair de tas d'une allumette. Le nombre de tas de plus d'une allumette
+ * étant tenu à jour par {@link PlateauNim}, le coup se trouve sans parcourir les tas.
+ *
+ * <p>Avec une contrainte k, le même raisonnement porte sur les valeurs de Grundy des tas, un tas de
+ * n allumettes valant n modulo (k + 1) : tant qu'au moins deux tas valent 2 ou plus, le XOR des
+ * valeurs est ramené à 0, puis l'adversaire doit se retrouver face à un nombre impair de tas
+ * valant 1 et à aucun tas valant 2 ou plus.
+ *
+ * <p>Aucune stratégie n'étant connue en règle misère pour un ensemble de retraits quelconque, le
+ * coup est alors tiré au hasard.
+ */
+public class StrategieNimAiMisere implements Strategie {
+  /** La stratégie de la règle normale, suivie tant que plusieurs tas ont plus d'une allumette. */
+  private final StrategieNimAiGagnante normale = new StrategieNimAiGagnante();
+
+  /** La stratégie suivie avec un ensemble de retraits autorisés. */
+  private final StrategieNimAiAleatoire hasard = new StrategieNimAiAleatoire();
+
+  @Override
+  public void semer(long graine) {
+    hasard.semer(graine);
+  }
+
+  @Override
+  public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
+    PlateauNim nim = (PlateauNim) plateau;
+    if (nim.getRetraits() != null) {
+      return hasard.jouer(ihm, plateau, joueur);
+    } else if (nim.getContrainte() != 0) {
+      return jouerContraint(nim);
+    }
+
+    int tasSuperieursAUn = nim.getTasSuperieursAUn();
+
+    if (tasSuperieursAUn > 1) {
+      return normale.jouer(ihm, plateau, joueur);
+    }
+
+    if (tasSuperieursAUn == 0) {
+      // Tous les tas ont au plus une allumette, chaque coup en vide un.
+      int tas = nim.getPremierTasNonVide();
+      return new ChoixNim(tas == 0 ? 1 : tas, 1);
+    }
+
+    // Les autres tas non vides n'ont qu'une allumette, on en laisse un nombre impair.
+    int tas = nim.getPremierTasSuperieurAUn();
+    int tasUnitaires = nim.getTasNonVides() - 1;
+    int aLaisser = tasUnitaires % 2 == 0 ? 1 : 0;
+    if (nim.estGrand()) {
+      BigInteger allumettesRestantes = nim.getAllumettesRestantesExactes(tas);
+      return new ChoixNim(tas, allumettesRestantes.subtract(BigInteger.valueOf(aLaisser)));
+    }
+
+    return new ChoixNim(tas, nim.getAllumettesRestantes(tas) - aLaisser);
+  }
+
+  /**
+   * Joue un coup sur un plateau avec une contrainte, en parcourant les tas non vides.
+   *
+   * @param nim le plateau
+   * @return le coup
+   */
+  private static Choix jouerContraint(PlateauNim nim) {
+    MoteurGrundy moteur = MoteurGrundy.pourContrainte(nim.getContrainte());
+    boolean grand = nim.estGrand();
+
+    long resultatXor = 0;
+    int tasSuperieursAUn = 0;
+    int tasSuperieur = 0;
+    int tasUnitaires = 0;
+    int tasUnitaire = 0;
+    int tasNul = 0;
+    for (int rang = 0; rang < nim.getTasNonVides(); ++rang) {
+      int tas = nim.getTasNonVide(rang);
+      long valeur = grundy(moteur, nim, tas, grand);
+      resultatXor ^= valeur;
+      if (valeur > 1) {
+        ++tasSuperieursAUn;
+        tasSuperieur = tas;
+      } else if (valeur == 1) {
+        ++tasUnitaires;
+        tasUnitaire = tas;
+      } else {
+        tasNul = tas;
+      }
+    }
+
+    if (tasSuperieursAUn > 1) {
+      // Un tas valant au moins 2 restera après le coup, on suit la règle normale.
+      for (int rang = 0; rang < nim.getTasNonVides() && resultatXor != 0; ++rang) {
+        int tas = nim.getTasNonVide(rang);
+        long valeur = grundy(moteur, nim, tas, grand);
+        long cible = valeur ^ resultatXor;
+        if (cible < valeur) {
+          return new ChoixNim(tas, retraitVers(moteur, nim, tas, grand, cible));
+        }
+      }
+    } else if (tasSuperieursAUn == 1) {
+      // Les autres tas valent 0 ou 1, on en laisse un nombre impair valant 1.
+      long cible = tasUnitaires % 2 == 0 ? 1 : 0;
+      return new ChoixNim(tasSuperieur, retraitVers(moteur, nim, tasSuperieur, grand, cible));
+    } else if (tasUnitaires % 2 == 0) {
+      // Tous les tas valent 0 ou 1, un tas valant 1 passe à 0 ou un tas valant 0 passe à 1.
+      if (tasUnitaire != 0) {
+        return new ChoixNim(tasUnitaire, 1);
+      }
+      if (tasNul != 0) {
+        return new ChoixNim(tasNul, nim.getContrainte());
+      }
+    }
+
+    // Position perdante, on enlève une allumette là où possible
+    int tas = nim.getPremierTasNonVide();
+    return new ChoixNim(tas == 0 ? 1 : tas, 1);
+  }
+
+  /**
+   * Retourne la valeur de Grundy d'un tas du plateau.
+   *
+   * @param moteur le moteur de la contrainte du plateau
+   * @param nim le plateau
+   * @param tas le numéro du tas
+   * @param grand true si le plateau est en mode grand
+   * @return la valeur de Grundy
+   */
+  private static long grundy(MoteurGrundy moteur, PlateauNim nim, int tas, boolean grand) {
+    return grand
+        ? moteur.grundy(nim.getAllumettesRestantesExactes(tas))
+        : moteur.grundy(nim.getAllumettesRestantes(tas));
+  }
+
+  /**
+   * Retourne le nombre d'allumettes à retirer d'un tas du plateau pour atteindre une valeur de
+   * Grundy inférieure.
+   *
+   * @param moteur le moteur de la contrainte du plateau
+   * @param nim le plateau
+   * @param tas le numéro du tas
+   * @param grand true si le plateau est en mode grand
+   * @param cible la valeur de Grundy visée
+   * @return le nombre d'allumettes à retirer
+   */
+  private static long retraitVers(
+      MoteurGrundy moteur, PlateauNim nim, int tas, boolean grand, long cible) {
+    return grand
+        ? moteur.retraitVers(nim.getAllumettesRestantesExactes(tas), cible)
+        : moteur.retraitVers(nim.getAllumettesRestantes(tas), cible);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.puissance4.*;
+import fr.nc0.cda.vue.Ihm;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Stratégie d'AI de puissance 4 jouant de nombreuses parties aléatoires en parallèle pour choisir
+ * son coup, selon la méthode de Monte-Carlo.
+ */
+public class StrategiePuissance4AiMcts implements Strategie {
+  /** La recherche, dont les threads sont conservés d'un coup à l'autre */
+  private final RechercheMctsPuissance4 recherche;
+
+  /** Le temps de recherche par coup, en millisecondes */
+  private final long budget;
+
+  /** Le nombre maximal de nœuds explorés par coup, ou 0 pour ne pas en limiter le nombre */
+  private final long noeudsMax;
+
+  /**
+   * Créer la stratégie avec un thread par cœur, le temps de recherche par défaut et sans limite de
+   * nœuds.
+   */
+  public StrategiePuissance4AiMcts() {
+    this(Runtime.getRuntime().availableProcessors(), StrategiePuissance4AiNegamax.BUDGET_DEFAUT, 0);
+  }
+
+  /**
+   * Créer la stratégie.
+   *
+   * @param nombreThreads le nombre de threads jouant des parties en même temps
+   * @param budget le temps de recherche par coup, en millisecondes
+   * @param noeudsMax le nombre maximal de nœuds explorés par coup, ou 0 pour ne pas en limiter le
+   *     nombre
+   */
+  public StrategiePuissance4AiMcts(int nombreThreads, long budget, long noeudsMax) {
+    this.recherche = new RechercheMctsPuissance4(nombreThreads, System.nanoTime());
+    this.budget = budget;
+    this.noeudsMax = noeudsMax;
+  }
+
+  @Override
+  public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
+    return chercher((PlateauPuissance4) plateau, budget, () -> false);
+  }
+
+  @Override
+  public CompletableFuture<Choix> jouerAsync(
+      Ihm ihm, Plateau plateau, Joueur joueur, long echeance) {
+    return RecherchesAsync.lancer(
+        resultat ->
+            chercher(
+                (PlateauPuissance4) plateau,
+                RecherchesAsync.budget(echeance, budget),
+                resultat::isDone));
+  }
+
+  /** Arrête les threads de la recherche. */
+  @Override
+  public void fermer() {
+    recherche.fermer();
+  }
+
+  /**
+   * Cherche un coup.
+   *
+   * @param plateau le plateau
+   * @param budget le temps de recherche, en millisecondes
+   * @param arret retourne true lorsque la recherche doit s'arrêter
+   * @return le coup
+   */
+  private Choix chercher(PlateauPuissance4 plateau, long budget, BooleanSupplier arret) {
+    ChoixPuissance4 choix = recherche.chercher(plateau, budget, noeudsMax, arret);
+    if (choix == null) {
+      // Par défaut, on joue le premier coup autorisé.
+      return ChoixPuissance4.premierCoupAutorise(plateau);
+    }
+
+    return choix;
+  }
+}
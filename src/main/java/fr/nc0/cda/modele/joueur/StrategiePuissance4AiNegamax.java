@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.puissance4.*;
+import fr.nc0.cda.vue.Ihm;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Stratégie d'AI de puissance 4 cherchant plusieurs coups à l'avance, avec l'algorithme negamax,
+ * dans un temps limité par coup.
+ */
+public class StrategiePuissance4AiNegamax implements Strategie {
+  /** Temps de recherche par défaut, en millisecondes */
+  public static final long BUDGET_DEFAUT = 1000;
+
+  /** Logarithme en base 2 du nombre d'entrées de la table de transposition */
+  private static final int TABLE_BITS = 20;
+
+  /** Le moteur de recherche, dont la table est conservée d'un coup à l'autre */
+  private final MoteurPuissance4 moteur =
+      new MoteurPuissance4(new TableTranspositionPuissance4(TABLE_BITS));
+
+  /** Le temps de recherche par coup, en millisecondes */
+  private final long budget;
+
+  /** Créer la stratégie avec le temps de recherche par défaut */
+  public StrategiePuissance4AiNegamax() {
+    this(BUDGET_DEFAUT);
+  }
+
+  /**
+   * Créer la stratégie.
+   *
+   * @param budget le temps de recherche par coup, en millisecondes
+   */
+  public StrategiePuissance4AiNegamax(long budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
+    return chercher((PlateauPuissance4) plateau, budget, () -> false);
+  }
+
+  @Override
+  public CompletableFuture<Choix> jouerAsync(
+      Ihm ihm, Plateau plateau, Joueur joueur, long echeance) {
+    return RecherchesAsync.lancer(
+        resultat ->
+            chercher(
+                (PlateauPuissance4) plateau,
+                RecherchesAsync.budget(echeance, budget),
+                resultat::isDone));
+  }
+
+  /**
+   * Cherche un coup avec le moteur, une recherche à la fois.
+   *
+   * @param plateau le plateau
+   * @param budget le temps de recherche, en millisecondes
+   * @param arret retourne true lorsque la recherche doit s'arrêter
+   * @return le coup
+   */
+  private synchronized Choix chercher(
+      PlateauPuissance4 plateau, long budget, BooleanSupplier arret) {
+    ChoixPuissance4 choix = moteur.chercher(plateau, budget, arret);
+    if (choix == null) {
+      // Par défaut, on joue le premier coup autorisé.
+      return ChoixPuissance4.premierCoupAutorise(plateau);
+    }
+
+    return choix;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.puissance4.*;
+import fr.nc0.cda.vue.Ihm;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Stratégie d'AI de puissance 4 similaire à la stratégie negamax, dont la recherche utilise
+ * plusieurs cœurs du processeur.
+ */
+public class StrategiePuissance4AiParallele implements Strategie {
+  /**
+   * Logarithme en base 2 du nombre d'entrées de la table de transposition partagée par défaut,
+   * comme celle de la stratégie negamax
+   */
+  public static final int TABLE_BITS_DEFAUT = 20;
+
+  /** La recherche parallèle, dont la table est conservée d'un coup à l'autre */
+  private final RechercheParallelePuissance4 recherche;
+
+  /** Le temps de recherche par coup, en millisecondes */
+  private final long budget;
+
+  /** Créer la stratégie avec un thread par cœur et le temps de recherche par défaut */
+  public StrategiePuissance4AiParallele() {
+    this(
+        Runtime.getRuntime().availableProcessors(), StrategiePuissance4AiNegamax.BUDGET_DEFAUT);
+  }
+
+  /**
+   * Créer la stratégie.
+   *
+   * @param nombreThreads le nombre de threads cherchant en même temps
+   * @param budget le temps de recherche par coup, en millisecondes
+   */
+  public StrategiePuissance4AiParallele(int nombreThreads, long budget) {
+    this(nombreThreads, budget, TABLE_BITS_DEFAUT);
+  }
+
+  /**
+   * Créer la stratégie avec une table de transposition d'une taille donnée.
+   *
+   * @param nombreThreads le nombre de threads cherchant en même temps
+   * @param budget le temps de recherche par coup, en millisecondes
+   * @param tableBits le logarithme en base 2 du nombre d'entrées de la table de transposition
+   */
+  public StrategiePuissance4AiParallele(int nombreThreads, long budget, int tableBits) {
+    this.recherche = new RechercheParallelePuissance4(nombreThreads, tableBits);
+    this.budget = budget;
+  }
+
+  @Override
+  public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
+    return chercher((PlateauPuissance4) plateau, budget, () -> false);
+  }
+
+  @Override
+  public CompletableFuture<Choix> jouerAsync(
+      Ihm ihm, Plateau plateau, Joueur joueur, long echeance) {
+    return RecherchesAsync.lancer(
+        resultat ->
+            chercher(
+                (PlateauPuissance4) plateau,
+                RecherchesAsync.budget(echeance, budget),
+                resultat::isDone));
+  }
+
+  /** Arrête les threads de la recherche. */
+  @Override
+  public void fermer() {
+    recherche.fermer();
+  }
+
+  /**
+   * Cherche un coup.
+   *
+   * @param plateau le plateau
+   * @param budget le temps de recherche, en millisecondes
+   * @param arret retourne true lorsque la recherche doit s'arrêter
+   * @return le coup
+   */
+  private Choix chercher(PlateauPuissance4 plateau, long budget, BooleanSupplier arret) {
+    ChoixPuissance4 choix = recherche.chercher(plateau, budget, arret);
+    if (choix == null) {
+      // Par défaut, on joue le premier coup autorisé.
+      return ChoixPuissance4.premierCoupAutorise(plateau);
+    }
+
+    return choix;
+  }
+}
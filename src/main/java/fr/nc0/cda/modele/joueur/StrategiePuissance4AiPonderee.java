@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.joueur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.puissance4.ChoixPuissance4;
+import fr.nc0.cda.modele.puissance4.CoupPuissance4;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import fr.nc0.cda.modele.puissance4.PlateauPuissance4;
+import fr.nc0.cda.modele.puissance4.RotationPuissance4;
+import fr.nc0.cda.vue.Ihm;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stratégie d'AI de puissance 4 qui réfléchit pendant le tour de l'adversaire (« pondering »).
+ *
+ * <p>Dès que la stratégie a joué, elle cherche, avec une autre stratégie, sa réponse à chaque coup
+ * possible de l'adversaire, en commençant par celui qu'elle prévoit, et la garde dans un cache
+ * indexé par la clé de Zobrist de la position. Si l'adversaire joue l'un de ces coups, la réponse
+ * est donnée aussitôt, ou dès la fin de sa recherche si elle est en cours. Sinon, la réflexion est
+ * annulée et la position est cherchée normalement, dans le même temps par coup. La réflexion
+ * n'utilise que le temps de l'adversaire.
+ */
+public class StrategiePuissance4AiPonderee implements Strategie {
+  /** Le temps laissé pour prévoir le coup de l'adversaire, en millisecondes */
+  private static final long DELAI_PREVISION = 100;
+
+  /**
+   * Le temps maximal de recherche d'une réponse, en millisecondes, le temps par coup de la
+   * stratégie s'appliquant
+   */
+  private static final long DELAI_REPONSE = 60_000;
+
+  /** La stratégie cherchant les coups */
+  private final Strategie strategie;
+
+  /** Les réponses trouvées pendant la réflexion, par clé de Zobrist de la position */
+  private final Map<Long, Choix> reponses = new ConcurrentHashMap<>();
+
+  /** La réflexion en cours, ou null */
+  private Reflexion reflexion;
+
+  /** True si la stratégie a été fermée */
+  private boolean fermee = false;
+
+  /** Le nombre de coups de l'adversaire dont la réponse était prête */
+  private final AtomicLong reussites = new AtomicLong();
+
+  /** Le nombre de coups de l'adversaire dont la réponse n'était pas prête */
+  private final AtomicLong echecs = new AtomicLong();
+
+  /**
+   * Créer la stratégie.
+   *
+   * @param strategie la stratégie cherchant les coups, de préférence dans un temps limité
+   */
+  public StrategiePuissance4AiPonderee(Strategie strategie) {
+    this.strategie = strategie;
+  }
+
+  /** Le nombre de coups de l'adversaire dont la réponse était prête */
+  public long getReussites() {
+    return reussites.get();
+  }
+
+  /** Le nombre de coups de l'adversaire dont la réponse n'était pas prête */
+  public long getEchecs() {
+    return echecs.get();
+  }
+
+  @Override
+  public Choix jouer(Ihm ihm, Plateau plateau, Joueur joueur) {
+    CompletableFuture<Choix> prete = reponsePrete(plateau);
+    Choix choix = prete == null ? null : prete.exceptionally(erreur -> null).join();
+    if (choix == null) {
+      choix = strategie.jouer(ihm, plateau, joueur);
+    }
+
+    reflechir(plateau, joueur, choix);
+    return choix;
+  }
+
+  @Override
+  public CompletableFuture<Choix> jouerAsync(
+      Ihm ihm, Plateau plateau, Joueur joueur, long echeance) {
+    CompletableFuture<Choix> prete = reponsePrete(plateau);
+    CompletableFuture<Choix> recherche =
+        prete == null
+            ? strategie.jouerAsync(ihm, plateau, joueur, echeance)
+            : limiter(prete, (PlateauPuissance4) plateau, echeance);
+    CompletableFuture<Choix> resultat =
+        recherche.thenApply(
+            choix -> {
+              reflechir(plateau, joueur, choix);
+              return choix;
+            });
+    resultat.whenComplete(
+        (choix, erreur) -> {
+          if (resultat.isCancelled()) {
+            recherche.cancel(true);
+          }
+        });
+
+    return resultat;
+  }
+
+  /**
+   * Arrête la réflexion en cours, par exemple à la fin d'une partie. La stratégie recommence à
+   * réfléchir après son prochain coup.
+   */
+  public synchronized void arreter() {
+    if (reflexion != null) {
+      reflexion.arreter();
+      reflexion = null;
+    }
+    reponses.clear();
+  }
+
+  @Override
+  public void semer(long graine) {
+    strategie.semer(graine);
+  }
+
+  /** Arrête la réflexion et ferme la stratégie cherchant les coups. */
+  @Override
+  public synchronized void fermer() {
+    fermee = true;
+    arreter();
+    strategie.fermer();
+  }
+
+  /**
+   * Arrête la réflexion en cours et cherche la réponse à la position dans le cache, ou parmi les
+   * recherches en cours.
+   *
+   * @param plateau la position
+   * @return le futur de la réponse, complété si elle a déjà été trouvée, ou null si elle n'a pas
+   *     été cherchée pendant la réflexion
+   */
+  private synchronized CompletableFuture<Choix> reponsePrete(Plateau plateau) {
+    if (reflexion == null) {
+      return null;
+    }
+
+    long cle = ((PlateauPuissance4) plateau).getCleZobrist();
+    CompletableFuture<Choix> enCours = reflexion.arreterSauf(cle);
+    reflexion = null;
+    Choix choix = reponses.get(cle);
+    if (choix != null) {
+      if (enCours != null) {
+        enCours.cancel(true);
+      }
+      enCours = CompletableFuture.completedFuture(choix);
+    }
+
+    (enCours == null ? echecs : reussites).incrementAndGet();
+    return enCours;
+  }
+
+  /**
+   * Limite l'attente d'une réponse de la réflexion à une échéance, après laquelle sa recherche est
+   * annulée et le premier coup autorisé est joué.
+   *
+   * @param reponse le futur de la réponse
+   * @param plateau la position
+   * @param echeance l'instant, selon {@link System#nanoTime()}, auquel le coup doit être choisi
+   * @return le futur, complété par la réponse ou à l'échéance
+   */
+  private static CompletableFuture<Choix> limiter(
+      CompletableFuture<Choix> reponse, PlateauPuissance4 plateau, long echeance) {
+    if (reponse.isDone()) {
+      return reponse;
+    }
+
+    CompletableFuture<Choix> limitee = reponse.thenApply(choix -> choix);
+    limitee.completeOnTimeout(
+        ChoixPuissance4.premierCoupAutorise(plateau),
+        Math.max(0, echeance - System.nanoTime()),
+        TimeUnit.NANOSECONDS);
+    // Sans effet si la recherche est terminée.
+    limitee.whenComplete((choix, erreur) -> reponse.cancel(true));
+    return limitee;
+  }
+
+  /**
+   * Commence à réfléchir aux coups de l'adversaire.
+   *
+   * @param plateau la position avant le coup joué
+   * @param joueur le joueur de la stratégie
+   * @param choix le coup joué
+   */
+  private synchronized void reflechir(Plateau plateau, Joueur joueur, Choix choix) {
+    if (fermee) {
+      return;
+    }
+
+    PlateauPuissance4 apres = ((PlateauPuissance4) plateau).dupliquer();
+    JeuPuissance4 jeu = new JeuPuissance4(apres);
+    try {
+      jeu.jouer(apres.getTrait(), (ChoixPuissance4) choix);
+    } catch (CoupInvalideException | EtatPartieException e) {
+      return;
+    }
+    if (jeu.getEtatPartie() != EtatPartie.EN_COURS) {
+      return;
+    }
+
+    // Les réponses des coups précédents ne peuvent plus servir.
+    reponses.clear();
+    if (reflexion != null) {
+      reflexion.arreter();
+    }
+    Reflexion nouvelle = new Reflexion(apres, joueur);
+    reflexion = nouvelle;
+    RecherchesAsync.lancer(
+        resultat -> {
+          nouvelle.run();
+          return null;
+        });
+  }
+
+  /** Une réflexion sur les coups de l'adversaire depuis une position, jusqu'à son arrêt. */
+  private final class Reflexion implements Runnable {
+    /** La position, où c'est à l'adversaire de jouer */
+    private final PlateauPuissance4 position;
+
+    /** Le joueur de la stratégie */
+    private final Joueur joueur;
+
+    /** True si la réflexion doit s'arrêter */
+    private boolean arret = false;
+
+    /** La recherche en cours, ou null */
+    private CompletableFuture<Choix> recherche;
+
+    /** La clé de Zobrist de la position de la recherche en cours */
+    private long cleRecherche;
+
+    Reflexion(PlateauPuissance4 position, Joueur joueur) {
+      this.position = position;
+      this.joueur = joueur;
+    }
+
+    @Override
+    public void run() {
+      // L'adversaire joue comme la stratégie le ferait à sa place, vu du côté opposé.
+      long echeance = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAI_PREVISION);
+      Choix prevision = rechercher(position.inverser(), echeance);
+
+      for (ChoixPuissance4 coup : coupsPossibles(prevision)) {
+        PlateauPuissance4 suivante = position.dupliquer();
+        JeuPuissance4 jeu = new JeuPuissance4(suivante);
+        try {
+          jeu.jouer(position.getTrait(), coup);
+        } catch (CoupInvalideException | EtatPartieException e) {
+          continue;
+        }
+        if (jeu.getEtatPartie() != EtatPartie.EN_COURS) {
+          continue;
+        }
+
+        Choix reponse =
+            rechercher(suivante, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAI_REPONSE));
+        if (reponse == null) {
+          return;
+        }
+        reponses.put(suivante.getCleZobrist(), reponse);
+      }
+    }
+
+    /**
+     * Liste les coups de l'adversaire, le coup prévu en premier, puis les insertions du centre
+     * vers les bords, puis les rotations.
+     *
+     * @param prevision le coup prévu, ou null
+     * @return les coups
+     */
+    private List<ChoixPuissance4> coupsPossibles(Choix prevision) {
+      List<ChoixPuissance4> coups = new ArrayList<>();
+      if (prevision != null) {
+        coups.add((ChoixPuissance4) prevision);
+      }
+
+      int longueur = position.getLongueur();
+      for (int i = 0; i < longueur; ++i) {
+        // 0, +1, -1, +2, -2... autour de la colonne du milieu.
+        int decalage = (i + 1) / 2 * (i % 2 == 0 ? -1 : 1);
+        int colonne = (longueur + 1) / 2 + decalage;
+        if (colonne >= 1 && colonne <= longueur && !position.verifierColonnePleine(colonne)) {
+          coups.add(new ChoixPuissance4(CoupPuissance4.INSERTION, null, colonne));
+        }
+      }
+      if (position.getRotationsRestantes(position.getTrait()) > 0) {
+        for (RotationPuissance4 sens : RotationPuissance4.values()) {
+          coups.add(new ChoixPuissance4(CoupPuissance4.ROTATION, sens, 0));
+        }
+      }
+
+      if (prevision != null) {
+        coups.subList(1, coups.size()).removeIf(coup -> memeCoup(coup, coups.get(0)));
+      }
+      return coups;
+    }
+
+    /**
+     * Cherche un coup avec la stratégie, sauf si la réflexion est arrêtée.
+     *
+     * @param plateau la position
+     * @param echeance l'instant, selon {@link System#nanoTime()}, auquel le coup doit être choisi
+     * @return le coup, ou null si la réflexion a été arrêtée
+     */
+    private Choix rechercher(PlateauPuissance4 plateau, long echeance) {
+      CompletableFuture<Choix> future;
+      synchronized (this) {
+        if (arret) {
+          return null;
+        }
+        future = strategie.jouerAsync(null, plateau, joueur, echeance);
+        recherche = future;
+        cleRecherche = plateau.getCleZobrist();
+      }
+
+      try {
+        Choix choix = future.get();
+        synchronized (this) {
+          // Une recherche gardée à l'arrêt sert au coup de la stratégie, pas au cache.
+          return arret ? null : choix;
+        }
+      } catch (CancellationException | ExecutionException e) {
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+
+    /** Arrête la réflexion, en annulant la recherche en cours. */
+    synchronized void arreter() {
+      arreterSauf(null);
+    }
+
+    /**
+     * Arrête la réflexion, en annulant la recherche en cours sauf si elle porte sur une position.
+     *
+     * @param cle la clé de Zobrist de la position dont la recherche est gardée, ou null
+     * @return la recherche gardée, ou null si elle a été annulée ou s'il n'y en avait pas
+     */
+    synchronized CompletableFuture<Choix> arreterSauf(Long cle) {
+      arret = true;
+      if (recherche == null) {
+        return null;
+      }
+      if (cle != null && cle == cleRecherche && !recherche.isCompletedExceptionally()) {
+        return recherche;
+      }
+
+      recherche.cancel(true);
+      return null;
+    }
+  }
+
+  /**
+   * Vérifie que deux coups sont les mêmes.
+   *
+   * @param a le premier coup
+   * @param b le second coup
+   * @return true si les coups sont les mêmes
+   */
+  private static boolean memeCoup(ChoixPuissance4 a, ChoixPuissance4 b) {
+    return a.getCoup() == b.getCoup()
+        && a.getRotation() == b.getRotation()
+        && (a.getCoup() == CoupPuissance4.ROTATION || a.getColonne() == b.getColonne());
+  }
+}
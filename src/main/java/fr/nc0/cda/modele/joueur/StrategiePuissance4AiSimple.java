@@ -7,7 +7,10 @@
 package fr.nc0.cda.modele.joueur;
 
 import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
 import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Joueurs;
 import fr.nc0.cda.modele.jeu.Plateau;
 import fr.nc0.cda.modele.puissance4.*;
 import fr.nc0.cda.vue.Ihm;
@@ -22,17 +25,16 @@ public class StrategiePuissance4AiSimple implements Strategie {
 
     PlateauPuissance4 p4 = (PlateauPuissance4) plateau;
 
-    // Regarde si une rotation amène à notre victoire.
-    PlateauPuissance4 p4RotationHoraire = p4.dupliquer();
-    p4RotationHoraire.rotationner(RotationPuissance4.HORAIRE);
-    if (p4RotationHoraire.verifierVictoire() == EtatPartie.VICTOIRE_JOUEUR_2) {
-      return new ChoixPuissance4(CoupPuissance4.ROTATION, RotationPuissance4.HORAIRE, 0);
-    }
+    // Les coups sont essayés puis annulés sur une partie construite autour du plateau, plutôt
+    // que sur des copies du plateau.
+    JeuPuissance4 jeu = new JeuPuissance4(p4);
 
-    PlateauPuissance4 p4RotationAntiHoraire = p4.dupliquer();
-    p4RotationAntiHoraire.rotationner(RotationPuissance4.ANTI_HORAIRE);
-    if (p4RotationAntiHoraire.verifierVictoire() == EtatPartie.VICTOIRE_JOUEUR_2) {
-      return new ChoixPuissance4(CoupPuissance4.ROTATION, RotationPuissance4.ANTI_HORAIRE, 0);
+    // Regarde si une rotation amène à notre victoire.
+    for (RotationPuissance4 sens : RotationPuissance4.values()) {
+      if (tester(jeu, Joueurs.JOUEUR_2, new ChoixPuissance4(CoupPuissance4.ROTATION, sens, 0))
+          == EtatPartie.VICTOIRE_JOUEUR_2) {
+        return new ChoixPuissance4(CoupPuissance4.ROTATION, sens, 0);
+      }
     }
 
     // Recherche des "clusters" parmi la grille et détermine une valeur à
@@ -95,22 +97,12 @@ public class StrategiePuissance4AiSimple implements Strategie {
     for (int i = priorites.size() - 1; i >= 0; --i) {
       for (int j = priorites.get(i).size() - 1; j >= 0; --j) {
         int colonneTest = priorites.get(i).get(j);
-        PlateauPuissance4 test = p4.dupliquer();
-        test.insererCellule(colonneTest, CellulePuissance4.JAUNE);
-
-        PlateauPuissance4 testRotationHoraire = test.dupliquer();
-        testRotationHoraire.rotationner(RotationPuissance4.HORAIRE);
-        if (testRotationHoraire.verifierVictoire() == EtatPartie.VICTOIRE_JOUEUR_1) {
-          continue;
+        ChoixPuissance4 insertion =
+            new ChoixPuissance4(CoupPuissance4.INSERTION, null, colonneTest);
+        if (!permetVictoireParRotation(jeu, insertion)) {
+          // L'insertion ne permet pas à l'adversaire de gagner, alors on l'effectue.
+          return insertion;
         }
-
-        PlateauPuissance4 testRotationAntiHoraire = test.dupliquer();
-        testRotationAntiHoraire.rotationner(RotationPuissance4.ANTI_HORAIRE);
-        if (testRotationAntiHoraire.verifierVictoire() == EtatPartie.VICTOIRE_JOUEUR_1) {
-          continue;
-        }
-        // L'insertion ne permet pas à l'adversaire de gagner, alors on l'effectue.
-        return new ChoixPuissance4(CoupPuissance4.INSERTION, null, colonneTest);
       }
     }
 
@@ -118,6 +110,53 @@ public class StrategiePuissance4AiSimple implements Strategie {
     return new ChoixPuissance4(CoupPuissance4.INSERTION, null, 1);
   }
 
+  /**
+   * Joue un coup, relève l'état de la partie obtenu, puis annule le coup.
+   *
+   * @param jeu la partie
+   * @param joueur le joueur qui joue
+   * @param choix le coup à tester
+   * @return l'état de la partie après le coup, ou null si le coup n'est pas jouable
+   */
+  private EtatPartie tester(JeuPuissance4 jeu, Joueurs joueur, ChoixPuissance4 choix) {
+    try {
+      int jeton = jeu.jouerAnnulable(joueur, choix);
+      EtatPartie etat = jeu.getEtatPartie();
+      jeu.annuler(jeton);
+      return etat;
+    } catch (CoupInvalideException | EtatPartieException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Vérifie si l'adversaire peut gagner par une rotation après notre insertion.
+   *
+   * @param jeu la partie
+   * @param insertion notre insertion
+   * @return true si une rotation de l'adversaire lui donne la victoire
+   */
+  private boolean permetVictoireParRotation(JeuPuissance4 jeu, ChoixPuissance4 insertion) {
+    int jeton;
+    try {
+      jeton = jeu.jouerAnnulable(Joueurs.JOUEUR_2, insertion);
+    } catch (CoupInvalideException | EtatPartieException e) {
+      return true;
+    }
+
+    boolean victoire = false;
+    for (RotationPuissance4 sens : RotationPuissance4.values()) {
+      ChoixPuissance4 rotation = new ChoixPuissance4(CoupPuissance4.ROTATION, sens, 0);
+      if (tester(jeu, Joueurs.JOUEUR_1, rotation) == EtatPartie.VICTOIRE_JOUEUR_1) {
+        victoire = true;
+        break;
+      }
+    }
+
+    jeu.annuler(jeton);
+    return victoire;
+  }
+
   /**
    * Calcule la valeur du plus grand cluster de la cellule courante.
    *
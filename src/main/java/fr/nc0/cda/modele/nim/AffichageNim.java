@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+
+/**
+ * Affichage d'une liste de tas du jeu de Nim, écrit dans un {@link Appendable} réutilisable.
+ *
+ * <p>Un tas est dessiné allumette par allumette jusqu'à un seuil, puis sous la forme d'une seule
+ * allumette suivie de leur nombre. Les tas consécutifs de même taille peuvent être regroupés sur
+ * une ligne. L'affichage coûte ainsi un temps proportionnel au nombre de tas affichés, et jamais
+ * au nombre d'allumettes.
+ *
+ * <p>Un affichage n'a pas d'état propre et peut être partagé entre threads.
+ */
+public final class AffichageNim {
+  /** Le nombre d'allumettes au-delà duquel un tas est affiché par son nombre, par défaut */
+  public static final int SEUIL_DEFAUT = 50;
+
+  /** Une allumette */
+  private static final String ALLUMETTE = " \033[0;32m|\033[0m";
+
+  /** Le nombre d'allumettes au-delà duquel un tas est affiché par son nombre */
+  private final int seuil;
+
+  /** True pour regrouper les tas consécutifs de même taille */
+  private final boolean regrouper;
+
+  /** Créer un affichage dessinant les tas jusqu'au seuil par défaut, sans les regrouper. */
+  public AffichageNim() {
+    this(SEUIL_DEFAUT, false);
+  }
+
+  /**
+   * Créer un affichage.
+   *
+   * @param seuil le nombre d'allumettes au-delà duquel un tas est affiché par son nombre, positif
+   * @param regrouper true pour regrouper les tas consécutifs de même taille sur une ligne
+   */
+  public AffichageNim(int seuil, boolean regrouper) {
+    if (seuil < 0) {
+      throw new IllegalArgumentException("Seuil négatif : " + seuil);
+    }
+
+    this.seuil = seuil;
+    this.regrouper = regrouper;
+  }
+
+  /**
+   * Affiche une fenêtre de tas dans un tampon.
+   *
+   * @param plateau le plateau
+   * @param premier le numéro du premier tas à afficher, à partir de 1
+   * @param nombre le nombre de tas à afficher, ceux au-delà du dernier tas étant ignorés
+   * @param sortie le tampon, complété
+   * @return le tampon
+   */
+  public StringBuilder afficher(PlateauNim plateau, int premier, int nombre, StringBuilder sortie) {
+    try {
+      afficher(plateau, premier, nombre, (Appendable) sortie);
+    } catch (IOException e) {
+      // Un StringBuilder ne lève pas d'IOException.
+      throw new UncheckedIOException(e);
+    }
+    return sortie;
+  }
+
+  /**
+   * Affiche une fenêtre de tas.
+   *
+   * @param plateau le plateau
+   * @param premier le numéro du premier tas à afficher, à partir de 1
+   * @param nombre le nombre de tas à afficher, ceux au-delà du dernier tas étant ignorés
+   * @param sortie la sortie, complétée
+   * @throws IOException si la sortie ne peut pas être écrite
+   */
+  public void afficher(PlateauNim plateau, int premier, int nombre, Appendable sortie)
+      throws IOException {
+    if (premier < 1 || nombre < 0) {
+      throw new IllegalArgumentException("Fenêtre de tas invalide");
+    }
+
+    int dernier = (int) Math.min(plateau.getTaille(), (long) premier + nombre - 1);
+    boolean grand = plateau.estGrand();
+    int debut = premier;
+    while (debut <= dernier) {
+      int fin = debut;
+      if (regrouper) {
+        while (fin < dernier && memeTaille(plateau, grand, fin, fin + 1)) {
+          ++fin;
+        }
+      }
+
+      sortie.append("    Tas \033[1m").append(Integer.toString(debut)).append("\033[0m");
+      if (fin != debut) {
+        sortie.append(" à \033[1m").append(Integer.toString(fin)).append("\033[0m");
+      }
+      sortie.append(" :   ");
+
+      if (grand) {
+        afficherAllumettes(plateau.getAllumettesRestantesExactes(debut), sortie);
+      } else {
+        afficherAllumettes(plateau.getAllumettesRestantes(debut), sortie);
+      }
+      sortie.append('\n');
+
+      debut = fin + 1;
+    }
+  }
+
+  /**
+   * Vérifie que deux tas ont le même nombre d'allumettes.
+   *
+   * @param plateau le plateau
+   * @param grand true si le plateau est en mode grand
+   * @param a le numéro du premier tas
+   * @param b le numéro du second tas
+   * @return true si les tas ont autant d'allumettes
+   */
+  private static boolean memeTaille(PlateauNim plateau, boolean grand, int a, int b) {
+    return grand
+        ? plateau.getAllumettesRestantesExactes(a).equals(plateau.getAllumettesRestantesExactes(b))
+        : plateau.getAllumettesRestantes(a) == plateau.getAllumettesRestantes(b);
+  }
+
+  /**
+   * Affiche les allumettes d'un tas, une à une jusqu'au seuil, puis par leur nombre.
+   *
+   * @param allumettes le nombre d'allumettes
+   * @param sortie la sortie
+   */
+  private void afficherAllumettes(long allumettes, Appendable sortie) throws IOException {
+    if (allumettes <= seuil) {
+      for (long i = 0; i < allumettes; ++i) {
+        sortie.append(ALLUMETTE);
+      }
+    } else {
+      sortie.append(ALLUMETTE).append(" × ").append(Long.toString(allumettes));
+    }
+  }
+
+  /**
+   * Affiche les allumettes d'un tas en mode grand.
+   *
+   * @param allumettes le nombre d'allumettes
+   * @param sortie la sortie
+   */
+  private void afficherAllumettes(BigInteger allumettes, Appendable sortie) throws IOException {
+    if (allumettes.bitLength() < Long.SIZE) {
+      afficherAllumettes(allumettes.longValue(), sortie);
+    } else {
+      sortie.append(ALLUMETTE).append(" × ").append(allumettes.toString());
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+/**
+ * Arbre de Fenwick (ou arbre binaire indexé) des nombres d'allumettes des tas.
+ *
+ * <p>Modifier un tas et trouver le tas contenant la n-ième allumette se font en temps logarithmique
+ * du nombre de tas, ce qui permet de tirer un tas avec une probabilité proportionnelle à son nombre
+ * d'allumettes sans parcourir les tas.
+ */
+final class ArbreFenwick {
+  /** Les sommes partielles, la case i couvrant les tas {@code i - (i & -i) + 1} à i. */
+  private final long[] sommes;
+
+  /** La plus grande puissance de deux inférieure ou égale au nombre de tas. */
+  private final int pasInitial;
+
+  /**
+   * Crée l'arbre de tas donnés, en temps linéaire.
+   *
+   * @param tas le nombre d'allumettes de chaque tas, dont la somme tient dans un {@code long}
+   */
+  ArbreFenwick(long[] tas) {
+    sommes = new long[tas.length + 1];
+    System.arraycopy(tas, 0, sommes, 1, tas.length);
+    for (int i = 1; i <= tas.length; ++i) {
+      int parent = i + (i & -i);
+      if (parent <= tas.length) {
+        sommes[parent] += sommes[i];
+      }
+    }
+
+    pasInitial = tas.length == 0 ? 0 : Integer.highestOneBit(tas.length);
+  }
+
+  /**
+   * Crée une copie d'un arbre.
+   *
+   * @param arbre l'arbre à copier
+   */
+  private ArbreFenwick(ArbreFenwick arbre) {
+    this.sommes = arbre.sommes.clone();
+    this.pasInitial = arbre.pasInitial;
+  }
+
+  /**
+   * Ajoute des allumettes à un tas.
+   *
+   * @param indice l'indice du tas, à partir de 0
+   * @param difference le nombre d'allumettes ajoutées, négatif pour un retrait
+   */
+  void ajouter(int indice, long difference) {
+    for (int i = indice + 1; i < sommes.length; i += i & -i) {
+      sommes[i] += difference;
+    }
+  }
+
+  /**
+   * Cherche le tas contenant une allumette, les allumettes étant numérotées tas après tas.
+   *
+   * @param allumette le numéro de l'allumette, entre 0 et le total d'allumettes - 1
+   * @return l'indice du tas, à partir de 0
+   */
+  int chercher(long allumette) {
+    int position = 0;
+    for (int pas = pasInitial; pas != 0; pas >>= 1) {
+      int suivante = position + pas;
+      if (suivante < sommes.length && sommes[suivante] <= allumette) {
+        position = suivante;
+        allumette -= sommes[suivante];
+      }
+    }
+
+    return position;
+  }
+
+  /**
+   * Créer une copie de l'arbre.
+   *
+   * @return la copie
+   */
+  ArbreFenwick dupliquer() {
+    return new ArbreFenwick(this);
+  }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table de valeurs de Grundy conservée dans un fichier, pour ne pas la recalculer à chaque
+ * lancement.
+ *
+ * <p>Chaque ensemble de retraits autorisés a son propre fichier, nommé d'après la liste complète
+ * des retraits, par exemple {@code grundy-1_3-4.bin} pour 1, 3 et 4. Le fichier est lu en le
+ * projetant en mémoire par tranches de plus en plus grandes, qui dépassent sa fin pour que les
+ * ajouts suivants n'aient pas à le projeter à nouveau. Les valeurs de Grundy ne valant que pour le
+ * jeu normal, le mode misère n'a pas de table. Les nouvelles valeurs sont ajoutées à la fin du
+ * fichier, puis le nombre de valeurs de l'en-tête est mis à jour, si bien qu'un fichier interrompu
+ * pendant un ajout reste valide.
+ *
+ * <p>Une table ouverte est partagée par tous ceux qui l'ouvrent et reste ouverte jusqu'à l'arrêt
+ * de l'application. Plusieurs applications peuvent utiliser le même fichier, les ajouts étant
+ * protégés par un verrou sur le fichier.
+ *
+ * <p>Format du fichier, en big-endian :
+ *
+ * <ul>
+ *   <li>{@code int} : le nombre magique {@code GRDY} ;
+ *   <li>{@code int} : la version du format ;
+ *   <li>{@code long} : le nombre de valeurs enregistrées ;
+ *   <li>{@code byte} : la taille d'une valeur en octets, 1 ou 4 ;
+ *   <li>{@code byte} puis {@code short} : inutilisés ;
+ *   <li>{@code int} puis autant d'{@code int} : le nombre de retraits autorisés puis les retraits,
+ *       triés ;
+ *   <li>les valeurs, dans l'ordre des tas.
+ * </ul>
+ */
+public class CacheGrundy {
+  /** Le nombre magique du format */
+  private static final int MAGIQUE = 0x47524459;
+
+  /** La version du format */
+  private static final int VERSION = 2;
+
+  /** Position du nombre de valeurs dans l'en-tête */
+  private static final int POSITION_TAILLE = 8;
+
+  /** Taille de l'en-tête, sans les retraits */
+  private static final int EN_TETE = 24;
+
+  /** Longueur maximale du nom d'un fichier, d'après les systèmes de fichiers courants */
+  private static final int NOM_MAX = 255;
+
+  /** Nombre minimal de valeurs d'une projection */
+  private static final long PROJECTION_MIN = 1 << 12;
+
+  /** Les tables déjà ouvertes, indexées par fichier */
+  private static final ConcurrentHashMap<Path, CacheGrundy> OUVERTES = new ConcurrentHashMap<>();
+
+  /** Les retraits autorisés, triés et distincts */
+  private final int[] retraits;
+
+  /** La taille d'une valeur en octets */
+  private final int largeur;
+
+  /** Position de la première valeur dans le fichier */
+  private final int debutValeurs;
+
+  /** Le fichier */
+  private final FileChannel canal;
+
+  /** La projection en mémoire du fichier, refaite lorsqu'un ajout dépasse sa capacité */
+  private volatile MappedByteBuffer projection;
+
+  /** Le nombre de valeurs que peut contenir la projection */
+  private long capacite;
+
+  /** Le nombre de valeurs enregistrées */
+  private volatile long taille;
+
+  /**
+   * Ouvre la table d'un ensemble de retraits autorisés, en la créant si besoin.
+   *
+   * @param repertoire le répertoire des tables
+   * @param retraits les retraits autorisés
+   * @return la table
+   * @throws IOException si le fichier ne peut pas être lu ou créé, correspond à d'autres règles,
+   *     ou si les retraits sont trop nombreux pour nommer le fichier
+   */
+  public static CacheGrundy ouvrir(Path repertoire, int[] retraits) throws IOException {
+    int[] tries = Arrays.stream(retraits).sorted().distinct().toArray();
+    Files.createDirectories(repertoire);
+    Path fichier = repertoire.resolve(nommer(tries)).toAbsolutePath().normalize();
+
+    CacheGrundy cache;
+    try {
+      cache =
+          OUVERTES.computeIfAbsent(
+              fichier,
+              f -> {
+                try {
+                  return new CacheGrundy(f, tries);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    if (!Arrays.equals(cache.retraits, tries)) {
+      throw new IOException("La table " + fichier + " correspond à d'autres règles");
+    }
+
+    return cache;
+  }
+
+  /**
+   * Nomme le fichier d'un ensemble de retraits, les suites de retraits consécutifs étant écrites
+   * par leurs bornes.
+   *
+   * @param tries les retraits, triés et distincts
+   * @return le nom du fichier
+   * @throws IOException si le nom serait trop long
+   */
+  private static String nommer(int[] tries) throws IOException {
+    StringBuilder nom = new StringBuilder("grundy-");
+    for (int i = 0; i < tries.length; ++i) {
+      int fin = i;
+      while (fin + 1 < tries.length && tries[fin + 1] == tries[fin] + 1) {
+        ++fin;
+      }
+
+      nom.append(i == 0 ? "" : "_").append(tries[i]);
+      if (fin > i) {
+        nom.append('-').append(tries[fin]);
+      }
+      i = fin;
+    }
+    nom.append(".bin");
+
+    if (nom.length() > NOM_MAX) {
+      throw new IOException("Trop de retraits pour nommer la table : " + tries.length);
+    }
+    return nom.toString();
+  }
+
+  private CacheGrundy(Path fichier, int[] retraits) throws IOException {
+    this.retraits = retraits;
+    // Une valeur de Grundy ne dépasse pas le nombre de retraits.
+    this.largeur = retraits.length <= Byte.MAX_VALUE ? 1 : Integer.BYTES;
+    this.debutValeurs = EN_TETE + Integer.BYTES * retraits.length;
+    this.canal =
+        FileChannel.open(
+            fichier, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    try {
+      FileLock verrou = canal.lock();
+      try {
+        if (canal.size() == 0) {
+          ecrireEnTete();
+        } else {
+          verifierEnTete(fichier);
+        }
+      } finally {
+        verrou.release();
+      }
+    } catch (IOException | RuntimeException e) {
+      canal.close();
+      throw e;
+    }
+
+    projeter(taille);
+  }
+
+  /**
+   * Retourne le nombre de valeurs enregistrées.
+   *
+   * @return le nombre de valeurs, qui sont celles des tas de 0 à ce nombre exclu
+   */
+  public long getTaille() {
+    return taille;
+  }
+
+  /**
+   * Retourne les retraits autorisés de la table.
+   *
+   * @return les retraits, triés et distincts
+   */
+  public int[] getRetraits() {
+    return retraits.clone();
+  }
+
+  /**
+   * Lit une valeur enregistrée.
+   *
+   * @param tas le nombre d'allumettes du tas, inférieur à {@link #getTaille()}
+   * @return la valeur de Grundy du tas
+   */
+  public int lire(long tas) {
+    if (tas < 0 || tas >= taille) {
+      throw new IllegalArgumentException("Valeur absente de la table : " + tas);
+    }
+
+    int position = debutValeurs + (int) tas * largeur;
+    return largeur == 1 ? projection.get(position) : projection.getInt(position);
+  }
+
+  /**
+   * Ajoute des valeurs à la fin de la table.
+   *
+   * @param valeurs les valeurs des tas suivant le dernier tas enregistré
+   * @throws IOException si le fichier ne peut pas être écrit
+   */
+  public synchronized void ajouter(int[] valeurs) throws IOException {
+    if ((long) debutValeurs + (taille + valeurs.length) * largeur > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Table trop grande");
+    }
+
+    ByteBuffer tampon = ByteBuffer.allocate(valeurs.length * largeur);
+    for (int valeur : valeurs) {
+      if (largeur == 1) {
+        tampon.put((byte) valeur);
+      } else {
+        tampon.putInt(valeur);
+      }
+    }
+    tampon.flip();
+
+    FileLock verrou = canal.lock();
+    try {
+      // Un autre processus a pu agrandir la table depuis la dernière lecture.
+      long tailleFichier = lireTaille();
+      if (tailleFichier != taille) {
+        projeter(tailleFichier);
+        return;
+      }
+
+      long position = debutValeurs + taille * largeur;
+      while (tampon.hasRemaining()) {
+        position += canal.write(tampon, position);
+      }
+
+      // Les valeurs sont écrites avant le nombre de valeurs qui les rend visibles.
+      canal.force(false);
+      ByteBuffer nouvelleTaille = ByteBuffer.allocate(Long.BYTES);
+      nouvelleTaille.putLong(0, taille + valeurs.length);
+      canal.write(nouvelleTaille, POSITION_TAILLE);
+      canal.force(false);
+    } finally {
+      verrou.release();
+    }
+
+    projeter(taille + valeurs.length);
+  }
+
+  /**
+   * Projette en mémoire les valeurs enregistrées si la projection actuelle ne les contient pas,
+   * puis publie leur nombre. Une lecture sans verrou qui voit le nouveau nombre voit donc aussi la
+   * projection qui contient les valeurs.
+   *
+   * <p>La capacité est au moins doublée à chaque nouvelle projection. Le canal étant ouvert en
+   * écriture, la projection agrandit le fichier au-delà des valeurs, sans effet sur les lectures :
+   * seul le nombre de valeurs de l'en-tête fait foi. Les valeurs écrites ensuite par le canal sont
+   * visibles dans la projection, qui partage les pages du fichier.
+   *
+   * @param nouvelleTaille le nombre de valeurs enregistrées
+   */
+  private void projeter(long nouvelleTaille) throws IOException {
+    if (projection == null || nouvelleTaille > capacite) {
+      long maximum = (Integer.MAX_VALUE - debutValeurs) / largeur;
+      long nouvelleCapacite =
+          Math.min(maximum, Math.max(nouvelleTaille, Math.max(PROJECTION_MIN, 2 * capacite)));
+      projection =
+          canal.map(FileChannel.MapMode.READ_ONLY, 0, debutValeurs + nouvelleCapacite * largeur);
+      capacite = nouvelleCapacite;
+    }
+    taille = nouvelleTaille;
+  }
+
+  /** Écrit l'en-tête d'une table vide. */
+  private void ecrireEnTete() throws IOException {
+    ByteBuffer enTete = ByteBuffer.allocate(debutValeurs);
+    enTete.putInt(MAGIQUE).putInt(VERSION).putLong(0);
+    enTete.put((byte) largeur).put((byte) 0).putShort((short) 0);
+    enTete.putInt(retraits.length);
+    for (int retrait : retraits) {
+      enTete.putInt(retrait);
+    }
+    enTete.flip();
+
+    while (enTete.hasRemaining()) {
+      canal.write(enTete, enTete.position());
+    }
+    canal.force(false);
+    taille = 0;
+  }
+
+  /**
+   * Vérifie que l'en-tête du fichier correspond aux règles de la table, et lit le nombre de
+   * valeurs.
+   *
+   * @param fichier le fichier, pour les messages d'erreur
+   */
+  private void verifierEnTete(Path fichier) throws IOException {
+    ByteBuffer enTete = ByteBuffer.allocate(debutValeurs);
+    if (canal.read(enTete, 0) < debutValeurs) {
+      throw new IOException("En-tête incomplet : " + fichier);
+    }
+    enTete.flip();
+
+    if (enTete.getInt() != MAGIQUE || enTete.getInt() != VERSION) {
+      throw new IOException("Format de table inconnu : " + fichier);
+    }
+
+    long tailleEnTete = enTete.getLong();
+    boolean memesRegles = enTete.get() == largeur && enTete.get() == 0 && enTete.getShort() == 0;
+    memesRegles &= enTete.getInt() == retraits.length;
+    for (int i = 0; memesRegles && i < retraits.length; ++i) {
+      memesRegles = enTete.getInt() == retraits[i];
+    }
+
+    if (!memesRegles) {
+      throw new IOException("La table " + fichier + " correspond à d'autres règles");
+    }
+
+    // Des valeurs écrites sans que l'en-tête ait été mis à jour sont ignorées.
+    taille = Math.min(tailleEnTete, (canal.size() - debutValeurs) / largeur);
+  }
+
+  /**
+   * Lit le nombre de valeurs de l'en-tête du fichier.
+   *
+   * @return le nombre de valeurs
+   */
+  private long lireTaille() throws IOException {
+    ByteBuffer tampon = ByteBuffer.allocate(Long.BYTES);
+    canal.read(tampon, POSITION_TAILLE);
+    return tampon.getLong(0);
+  }
+}
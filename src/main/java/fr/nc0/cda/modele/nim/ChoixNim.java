@@ -7,18 +7,34 @@
 package fr.nc0.cda.modele.nim;
 
 import fr.nc0.cda.modele.jeu.Choix;
+import java.math.BigInteger;
 
 /** Les choix possibles pour jouer au jeu de Nim. */
 public class ChoixNim implements Choix {
   /** Le tas dans lequel jouer */
   private final int tas;
 
-  /** Le nombre d'allumettes à retirer */
-  private final int allumettes;
+  /** Le nombre d'allumettes à retirer, s'il tient dans un {@code long} */
+  private final long allumettes;
 
-  public ChoixNim(int tas, int allumettes) {
+  /** Le nombre d'allumettes à retirer s'il ne tient pas dans un {@code long}, null sinon */
+  private final BigInteger grandesAllumettes;
+
+  public ChoixNim(int tas, long allumettes) {
     this.tas = tas;
     this.allumettes = allumettes;
+    this.grandesAllumettes = null;
+  }
+
+  public ChoixNim(int tas, BigInteger allumettes) {
+    this.tas = tas;
+    if (allumettes.bitLength() < Long.SIZE) {
+      this.allumettes = allumettes.longValue();
+      this.grandesAllumettes = null;
+    } else {
+      this.allumettes = 0;
+      this.grandesAllumettes = allumettes;
+    }
   }
 
   /** Le tas dans lequel jouer */
@@ -26,8 +42,26 @@ public class ChoixNim implements Choix {
     return tas;
   }
 
-  /** Le nombre d'allumettes à retirer */
-  public int getAllumettes() {
+  /**
+   * Le nombre d'allumettes à retirer
+   *
+   * @throws ArithmeticException si le nombre ne tient pas dans un {@code long}
+   */
+  public long getAllumettes() {
+    if (grandesAllumettes != null) {
+      throw new ArithmeticException("Nombre d'allumettes trop grand : " + grandesAllumettes);
+    }
+
     return allumettes;
   }
+
+  /** Le nombre exact d'allumettes à retirer */
+  public BigInteger getAllumettesExactes() {
+    return grandesAllumettes != null ? grandesAllumettes : BigInteger.valueOf(allumettes);
+  }
+
+  /** Vérifie que le nombre d'allumettes ne tient pas dans un {@code long} */
+  public boolean estGrand() {
+    return grandesAllumettes != null;
+  }
 }
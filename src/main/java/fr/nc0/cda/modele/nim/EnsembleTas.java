@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+/**
+ * Ensemble d'indices de tas, stocké sous la forme d'un bitset hiérarchique.
+ *
+ * <p>Le niveau 0 contient un bit par indice. Chaque bit d'un niveau supérieur indique que le mot
+ * correspondant du niveau inférieur n'est pas nul. L'ajout, le retrait et la recherche du plus
+ * petit indice coûtent donc O(log<sub>64</sub> n).
+ */
+final class EnsembleTas {
+  /** Les niveaux du bitset, du plus détaillé au plus grossier, le dernier tenant en un mot */
+  private final long[][] niveaux;
+
+  /**
+   * Crée un ensemble vide.
+   *
+   * @param capacite le nombre d'indices possibles, de 0 à capacite - 1
+   */
+  EnsembleTas(int capacite) {
+    int nombreNiveaux = 1;
+    for (int bits = Math.max(1, capacite); bits > Long.SIZE; bits = mots(bits)) {
+      ++nombreNiveaux;
+    }
+
+    niveaux = new long[nombreNiveaux][];
+    int bits = Math.max(1, capacite);
+    for (int niveau = 0; niveau < nombreNiveaux; ++niveau) {
+      niveaux[niveau] = new long[mots(bits)];
+      bits = mots(bits);
+    }
+  }
+
+  /**
+   * Crée une copie d'un ensemble.
+   *
+   * @param ensemble l'ensemble à copier
+   */
+  private EnsembleTas(EnsembleTas ensemble) {
+    niveaux = new long[ensemble.niveaux.length][];
+    for (int niveau = 0; niveau < niveaux.length; ++niveau) {
+      niveaux[niveau] = ensemble.niveaux[niveau].clone();
+    }
+  }
+
+  /**
+   * Ajoute un indice à l'ensemble.
+   *
+   * @param indice l'indice
+   */
+  void ajouter(int indice) {
+    for (long[] mots : niveaux) {
+      boolean dejaNonNul = mots[indice >>> 6] != 0;
+      mots[indice >>> 6] |= 1L << indice;
+      if (dejaNonNul) {
+        return;
+      }
+
+      indice >>>= 6;
+    }
+  }
+
+  /**
+   * Retire un indice de l'ensemble.
+   *
+   * @param indice l'indice
+   */
+  void retirer(int indice) {
+    for (long[] mots : niveaux) {
+      mots[indice >>> 6] &= ~(1L << indice);
+      if (mots[indice >>> 6] != 0) {
+        return;
+      }
+
+      indice >>>= 6;
+    }
+  }
+
+  /**
+   * Retourne le plus petit indice de l'ensemble.
+   *
+   * @return le plus petit indice, ou -1 si l'ensemble est vide
+   */
+  int premier() {
+    int indice = 0;
+    for (int niveau = niveaux.length - 1; niveau >= 0; --niveau) {
+      long mot = niveaux[niveau][indice];
+      if (mot == 0) {
+        return -1;
+      }
+
+      indice = (indice << 6) | Long.numberOfTrailingZeros(mot);
+    }
+
+    return indice;
+  }
+
+  /**
+   * Crée une copie de l'ensemble.
+   *
+   * @return la copie
+   */
+  EnsembleTas dupliquer() {
+    return new EnsembleTas(this);
+  }
+
+  /**
+   * Retourne le nombre de mots nécessaires pour un nombre de bits.
+   *
+   * @param bits le nombre de bits
+   * @return le nombre de mots
+   */
+  private static int mots(int bits) {
+    return (bits + Long.SIZE - 1) >>> 6;
+  }
+}
@@ -7,15 +7,22 @@
 package fr.nc0.cda.modele.nim;
 
 import fr.nc0.cda.modele.jeu.*;
+import java.math.BigInteger;
 
 /** Représente une partie du jeu de Nim. */
 public class JeuNim extends Jeu<PlateauNim, ChoixNim> {
-  /** Contrainte sur le nombre maximal d'allumettes à retirer par coup (0 → pas de contrainte). */
+  /**
+   * Contrainte sur le nombre maximal d'allumettes à retirer par coup (0 → pas de contrainte), le
+   * plus grand retrait autorisé s'il y a un ensemble de retraits.
+   */
   private final int contrainte;
 
   /** Le nombre de tas de la partie */
   private final int nombreTas;
 
+  /** True si le joueur retirant la dernière allumette perd la partie (règle misère). */
+  private final boolean misere;
+
   /**
    * Créer une partie et l'initialise avec le nombre de tas donné.
    *
@@ -23,9 +30,47 @@ public class JeuNim extends Jeu<PlateauNim, ChoixNim> {
    * @param contrainte le nombre maximal d'allumettes à retirer par coup.
    */
   public JeuNim(int nbrTas, int contrainte) {
-    super(new PlateauNim(nbrTas, contrainte));
+    this(nbrTas, contrainte, false);
+  }
+
+  /**
+   * Créer une partie et l'initialise avec le nombre de tas donné.
+   *
+   * @param nbrTas le nombre de tas de la partie.
+   * @param contrainte le nombre maximal d'allumettes à retirer par coup.
+   * @param misere true si le joueur retirant la dernière allumette perd la partie.
+   */
+  public JeuNim(int nbrTas, int contrainte, boolean misere) {
+    super(new PlateauNim(nbrTas, contrainte, misere));
     this.contrainte = contrainte;
     this.nombreTas = nbrTas;
+    this.misere = misere;
+  }
+
+  /**
+   * Créer une partie et l'initialise avec le nombre de tas donné, chaque coup retirant un nombre
+   * d'allumettes d'un ensemble donné.
+   *
+   * @param nbrTas le nombre de tas de la partie.
+   * @param retraits les nombres d'allumettes qu'il est permis de retirer par coup, dont 1.
+   * @param misere true si le joueur retirant la dernière allumette perd la partie.
+   * @throws IllegalArgumentException si un retrait n'est pas positif ou si 1 n'est pas autorisé
+   */
+  public JeuNim(int nbrTas, int[] retraits, boolean misere) {
+    this(new PlateauNim(nbrTas, retraits, misere));
+  }
+
+  /**
+   * Créer une partie à partir d'un plateau, par exemple pour une disposition initiale des tas
+   * choisie à la main.
+   *
+   * @param plateau le plateau de la partie, avec ses tas, sa contrainte et sa règle.
+   */
+  public JeuNim(PlateauNim plateau) {
+    super(plateau);
+    this.contrainte = plateau.getContrainte();
+    this.nombreTas = plateau.getTaille();
+    this.misere = plateau.estMisere();
   }
 
   @Override
@@ -36,30 +81,68 @@ public class JeuNim extends Jeu<PlateauNim, ChoixNim> {
     }
 
     int tas = choix.getTas();
-    int allumettes = choix.getAllumettes();
     if (tas < 1 || tas > nombreTas) {
       throw new CoupInvalideException("Numéro de tas invalide.");
     }
 
-    if (allumettes < 1) {
+    if (choix.estGrand() || plateau.estGrand()) {
+      jouerGrand(tas, choix.getAllumettesExactes());
+    } else {
+      long allumettes = choix.getAllumettes();
+      if (allumettes < 1) {
+        throw new CoupInvalideException("Nombre d'allumettes invalide.");
+      }
+
+      if (contrainte != 0 && allumettes > contrainte) {
+        throw new CoupInvalideException(
+            "Nombre d'allumettes supérieur à la contrainte de la partie.");
+      }
+
+      if (!plateau.estRetraitAutorise(allumettes)) {
+        throw new CoupInvalideException("Nombre d'allumettes non autorisé par la partie.");
+      }
+
+      long allumettesRestantes = plateau.getAllumettesRestantes(tas);
+      if (allumettes > allumettesRestantes) {
+        throw new CoupInvalideException("Nombre d'allumettes invalide.");
+      }
+
+      plateau.retirerAllumettes(tas, allumettes);
+    }
+
+    if (plateau.estVide()) {
+      // En règle misère, le joueur ayant retiré la dernière allumette perd.
+      boolean victoireJoueur1 = (joueur == Joueurs.JOUEUR_1) != misere;
+      etatPartie = victoireJoueur1 ? EtatPartie.VICTOIRE_JOUEUR_1 : EtatPartie.VICTOIRE_JOUEUR_2;
+    }
+  }
+
+  /**
+   * Retire des allumettes d'un tas lorsque le plateau ou le coup ne tient pas dans un {@code
+   * long}.
+   *
+   * @param tas le numéro du tas, valide
+   * @param allumettes le nombre d'allumettes à retirer
+   * @throws CoupInvalideException si le nombre d'allumettes est invalide
+   */
+  private void jouerGrand(int tas, BigInteger allumettes) throws CoupInvalideException {
+    if (allumettes.signum() < 1) {
       throw new CoupInvalideException("Nombre d'allumettes invalide.");
     }
 
-    if (contrainte != 0 && allumettes > contrainte) {
+    if (contrainte != 0 && allumettes.compareTo(BigInteger.valueOf(contrainte)) > 0) {
       throw new CoupInvalideException(
           "Nombre d'allumettes supérieur à la contrainte de la partie.");
     }
 
-    int allumettesRestantes = plateau.getAllumettesRestantes(tas);
-    if (allumettes > allumettesRestantes) {
+    if (contrainte != 0 && !plateau.estRetraitAutorise(allumettes.longValue())) {
+      throw new CoupInvalideException("Nombre d'allumettes non autorisé par la partie.");
+    }
+
+    if (allumettes.compareTo(plateau.getAllumettesRestantesExactes(tas)) > 0) {
       throw new CoupInvalideException("Nombre d'allumettes invalide.");
     }
 
     plateau.retirerAllumettes(tas, allumettes);
-
-    if (plateau.estVide()) {
-      etatPartie =
-          joueur == Joueurs.JOUEUR_1 ? EtatPartie.VICTOIRE_JOUEUR_1 : EtatPartie.VICTOIRE_JOUEUR_2;
-    }
   }
 }
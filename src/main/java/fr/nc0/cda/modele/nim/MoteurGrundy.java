@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calcul des valeurs de Grundy d'un jeu de soustraction, c'est-à-dire d'un jeu de Nim dans lequel
+ * le nombre d'allumettes retirées d'un tas doit appartenir à un ensemble de retraits autorisés.
+ *
+ * <p>D'après le théorème de Sprague-Grundy, une position est perdante pour le joueur qui doit
+ * jouer si et seulement si le XOR des valeurs de Grundy de ses tas est nul.
+ *
+ * <p>Lorsque les retraits autorisés sont tous les nombres de 1 à k, la valeur de Grundy d'un tas de
+ * n allumettes est n mod (k + 1), calculée directement. Sans contrainte, c'est n. Pour un ensemble
+ * quelconque, les valeurs sont calculées par {@link SolveurOctal} jusqu'à en trouver la période, et
+ * peuvent être conservées dans un fichier par {@link CacheGrundy} pour ne pas les recalculer.
+ */
+public class MoteurGrundy {
+  /** Les moteurs déjà créés pour chaque contrainte de retrait */
+  private static final ConcurrentHashMap<Integer, MoteurGrundy> PAR_CONTRAINTE =
+      new ConcurrentHashMap<>();
+
+  /** Les moteurs déjà créés pour chaque ensemble de retraits autorisés, trié */
+  private static final ConcurrentHashMap<List<Integer>, MoteurGrundy> PAR_RETRAITS =
+      new ConcurrentHashMap<>();
+
+  /** Le répertoire des fichiers des moteurs partagés par ensemble de retraits */
+  private static final Path REPERTOIRE =
+      Path.of(System.getProperty("java.io.tmpdir"), "cda-grundy");
+
+  /** Nombre minimal de valeurs calculées écrites ensemble dans le fichier, hors période trouvée */
+  private static final int ENREGISTREMENT_MIN = 1024;
+
+  /** Les retraits autorisés, triés et distincts, ou null pour une forme close */
+  private final int[] retraits;
+
+  /**
+   * Le modulo de la forme close n mod (k + 1), 0 si tous les retraits sont autorisés, ou -1 si les
+   * valeurs doivent être calculées
+   */
+  private final long modulo;
+
+  /** Le calcul des valeurs, ou null pour une forme close */
+  private final SolveurOctal solveur;
+
+  /**
+   * Le fichier où conserver les valeurs calculées, ou null. Abandonné une fois la période trouvée
+   * et toutes les valeurs écrites, ou si son écriture échoue, les valeurs restant en mémoire.
+   */
+  private volatile CacheGrundy cache;
+
+  /**
+   * Créer un moteur pour un ensemble de retraits autorisés.
+   *
+   * @param retraits les nombres d'allumettes qu'il est permis de retirer d'un tas, tous positifs
+   * @throws IllegalArgumentException si l'ensemble est vide ou contient un retrait invalide
+   */
+  public MoteurGrundy(int... retraits) {
+    this(trier(retraits), null);
+  }
+
+  /**
+   * Créer un moteur.
+   *
+   * @param tries les retraits autorisés, triés et distincts
+   * @param cache le fichier des valeurs, ou null pour les garder seulement en mémoire
+   */
+  private MoteurGrundy(int[] tries, CacheGrundy cache) {
+    // Les retraits de 1 à k sont exactement ceux d'un ensemble trié de k éléments finissant par k.
+    boolean borne = tries[tries.length - 1] == tries.length;
+    this.retraits = borne ? null : tries;
+    this.modulo = borne ? tries.length + 1L : -1;
+    this.solveur = borne ? null : SolveurOctal.soustraction(tries);
+    this.cache = borne ? null : cache;
+
+    if (this.cache != null) {
+      int[] valeurs = new int[(int) Math.min(Integer.MAX_VALUE - 8, cache.getTaille())];
+      for (int tas = 0; tas < valeurs.length; ++tas) {
+        valeurs[tas] = cache.lire(tas);
+      }
+      solveur.reprendre(valeurs);
+      if (solveur.getPeriode() != 0) {
+        this.cache = null;
+      }
+    }
+  }
+
+  /**
+   * Créer un moteur dont les valeurs ont une forme close.
+   *
+   * @param modulo k + 1 si les retraits autorisés vont de 1 à k, ou 0 s'ils sont tous autorisés
+   */
+  private MoteurGrundy(long modulo) {
+    this.retraits = null;
+    this.modulo = modulo;
+    this.solveur = null;
+    this.cache = null;
+  }
+
+  /**
+   * Créer un moteur dont les valeurs calculées sont conservées dans un fichier, pour les reprendre
+   * d'un lancement à l'autre. Les retraits de 1 à k n'ont pas besoin de table.
+   *
+   * @param repertoire le répertoire des tables
+   * @param retraits les nombres d'allumettes qu'il est permis de retirer d'un tas, tous positifs
+   * @return le moteur
+   * @throws IOException si la table ne peut pas être ouverte
+   * @throws IllegalArgumentException si l'ensemble est vide ou contient un retrait invalide
+   */
+  public static MoteurGrundy persistant(Path repertoire, int... retraits) throws IOException {
+    int[] tries = trier(retraits);
+    boolean borne = tries[tries.length - 1] == tries.length;
+    return new MoteurGrundy(tries, borne ? null : CacheGrundy.ouvrir(repertoire, tries));
+  }
+
+  /**
+   * Retourne le moteur d'un jeu de Nim dont chaque coup retire au plus un nombre donné
+   * d'allumettes. Les moteurs sont partagés entre toutes les parties de même contrainte.
+   *
+   * @param contrainte le nombre maximal d'allumettes à retirer par coup, 0 pour aucune contrainte
+   * @return le moteur
+   */
+  public static MoteurGrundy pourContrainte(int contrainte) {
+    if (contrainte < 0) {
+      throw new IllegalArgumentException("Contrainte négative : " + contrainte);
+    }
+
+    return PAR_CONTRAINTE.computeIfAbsent(contrainte, c -> new MoteurGrundy(c == 0 ? 0 : c + 1L));
+  }
+
+  /**
+   * Retourne le moteur d'un jeu de Nim dont chaque coup retire un nombre d'allumettes d'un
+   * ensemble donné. Les moteurs sont partagés entre toutes les parties de mêmes retraits, et leurs
+   * valeurs conservées dans un fichier du répertoire temporaire, ou seulement en mémoire si ce
+   * fichier ne peut pas être ouvert.
+   *
+   * @param retraits les nombres d'allumettes qu'il est permis de retirer d'un tas, tous positifs
+   * @return le moteur
+   * @throws IllegalArgumentException si l'ensemble est vide ou contient un retrait invalide
+   */
+  public static MoteurGrundy pourRetraits(int... retraits) {
+    int[] tries = trier(retraits);
+    if (tries[tries.length - 1] == tries.length) {
+      return pourContrainte(tries.length);
+    }
+
+    return PAR_RETRAITS.computeIfAbsent(
+        Arrays.stream(tries).boxed().toList(),
+        r -> {
+          try {
+            return persistant(REPERTOIRE, tries);
+          } catch (IOException e) {
+            return new MoteurGrundy(tries, null);
+          }
+        });
+  }
+
+  /**
+   * Retourne la valeur de Grundy d'un tas.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @return la valeur de Grundy
+   */
+  public long grundy(long tas) {
+    if (tas < 0) {
+      throw new IllegalArgumentException("Nombre d'allumettes négatif");
+    }
+
+    if (modulo == 0) {
+      return tas;
+    } else if (modulo > 0) {
+      return tas % modulo;
+    }
+
+    return valeurTable(tas);
+  }
+
+  /**
+   * Retourne la valeur de Grundy d'un tas ne tenant pas forcément dans un {@code long}.
+   *
+   * <p>Pour un ensemble de retraits quelconque, un grand tas est ramené dans la table grâce à la
+   * période des valeurs, calculée au besoin.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @return la valeur de Grundy
+   * @throws ArithmeticException si la valeur ne tient pas dans un {@code long}, tous les retraits
+   *     étant autorisés
+   * @throws IllegalArgumentException si la période n'apparaît pas avant la taille maximale de la
+   *     table
+   */
+  public long grundy(BigInteger tas) {
+    if (tas.bitLength() < Long.SIZE) {
+      return grundy(tas.longValue());
+    } else if (modulo > 0) {
+      return tas.mod(BigInteger.valueOf(modulo)).longValue();
+    }
+
+    return valeurTable(reduire(tas));
+  }
+
+  /**
+   * Vérifie qu'un nombre d'allumettes peut être retiré d'un tas.
+   *
+   * @param retrait le nombre d'allumettes
+   * @return true si le retrait est autorisé
+   */
+  public boolean estAutorise(long retrait) {
+    if (modulo == 0) {
+      return retrait >= 1;
+    } else if (modulo > 0) {
+      return retrait >= 1 && retrait < modulo;
+    }
+
+    return retrait >= 1
+        && retrait <= retraits[retraits.length - 1]
+        && Arrays.binarySearch(retraits, (int) retrait) >= 0;
+  }
+
+  /**
+   * Cherche un retrait menant un tas à une valeur de Grundy donnée.
+   *
+   * <p>Toute valeur inférieure à celle du tas est atteignable, par définition de la valeur de
+   * Grundy.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @param cible la valeur de Grundy à atteindre
+   * @return le nombre d'allumettes à retirer, ou 0 si aucun retrait autorisé n'atteint la cible
+   */
+  public long retraitVers(long tas, long cible) {
+    if (modulo == 0) {
+      return cible < tas ? tas - cible : 0;
+    } else if (modulo > 0) {
+      // Retirer r allumettes fait passer la valeur de tas mod (k + 1) à cette valeur moins r.
+      long valeur = tas % modulo;
+      return cible < valeur ? valeur - cible : 0;
+    }
+
+    for (int retrait : retraits) {
+      if (retrait > tas) {
+        break;
+      }
+
+      if (valeurTable(tas - retrait) == cible) {
+        return retrait;
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Cherche un retrait menant un tas ne tenant pas forcément dans un {@code long} à une valeur de
+   * Grundy donnée.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @param cible la valeur de Grundy à atteindre
+   * @return le nombre d'allumettes à retirer, ou 0 si aucun retrait autorisé n'atteint la cible
+   * @throws ArithmeticException si le retrait ne tient pas dans un {@code long}, ou dans les cas
+   *     où {@link #grundy(BigInteger)} lève cette exception
+   */
+  public long retraitVers(BigInteger tas, long cible) {
+    if (tas.bitLength() < Long.SIZE) {
+      return retraitVers(tas.longValue(), cible);
+    } else if (modulo > 0) {
+      long valeur = grundy(tas);
+      return cible < valeur ? valeur - cible : 0;
+    }
+
+    return retraitVers(reduire(tas), cible);
+  }
+
+  /**
+   * Ramène un grand tas à un tas de la table qui a la même valeur de Grundy, de même que chacun
+   * des tas atteignables en un coup, grâce à la période des valeurs.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @return le nombre d'allumettes du tas de la table
+   * @throws ArithmeticException si les valeurs n'ont pas de période connue
+   */
+  private long reduire(BigInteger tas) {
+    if (solveur == null) {
+      // Sans contrainte, la valeur est le tas lui-même.
+      throw new ArithmeticException("Valeur de Grundy trop grande : " + tas);
+    }
+
+    // Un jeu de soustraction finit toujours par être périodique.
+    solveur.calculer(Long.MAX_VALUE);
+    long periode = solveur.getPeriode();
+    long debut = solveur.getPreperiode() + (long) retraits[retraits.length - 1];
+    BigInteger decalage = tas.subtract(BigInteger.valueOf(debut));
+    return debut + decalage.mod(BigInteger.valueOf(periode)).longValue();
+  }
+
+  /**
+   * Retourne une valeur de la table, en la calculant ainsi que les précédentes si besoin.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @return la valeur de Grundy
+   */
+  private int valeurTable(long tas) {
+    int valeur = solveur.grundy(tas);
+    CacheGrundy fichier = cache;
+    if (fichier != null && tas >= fichier.getTaille()) {
+      enregistrer(fichier);
+    }
+
+    return valeur;
+  }
+
+  /**
+   * Écrit dans le fichier les valeurs calculées qui n'y sont pas encore, par blocs d'au moins
+   * {@link #ENREGISTREMENT_MIN} valeurs et au moins aussi grands que le fichier, ou toutes dès que
+   * la période est trouvée, le solveur ne calculant alors plus rien.
+   *
+   * @param fichier le fichier des valeurs
+   */
+  private synchronized void enregistrer(CacheGrundy fichier) {
+    long enregistrees = fichier.getTaille();
+    int calculees = solveur.getCalculees();
+    long attente = calculees - enregistrees;
+    if (attente <= 0
+        || solveur.getPeriode() == 0 && attente < Math.max(ENREGISTREMENT_MIN, enregistrees)) {
+      return;
+    }
+
+    int[] valeurs = new int[(int) attente];
+    for (int i = 0; i < valeurs.length; ++i) {
+      valeurs[i] = solveur.grundy(enregistrees + i);
+    }
+
+    try {
+      fichier.ajouter(valeurs);
+      if (solveur.getPeriode() != 0) {
+        cache = null;
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // Le fichier n'est qu'une copie des valeurs, le calcul continue en mémoire.
+      cache = null;
+    }
+  }
+
+  /**
+   * Trie un ensemble de retraits et vérifie qu'il est valide.
+   *
+   * @param retraits les retraits
+   * @return les retraits, triés et distincts
+   * @throws IllegalArgumentException si l'ensemble est vide ou contient un retrait invalide
+   */
+  private static int[] trier(int[] retraits) {
+    if (retraits.length == 0) {
+      throw new IllegalArgumentException("Aucun retrait autorisé");
+    }
+
+    int[] tries = Arrays.stream(retraits).sorted().distinct().toArray();
+    if (tries[0] < 1) {
+      throw new IllegalArgumentException("Retrait invalide : " + tries[0]);
+    }
+
+    return tries;
+  }
+}
@@ -7,19 +7,87 @@
 package fr.nc0.cda.modele.nim;
 
 import fr.nc0.cda.modele.jeu.Plateau;
-import java.util.ArrayList;
-import java.util.List;
+import java.math.BigInteger;
+import java.util.Arrays;
 
-/** Représente une liste indexée de tas de la partie du jeu de Nim. */
+/**
+ * Représente une liste indexée de tas de la partie du jeu de Nim.
+ *
+ * <p>Les tas sont stockés dans un tableau de {@code long}. Le nombre de tas non vides et le nombre
+ * total d'allumettes sont tenus à jour à chaque modification, de sorte que consulter ou modifier
+ * un tas et vérifier que le plateau est vide se fassent en temps constant, quel que soit le nombre
+ * de tas.
+ *
+ * <p>La somme de Nim (le XOR de tous les tas) est elle aussi tenue à jour, ainsi que, pour chaque
+ * bit, l'ensemble des tas dont le nombre d'allumettes a ce bit. Un tas à réduire pour gagner se
+ * trouve ainsi sans parcourir les tas.
+ *
+ * <p>Un plateau créé avec des {@link BigInteger} est en « mode grand » : ses tas, son total et sa
+ * somme de Nim ne sont pas limités à 2<sup>63</sup> - 1. Les méthodes retournant un {@code long}
+ * lèvent alors une {@link ArithmeticException} lorsque la valeur ne tient pas dans un {@code
+ * long}, et les méthodes « exactes » retournant un {@link BigInteger} doivent être préférées.
+ *
+ * <p>Les coups peuvent être limités par une contrainte, le nombre maximal d'allumettes retirées, ou
+ * par un ensemble de retraits autorisés comprenant 1, pour qu'un coup soit toujours possible tant
+ * que le plateau n'est pas vide.
+ *
+ * <p>En règle misère, le joueur qui retire la dernière allumette perd la partie. Le nombre de tas
+ * de plus d'une allumette est alors tenu à jour, c'est lui qui décide de la stratégie à suivre.
+ */
 public class PlateauNim implements Plateau {
+  /** L'affichage des plateaux, partagé */
+  private static final AffichageNim AFFICHAGE = new AffichageNim();
+
   /** Taille de la liste de tas. */
   private final int taille;
 
-  /** Contrainte de retrait */
+  /** Contrainte de retrait, le plus grand retrait autorisé s'il y a un ensemble de retraits */
   private final int contrainte;
 
-  /** Liste des tas de la partie. */
-  private final List<Integer> tas;
+  /** Les retraits autorisés, triés et distincts, ou null si ce sont tous ceux de la contrainte */
+  private final int[] retraits;
+
+  /** True si la partie se joue en règle misère. */
+  private final boolean misere;
+
+  /** Nombre d'allumettes de chaque tas, le tas i étant à l'indice i - 1, null en mode grand. */
+  private final long[] tas;
+
+  /** Nombre d'allumettes de chaque tas en mode grand, null sinon. */
+  private final BigInteger[] grandsTas;
+
+  /** Nombre de tas contenant au moins une allumette. */
+  private int tasNonVides;
+
+  /** Les indices des tas non vides dans un ordre quelconque, seuls les tasNonVides premiers. */
+  private final int[] nonVides;
+
+  /** Pour chaque tas non vide, sa position dans {@link #nonVides}. */
+  private final int[] positionsNonVides;
+
+  /** L'arbre de Fenwick des tas, créé au premier tirage pondéré, null avant. */
+  private ArbreFenwick arbre;
+
+  /** Nombre de tas contenant au moins deux allumettes. */
+  private int tasSuperieursAUn;
+
+  /** Nombre total d'allumettes de tous les tas, hors mode grand. */
+  private long totalAllumettes;
+
+  /** La somme de Nim des tas, le XOR de leurs nombres d'allumettes, hors mode grand. */
+  private long nimSomme;
+
+  /** Nombre total d'allumettes de tous les tas en mode grand. */
+  private BigInteger grandTotalAllumettes = BigInteger.ZERO;
+
+  /** La somme de Nim des tas en mode grand. */
+  private BigInteger grandeNimSomme = BigInteger.ZERO;
+
+  /**
+   * Pour chaque bit, les indices des tas dont le nombre d'allumettes a ce bit, null tant qu'aucun
+   * tas ne l'a eu. Agrandi à la demande en mode grand.
+   */
+  private EnsembleTas[] tasParBit = new EnsembleTas[Long.SIZE];
 
   /**
    * Crée une liste de tas avec une taille et une liste de tas.
@@ -28,29 +96,203 @@ public class PlateauNim implements Plateau {
    * @param contrainte contrainte de retrait
    */
   public PlateauNim(int taille, int contrainte) {
+    this(taille, contrainte, false);
+  }
+
+  /**
+   * Crée une liste de tas avec une taille et une liste de tas.
+   *
+   * @param taille la taille de la liste de tas
+   * @param contrainte contrainte de retrait
+   * @param misere true pour jouer en règle misère
+   */
+  public PlateauNim(int taille, int contrainte, boolean misere) {
+    this(taille, contrainte, null, misere);
+  }
+
+  /**
+   * Crée une liste de tas avec une taille, dont les coups retirent un nombre d'allumettes d'un
+   * ensemble donné.
+   *
+   * @param taille la taille de la liste de tas
+   * @param retraits les nombres d'allumettes qu'il est permis de retirer d'un tas, dont 1
+   * @param misere true pour jouer en règle misère
+   * @throws IllegalArgumentException si un retrait n'est pas positif ou si 1 n'est pas autorisé
+   */
+  public PlateauNim(int taille, int[] retraits, boolean misere) {
+    this(taille, 0, trierRetraits(retraits), misere);
+  }
+
+  /**
+   * Crée une liste de tas avec une taille, le tas i ayant 2i - 1 allumettes.
+   *
+   * @param taille la taille de la liste de tas
+   * @param contrainte contrainte de retrait, ignorée s'il y a un ensemble de retraits
+   * @param retraits les retraits autorisés, triés et distincts, ou null
+   * @param misere true pour jouer en règle misère
+   */
+  private PlateauNim(int taille, int contrainte, int[] retraits, boolean misere) {
     super();
     this.taille = taille;
-    this.contrainte = contrainte;
+    this.contrainte = retraits == null ? contrainte : retraits[retraits.length - 1];
+    this.retraits = retraits;
+    this.misere = misere;
+    this.nonVides = new int[taille];
+    this.positionsNonVides = new int[taille];
+    this.grandsTas = null;
 
-    tas = new ArrayList<>(taille);
+    tas = new long[taille];
     for (int i = 1; i <= taille; ++i) {
       // le tas i dispose de 2*i - 1 allumettes
-      tas.add(2 * i - 1);
+      modifierTas(i - 1, 2L * i - 1);
+    }
+  }
+
+  /**
+   * Crée une liste de tas à partir du nombre d'allumettes de chaque tas.
+   *
+   * @param tas le nombre d'allumettes de chaque tas, le tas i étant à l'indice i - 1
+   * @param contrainte contrainte de retrait
+   * @throws IllegalArgumentException si un tas est négatif, ou si le nombre total d'allumettes
+   *     dépasse {@link Long#MAX_VALUE}, auquel cas le mode grand doit être utilisé
+   */
+  public PlateauNim(long[] tas, int contrainte) {
+    this(tas, contrainte, false);
+  }
+
+  /**
+   * Crée une liste de tas à partir du nombre d'allumettes de chaque tas.
+   *
+   * @param tas le nombre d'allumettes de chaque tas, le tas i étant à l'indice i - 1
+   * @param contrainte contrainte de retrait
+   * @param misere true pour jouer en règle misère
+   * @throws IllegalArgumentException si un tas est négatif, ou si le nombre total d'allumettes
+   *     dépasse {@link Long#MAX_VALUE}, auquel cas le mode grand doit être utilisé
+   */
+  public PlateauNim(long[] tas, int contrainte, boolean misere) {
+    this.taille = tas.length;
+    this.contrainte = contrainte;
+    this.retraits = null;
+    this.misere = misere;
+    this.nonVides = new int[taille];
+    this.positionsNonVides = new int[taille];
+    this.grandsTas = null;
+    this.tas = new long[taille];
+
+    for (int i = 0; i < taille; ++i) {
+      if (tas[i] < 0) {
+        throw new IllegalArgumentException("Nombre d'allumettes négatif");
+      }
+
+      if (tas[i] > Long.MAX_VALUE - totalAllumettes) {
+        throw new IllegalArgumentException("Nombre total d'allumettes trop grand");
+      }
+
+      modifierTas(i, tas[i]);
+    }
+  }
+
+  /**
+   * Crée une liste de tas en mode grand, à partir du nombre d'allumettes de chaque tas.
+   *
+   * @param tas le nombre d'allumettes de chaque tas, le tas i étant à l'indice i - 1
+   * @param contrainte contrainte de retrait
+   * @throws IllegalArgumentException si un tas est négatif
+   */
+  public PlateauNim(BigInteger[] tas, int contrainte) {
+    this(tas, contrainte, false);
+  }
+
+  /**
+   * Crée une liste de tas en mode grand, à partir du nombre d'allumettes de chaque tas.
+   *
+   * @param tas le nombre d'allumettes de chaque tas, le tas i étant à l'indice i - 1
+   * @param contrainte contrainte de retrait
+   * @param misere true pour jouer en règle misère
+   * @throws IllegalArgumentException si un tas est négatif
+   */
+  public PlateauNim(BigInteger[] tas, int contrainte, boolean misere) {
+    this.taille = tas.length;
+    this.contrainte = contrainte;
+    this.retraits = null;
+    this.misere = misere;
+    this.nonVides = new int[taille];
+    this.positionsNonVides = new int[taille];
+    this.tas = null;
+    this.grandsTas = new BigInteger[taille];
+    Arrays.fill(grandsTas, BigInteger.ZERO);
+
+    for (int i = 0; i < taille; ++i) {
+      if (tas[i].signum() < 0) {
+        throw new IllegalArgumentException("Nombre d'allumettes négatif");
+      }
+
+      modifierGrandTas(i, tas[i]);
+    }
+  }
+
+  /**
+   * Crée une copie d'un plateau.
+   *
+   * @param plateau le plateau à copier
+   */
+  private PlateauNim(PlateauNim plateau) {
+    this.taille = plateau.taille;
+    this.contrainte = plateau.contrainte;
+    this.retraits = plateau.retraits;
+    this.misere = plateau.misere;
+    this.tas = plateau.tas == null ? null : plateau.tas.clone();
+    this.grandsTas = plateau.grandsTas == null ? null : plateau.grandsTas.clone();
+    this.tasNonVides = plateau.tasNonVides;
+    this.tasSuperieursAUn = plateau.tasSuperieursAUn;
+    this.nonVides = plateau.nonVides.clone();
+    this.positionsNonVides = plateau.positionsNonVides.clone();
+    this.arbre = plateau.arbre == null ? null : plateau.arbre.dupliquer();
+    this.totalAllumettes = plateau.totalAllumettes;
+    this.nimSomme = plateau.nimSomme;
+    this.grandTotalAllumettes = plateau.grandTotalAllumettes;
+    this.grandeNimSomme = plateau.grandeNimSomme;
+    this.tasParBit = new EnsembleTas[plateau.tasParBit.length];
+    for (int bit = 0; bit < tasParBit.length; ++bit) {
+      if (plateau.tasParBit[bit] != null) {
+        tasParBit[bit] = plateau.tasParBit[bit].dupliquer();
+      }
     }
   }
 
+  /**
+   * Vérifie que le plateau est en mode grand, ses tas n'étant pas limités à {@link
+   * Long#MAX_VALUE}.
+   *
+   * @return true en mode grand
+   */
+  public boolean estGrand() {
+    return grandsTas != null;
+  }
+
   /**
    * Récupère le nombre d'allumettes restantes dans le tas demandé.
    *
    * @param tas l'index du tas à récupérer, doit être compris entre 1 et la taille de la liste
-   * @return le tas à l'index donné, null si l'index est invalide
-   * @throws IllegalArgumentException si l'index du tas ou le nombre d'allumettes est invalide
+   * @return le nombre d'allumettes du tas à l'index donné
+   * @throws IllegalArgumentException si l'index du tas est invalide
+   * @throws ArithmeticException si le tas ne tient pas dans un {@code long}, en mode grand
    */
-  public Integer getAllumettesRestantes(int tas) {
-    if (tas < 1 || tas > taille) {
-      throw new IllegalArgumentException("Index de tas invalide");
-    }
-    return this.tas.get(tas - 1);
+  public long getAllumettesRestantes(int tas) {
+    verifierTas(tas);
+    return grandsTas == null ? this.tas[tas - 1] : grandsTas[tas - 1].longValueExact();
+  }
+
+  /**
+   * Récupère le nombre exact d'allumettes restantes dans le tas demandé, quel que soit le mode.
+   *
+   * @param tas l'index du tas à récupérer, doit être compris entre 1 et la taille de la liste
+   * @return le nombre d'allumettes du tas à l'index donné
+   * @throws IllegalArgumentException si l'index du tas est invalide
+   */
+  public BigInteger getAllumettesRestantesExactes(int tas) {
+    verifierTas(tas);
+    return grandsTas == null ? BigInteger.valueOf(this.tas[tas - 1]) : grandsTas[tas - 1];
   }
 
   /**
@@ -61,21 +303,58 @@ public class PlateauNim implements Plateau {
    *     inférieur ou égal au nombre d'allumettes dans le tas
    * @throws IllegalArgumentException si l'index du tas ou le nombre d'allumettes est invalide
    */
-  public void retirerAllumettes(int tas, int allumettes) {
-    if (tas < 1 || tas > taille) {
-      throw new IllegalArgumentException("Index de tas invalide");
+  public void retirerAllumettes(int tas, long allumettes) {
+    if (grandsTas != null) {
+      retirerAllumettes(tas, BigInteger.valueOf(allumettes));
+      return;
     }
 
-    int allumettesRestantes = this.tas.get(tas - 1);
+    verifierTas(tas);
+
+    long allumettesRestantes = this.tas[tas - 1];
     if (allumettes < 1 || allumettes > allumettesRestantes) {
       throw new IllegalArgumentException("Nombre d'allumettes invalide");
     }
 
-    if (allumettes > contrainte && contrainte != 0) {
+    if (!estRetraitAutorise(allumettes)) {
+      throw new IllegalArgumentException("Contrainte non respectée");
+    }
+
+    modifierTas(tas - 1, allumettesRestantes - allumettes);
+  }
+
+  /**
+   * Retire un nombre d'allumettes d'un tas, si possible, quel que soit le mode.
+   *
+   * @param tas le numéro du tas, doit être compris entre 1 et la taille de la liste
+   * @param allumettes le nombre d'allumettes à retirer, doit être supérieur ou égal à 1 et
+   *     inférieur ou égal au nombre d'allumettes dans le tas
+   * @throws IllegalArgumentException si l'index du tas ou le nombre d'allumettes est invalide
+   */
+  public void retirerAllumettes(int tas, BigInteger allumettes) {
+    if (grandsTas == null) {
+      if (allumettes.bitLength() >= Long.SIZE) {
+        throw new IllegalArgumentException("Nombre d'allumettes invalide");
+      }
+
+      retirerAllumettes(tas, allumettes.longValue());
+      return;
+    }
+
+    verifierTas(tas);
+
+    BigInteger allumettesRestantes = grandsTas[tas - 1];
+    if (allumettes.signum() < 1 || allumettes.compareTo(allumettesRestantes) > 0) {
+      throw new IllegalArgumentException("Nombre d'allumettes invalide");
+    }
+
+    if (contrainte != 0
+        && (allumettes.compareTo(BigInteger.valueOf(contrainte)) > 0
+            || !estRetraitAutorise(allumettes.longValue()))) {
       throw new IllegalArgumentException("Contrainte non respectée");
     }
 
-    this.tas.set(tas - 1, allumettesRestantes - allumettes);
+    modifierGrandTas(tas - 1, allumettesRestantes.subtract(allumettes));
   }
 
   /**
@@ -84,12 +363,155 @@ public class PlateauNim implements Plateau {
    * @return true si tous les tas sont vides
    */
   public boolean estVide() {
-    for (Integer t : tas) {
-      if (t != 0) {
-        return false;
+    return tasNonVides == 0;
+  }
+
+  /**
+   * Retourne le nombre de tas contenant encore au moins une allumette.
+   *
+   * @return le nombre de tas non vides
+   */
+  public int getTasNonVides() {
+    return tasNonVides;
+  }
+
+  /**
+   * Retourne un tas non vide selon son rang parmi les tas non vides, rangés dans un ordre
+   * quelconque qui change au fil des coups. Un rang tiré au hasard donne un tas non vide tiré
+   * uniformément, sans parcourir les tas.
+   *
+   * @param rang le rang, entre 0 et le nombre de tas non vides - 1
+   * @return le numéro du tas, entre 1 et la taille
+   * @throws IllegalArgumentException si le rang est invalide
+   */
+  public int getTasNonVide(int rang) {
+    if (rang < 0 || rang >= tasNonVides) {
+      throw new IllegalArgumentException("Rang de tas invalide");
+    }
+
+    return nonVides[rang] + 1;
+  }
+
+  /**
+   * Retourne le tas contenant une allumette, les allumettes étant numérotées tas après tas. Un
+   * numéro tiré au hasard donne un tas tiré avec une probabilité proportionnelle à son nombre
+   * d'allumettes.
+   *
+   * <p>Un arbre de Fenwick des tas est créé au premier appel, puis tenu à jour en temps
+   * logarithmique à chaque coup.
+   *
+   * @param allumette le numéro de l'allumette, entre 0 et le nombre total d'allumettes - 1
+   * @return le numéro du tas, entre 1 et la taille
+   * @throws IllegalArgumentException si le numéro est invalide
+   * @throws UnsupportedOperationException en mode grand
+   */
+  public int getTasContenant(long allumette) {
+    if (grandsTas != null) {
+      throw new UnsupportedOperationException("Tirage pondéré indisponible en mode grand");
+    }
+
+    if (allumette < 0 || allumette >= totalAllumettes) {
+      throw new IllegalArgumentException("Numéro d'allumette invalide");
+    }
+
+    if (arbre == null) {
+      arbre = new ArbreFenwick(tas);
+    }
+
+    return arbre.chercher(allumette) + 1;
+  }
+
+  /**
+   * Retourne le nombre de tas contenant au moins deux allumettes.
+   *
+   * @return le nombre de tas de plus d'une allumette
+   */
+  public int getTasSuperieursAUn() {
+    return tasSuperieursAUn;
+  }
+
+  /**
+   * Retourne le nombre total d'allumettes restantes, tous tas confondus.
+   *
+   * @return le nombre total d'allumettes
+   * @throws ArithmeticException si le total ne tient pas dans un {@code long}, en mode grand
+   */
+  public long getTotalAllumettes() {
+    return grandsTas == null ? totalAllumettes : grandTotalAllumettes.longValueExact();
+  }
+
+  /**
+   * Retourne le nombre exact total d'allumettes restantes, quel que soit le mode.
+   *
+   * @return le nombre total d'allumettes
+   */
+  public BigInteger getTotalAllumettesExact() {
+    return grandsTas == null ? BigInteger.valueOf(totalAllumettes) : grandTotalAllumettes;
+  }
+
+  /**
+   * Retourne la somme de Nim des tas, c'est-à-dire le XOR de leurs nombres d'allumettes.
+   *
+   * @return la somme de Nim
+   * @throws ArithmeticException si la somme ne tient pas dans un {@code long}, en mode grand
+   */
+  public long getNimSomme() {
+    return grandsTas == null ? nimSomme : grandeNimSomme.longValueExact();
+  }
+
+  /**
+   * Retourne la somme de Nim exacte des tas, quel que soit le mode.
+   *
+   * @return la somme de Nim
+   */
+  public BigInteger getNimSommeExacte() {
+    return grandsTas == null ? BigInteger.valueOf(nimSomme) : grandeNimSomme;
+  }
+
+  /**
+   * Retourne le premier tas dont le nombre d'allumettes a le bit donné.
+   *
+   * @param bit le bit, positif
+   * @return le numéro du tas, entre 1 et la taille, ou 0 si aucun tas n'a ce bit
+   */
+  public int getPremierTasAvecBit(int bit) {
+    EnsembleTas ensemble = bit < tasParBit.length ? tasParBit[bit] : null;
+    return ensemble == null ? 0 : ensemble.premier() + 1;
+  }
+
+  /**
+   * Retourne le premier tas non vide, en cherchant parmi les tas de chaque bit.
+   *
+   * @return le numéro du tas, entre 1 et la taille, ou 0 si le plateau est vide
+   */
+  public int getPremierTasNonVide() {
+    int premier = 0;
+    for (int bit = 0; bit < tasParBit.length; ++bit) {
+      int tasBit = getPremierTasAvecBit(bit);
+      if (tasBit != 0 && (premier == 0 || tasBit < premier)) {
+        premier = tasBit;
+      }
+    }
+
+    return premier;
+  }
+
+  /**
+   * Retourne le premier tas contenant au moins deux allumettes, en cherchant parmi les tas de
+   * chaque bit sauf celui des unités.
+   *
+   * @return le numéro du tas, entre 1 et la taille, ou 0 si aucun tas n'a plus d'une allumette
+   */
+  public int getPremierTasSuperieurAUn() {
+    int premier = 0;
+    for (int bit = 1; bit < tasParBit.length && tasSuperieursAUn != 0; ++bit) {
+      int tasBit = getPremierTasAvecBit(bit);
+      if (tasBit != 0 && (premier == 0 || tasBit < premier)) {
+        premier = tasBit;
       }
     }
-    return true;
+
+    return premier;
   }
 
   /**
@@ -98,32 +520,179 @@ public class PlateauNim implements Plateau {
    * @param tas le tas
    * @param allumettes le nombre d'allumettes
    */
-  public void setAllumettes(int tas, int allumettes) {
-    if (tas < 1 || tas > taille) {
-      throw new IllegalArgumentException("Index de tas invalide");
+  public void setAllumettes(int tas, long allumettes) {
+    if (grandsTas != null) {
+      setAllumettes(tas, BigInteger.valueOf(allumettes));
+      return;
     }
 
+    verifierTas(tas);
+
     if (allumettes < 0) {
       throw new IllegalArgumentException("Nombre d'allumettes négatif");
     }
 
-    this.tas.set(tas - 1, allumettes);
+    if (allumettes - this.tas[tas - 1] > Long.MAX_VALUE - totalAllumettes) {
+      throw new IllegalArgumentException("Nombre total d'allumettes trop grand");
+    }
+
+    modifierTas(tas - 1, allumettes);
   }
 
   /**
-   * Créer une copie du plateau et de sa grille.
+   * Modifie à la main le nombre d'allumettes dans un tas, quel que soit le mode.
    *
-   * @return la copie
+   * @param tas le tas
+   * @param allumettes le nombre d'allumettes
    */
-  public PlateauNim dupliquer() {
-    PlateauNim copie = new PlateauNim(taille, contrainte);
+  public void setAllumettes(int tas, BigInteger allumettes) {
+    if (grandsTas == null) {
+      if (allumettes.bitLength() >= Long.SIZE) {
+        throw new IllegalArgumentException("Nombre d'allumettes trop grand");
+      }
 
-    for (int i = 1; i <= taille; ++i) {
-      int allumettes = tas.get(i - 1);
-      copie.setAllumettes(i, allumettes);
+      setAllumettes(tas, allumettes.longValue());
+      return;
+    }
+
+    verifierTas(tas);
+
+    if (allumettes.signum() < 0) {
+      throw new IllegalArgumentException("Nombre d'allumettes négatif");
     }
 
-    return copie;
+    modifierGrandTas(tas - 1, allumettes);
+  }
+
+  /**
+   * Vérifie qu'un numéro de tas est valide.
+   *
+   * @param tas le numéro du tas
+   * @throws IllegalArgumentException si le numéro est invalide
+   */
+  private void verifierTas(int tas) {
+    if (tas < 1 || tas > taille) {
+      throw new IllegalArgumentException("Index de tas invalide");
+    }
+  }
+
+  /**
+   * Change le nombre d'allumettes d'un tas et met à jour les compteurs du plateau.
+   *
+   * @param indice l'indice du tas dans le tableau
+   * @param allumettes le nouveau nombre d'allumettes, positif ou nul
+   */
+  private void modifierTas(int indice, long allumettes) {
+    long ancien = tas[indice];
+    compterTas(indice, classe(ancien), classe(allumettes));
+    totalAllumettes += allumettes - ancien;
+    tas[indice] = allumettes;
+    if (arbre != null) {
+      arbre.ajouter(indice, allumettes - ancien);
+    }
+
+    long bitsModifies = ancien ^ allumettes;
+    nimSomme ^= bitsModifies;
+    for (; bitsModifies != 0; bitsModifies &= bitsModifies - 1) {
+      int bit = Long.numberOfTrailingZeros(bitsModifies);
+      modifierBit(indice, bit, (allumettes & (1L << bit)) != 0);
+    }
+  }
+
+  /**
+   * Change le nombre d'allumettes d'un tas en mode grand et met à jour les compteurs du plateau.
+   *
+   * @param indice l'indice du tas dans le tableau
+   * @param allumettes le nouveau nombre d'allumettes, positif ou nul
+   */
+  private void modifierGrandTas(int indice, BigInteger allumettes) {
+    BigInteger ancien = grandsTas[indice];
+    compterTas(indice, classe(ancien), classe(allumettes));
+    grandTotalAllumettes = grandTotalAllumettes.add(allumettes).subtract(ancien);
+    grandsTas[indice] = allumettes;
+
+    BigInteger bitsModifies = ancien.xor(allumettes);
+    grandeNimSomme = grandeNimSomme.xor(bitsModifies);
+    if (bitsModifies.bitLength() > tasParBit.length) {
+      tasParBit = Arrays.copyOf(tasParBit, bitsModifies.bitLength());
+    }
+
+    for (int bit = 0; bit < bitsModifies.bitLength(); ++bit) {
+      if (bitsModifies.testBit(bit)) {
+        modifierBit(indice, bit, allumettes.testBit(bit));
+      }
+    }
+  }
+
+  /**
+   * Classe un tas selon son nombre d'allumettes : 0 s'il est vide, 1 s'il n'en a qu'une, 2 sinon.
+   *
+   * @param allumettes le nombre d'allumettes du tas
+   * @return la classe du tas
+   */
+  private static int classe(long allumettes) {
+    return allumettes > 1 ? 2 : (int) allumettes;
+  }
+
+  /**
+   * Classe un tas en mode grand selon son nombre d'allumettes, comme {@link #classe(long)}.
+   *
+   * @param allumettes le nombre d'allumettes du tas
+   * @return la classe du tas
+   */
+  private static int classe(BigInteger allumettes) {
+    // 0 et 1 sont les seuls nombres positifs de moins de deux bits.
+    return Math.min(allumettes.bitLength(), 2);
+  }
+
+  /**
+   * Met à jour les tas non vides et le nombre de tas de plus d'une allumette après la modification
+   * d'un tas.
+   *
+   * @param indice l'indice du tas dans le tableau
+   * @param avant la classe du tas avant la modification
+   * @param apres la classe du tas après la modification
+   */
+  private void compterTas(int indice, int avant, int apres) {
+    if (avant == 0 && apres != 0) {
+      positionsNonVides[indice] = tasNonVides;
+      nonVides[tasNonVides++] = indice;
+    } else if (avant != 0 && apres == 0) {
+      // Le dernier tas non vide prend la place du tas vidé.
+      int dernier = nonVides[--tasNonVides];
+      int position = positionsNonVides[indice];
+      nonVides[position] = dernier;
+      positionsNonVides[dernier] = position;
+    }
+
+    tasSuperieursAUn += (apres >> 1) - (avant >> 1);
+  }
+
+  /**
+   * Ajoute ou retire un tas de l'ensemble des tas ayant un bit.
+   *
+   * @param indice l'indice du tas dans le tableau
+   * @param bit le bit
+   * @param present true si le tas a maintenant ce bit
+   */
+  private void modifierBit(int indice, int bit, boolean present) {
+    if (present) {
+      if (tasParBit[bit] == null) {
+        tasParBit[bit] = new EnsembleTas(taille);
+      }
+      tasParBit[bit].ajouter(indice);
+    } else {
+      tasParBit[bit].retirer(indice);
+    }
+  }
+
+  /**
+   * Créer une copie du plateau et de sa grille.
+   *
+   * @return la copie
+   */
+  public PlateauNim dupliquer() {
+    return new PlateauNim(this);
   }
 
   /**
@@ -135,26 +704,70 @@ public class PlateauNim implements Plateau {
     return taille;
   }
 
+  /**
+   * Vérifie que la partie se joue en règle misère, le joueur retirant la dernière allumette
+   * perdant alors la partie.
+   *
+   * @return true en règle misère
+   */
+  public boolean estMisere() {
+    return misere;
+  }
+
   /**
    * Retourne la contrainte
    *
-   * @return la contrainte.
+   * @return la contrainte, le plus grand retrait autorisé s'il y a un ensemble de retraits.
    */
   public int getContrainte() {
     return contrainte;
   }
 
-  @SuppressWarnings("StringConcatenationInLoop")
+  /**
+   * Retourne l'ensemble des retraits autorisés.
+   *
+   * @return les retraits, triés et distincts, ou null si ce sont tous ceux de la contrainte
+   */
+  public int[] getRetraits() {
+    return retraits == null ? null : retraits.clone();
+  }
+
+  /**
+   * Vérifie qu'un nombre d'allumettes peut être retiré d'un tas selon la contrainte et les
+   * retraits autorisés, sans tenir compte de la taille du tas.
+   *
+   * @param allumettes le nombre d'allumettes
+   * @return true si le retrait est autorisé
+   */
+  public boolean estRetraitAutorise(long allumettes) {
+    if (allumettes < 1 || contrainte != 0 && allumettes > contrainte) {
+      return false;
+    }
+
+    return retraits == null || Arrays.binarySearch(retraits, (int) allumettes) >= 0;
+  }
+
+  /**
+   * Trie un ensemble de retraits et vérifie qu'il est valide.
+   *
+   * @param retraits les retraits
+   * @return les retraits, triés et distincts
+   * @throws IllegalArgumentException si un retrait n'est pas positif ou si 1 n'est pas autorisé
+   */
+  private static int[] trierRetraits(int[] retraits) {
+    int[] tries = Arrays.stream(retraits).sorted().distinct().toArray();
+    if (tries.length > 0 && tries[0] < 1) {
+      throw new IllegalArgumentException("Retrait invalide : " + tries[0]);
+    }
+    if (tries.length == 0 || tries[0] != 1) {
+      throw new IllegalArgumentException("Les retraits autorisés doivent comprendre 1");
+    }
+
+    return tries;
+  }
+
   @Override
   public String toString() {
-    String string = "";
-    int i = 1;
-    for (Integer t : tas) {
-      string += "    Tas \033[1m" + i + "\033[0m :   ";
-      string += " \033[0;32m|\033[0m".repeat(Math.max(0, t));
-      string += "\n";
-      ++i;
-    }
-    return string;
+    return AFFICHAGE.afficher(this, 1, taille, new StringBuilder()).toString();
   }
 }
@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+import fr.nc0.cda.modele.jeu.Plateau;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Liste de tas du jeu de Nim conservée dans un fichier projeté en mémoire, pour analyser des
+ * positions de plusieurs dizaines de millions de tas sans les charger.
+ *
+ * <p>L'ouverture ne lit que l'en-tête : seules les pages des tas consultés sont chargées. La somme
+ * de Nim, le nombre total d'allumettes et le nombre de tas non vides sont calculés au premier
+ * besoin, en parcourant le fichier par blocs en parallèle, puis tenus à jour à chaque coup. Un coup
+ * n'écrit que le tas modifié, directement dans le fichier.
+ *
+ * <p>Comme {@link PlateauNim}, un plateau n'est pas prévu pour être modifié par plusieurs threads.
+ *
+ * <p>Format du fichier, en big-endian :
+ *
+ * <ul>
+ *   <li>{@code int} : le nombre magique {@code NIMT} ;
+ *   <li>{@code int} : la version du format ;
+ *   <li>{@code int} : le nombre de tas ;
+ *   <li>{@code int} : la contrainte de retrait, 0 pour aucune ;
+ *   <li>{@code byte} : 1 en règle misère, 0 sinon ;
+ *   <li>7 octets inutilisés ;
+ *   <li>{@code long} : le nombre d'allumettes de chaque tas, dans l'ordre des tas.
+ * </ul>
+ */
+public class PlateauNimFichier implements Plateau {
+  /** Le nombre magique du format */
+  private static final int MAGIQUE = 0x4E494D54;
+
+  /** La version du format */
+  private static final int VERSION = 1;
+
+  /** Taille de l'en-tête */
+  private static final int EN_TETE = 24;
+
+  /** Nombre de tas par projection, une projection étant limitée à 2 Gio */
+  private static final int TAS_PAR_SEGMENT = 1 << 27;
+
+  /** Nombre de tas d'un bloc du parcours parallèle */
+  private static final int TAS_PAR_BLOC = 1 << 16;
+
+  /** Nombre maximal de tas affichés par {@link #toString()} */
+  private static final int AFFICHAGE_MAX = 20;
+
+  /** Taille de la liste de tas. */
+  private final int taille;
+
+  /** Contrainte de retrait */
+  private final int contrainte;
+
+  /** True si la partie se joue en règle misère. */
+  private final boolean misere;
+
+  /** Les projections du fichier, chacune de {@link #TAS_PAR_SEGMENT} tas sauf la dernière. */
+  private final MappedByteBuffer[] segments;
+
+  /** True une fois les compteurs calculés. */
+  private boolean analyse = false;
+
+  /** La somme de Nim des tas, valide une fois le plateau analysé. */
+  private long nimSomme;
+
+  /** Nombre total d'allumettes de tous les tas, valide une fois le plateau analysé. */
+  private long totalAllumettes;
+
+  /** Nombre de tas contenant au moins une allumette, valide une fois le plateau analysé. */
+  private int tasNonVides;
+
+  private PlateauNimFichier(
+      int taille, int contrainte, boolean misere, MappedByteBuffer[] segments) {
+    this.taille = taille;
+    this.contrainte = contrainte;
+    this.misere = misere;
+    this.segments = segments;
+  }
+
+  /**
+   * Crée le fichier d'une liste de tas, en remplaçant celui existant.
+   *
+   * @param fichier le fichier
+   * @param taille la taille de la liste de tas
+   * @param contrainte contrainte de retrait
+   * @param misere true pour jouer en règle misère
+   * @param allumettes le nombre d'allumettes de chaque tas, selon l'indice du tas à partir de 0
+   * @return le plateau
+   * @throws IOException si le fichier ne peut pas être écrit
+   * @throws IllegalArgumentException si un tas est négatif, ou si le nombre total d'allumettes
+   *     dépasse {@link Long#MAX_VALUE}
+   */
+  public static PlateauNimFichier creer(
+      Path fichier, int taille, int contrainte, boolean misere, IntToLongFunction allumettes)
+      throws IOException {
+    if (taille < 0 || contrainte < 0) {
+      throw new IllegalArgumentException("Taille ou contrainte négative");
+    }
+
+    MappedByteBuffer[] segments;
+    try (FileChannel canal =
+        FileChannel.open(
+            fichier,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer enTete = ByteBuffer.allocate(EN_TETE);
+      enTete.putInt(MAGIQUE).putInt(VERSION).putInt(taille).putInt(contrainte);
+      enTete.put((byte) (misere ? 1 : 0));
+      enTete.clear();
+      while (enTete.hasRemaining()) {
+        canal.write(enTete, enTete.position());
+      }
+
+      // Projeter au-delà de la fin du fichier l'agrandit.
+      segments = projeter(canal, taille);
+    }
+
+    PlateauNimFichier plateau = new PlateauNimFichier(taille, contrainte, misere, segments);
+    for (int indice = 0; indice < taille; ++indice) {
+      long valeur = allumettes.applyAsLong(indice);
+      if (valeur < 0) {
+        throw new IllegalArgumentException("Nombre d'allumettes négatif");
+      }
+
+      if (valeur > Long.MAX_VALUE - plateau.totalAllumettes) {
+        throw new IllegalArgumentException("Nombre total d'allumettes trop grand");
+      }
+
+      plateau.ecrire(indice, valeur);
+      plateau.nimSomme ^= valeur;
+      plateau.totalAllumettes += valeur;
+      plateau.tasNonVides += valeur != 0 ? 1 : 0;
+    }
+
+    plateau.analyse = true;
+    plateau.synchroniser();
+    return plateau;
+  }
+
+  /**
+   * Ouvre le fichier d'une liste de tas, sans en lire les tas.
+   *
+   * @param fichier le fichier
+   * @return le plateau
+   * @throws IOException si le fichier ne peut pas être lu ou n'est pas une liste de tas
+   */
+  public static PlateauNimFichier ouvrir(Path fichier) throws IOException {
+    try (FileChannel canal =
+        FileChannel.open(fichier, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer enTete = ByteBuffer.allocate(EN_TETE);
+      while (enTete.hasRemaining()) {
+        if (canal.read(enTete, enTete.position()) < 0) {
+          throw new IOException("En-tête incomplet : " + fichier);
+        }
+      }
+      enTete.flip();
+
+      if (enTete.getInt() != MAGIQUE || enTete.getInt() != VERSION) {
+        throw new IOException("Format de plateau inconnu : " + fichier);
+      }
+
+      int taille = enTete.getInt();
+      int contrainte = enTete.getInt();
+      boolean misere = enTete.get() == 1;
+      if (taille < 0 || contrainte < 0 || canal.size() < EN_TETE + (long) taille * Long.BYTES) {
+        throw new IOException("Plateau incomplet : " + fichier);
+      }
+
+      return new PlateauNimFichier(taille, contrainte, misere, projeter(canal, taille));
+    }
+  }
+
+  /**
+   * Projette en mémoire les tas d'un fichier.
+   *
+   * @param canal le fichier, ouvert en lecture et écriture
+   * @param taille le nombre de tas
+   * @return les projections, de {@link #TAS_PAR_SEGMENT} tas sauf la dernière
+   */
+  private static MappedByteBuffer[] projeter(FileChannel canal, int taille) throws IOException {
+    MappedByteBuffer[] segments =
+        new MappedByteBuffer[(int) (((long) taille + TAS_PAR_SEGMENT - 1) / TAS_PAR_SEGMENT)];
+    for (int i = 0; i < segments.length; ++i) {
+      long premier = (long) i * TAS_PAR_SEGMENT;
+      long nombre = Math.min(TAS_PAR_SEGMENT, taille - premier);
+      long position = EN_TETE + premier * Long.BYTES;
+      segments[i] = canal.map(FileChannel.MapMode.READ_WRITE, position, nombre * Long.BYTES);
+    }
+
+    return segments;
+  }
+
+  /**
+   * Récupère le nombre d'allumettes restantes dans le tas demandé.
+   *
+   * @param tas l'index du tas à récupérer, doit être compris entre 1 et la taille de la liste
+   * @return le nombre d'allumettes du tas à l'index donné
+   * @throws IllegalArgumentException si l'index du tas est invalide
+   */
+  public long getAllumettesRestantes(int tas) {
+    verifierTas(tas);
+    return lire(tas - 1);
+  }
+
+  /**
+   * Retire un nombre d'allumettes d'un tas, si possible, en n'écrivant que ce tas.
+   *
+   * @param tas le numéro du tas, doit être compris entre 1 et la taille de la liste
+   * @param allumettes le nombre d'allumettes à retirer, doit être supérieur ou égal à 1 et
+   *     inférieur ou égal au nombre d'allumettes dans le tas
+   * @throws IllegalArgumentException si l'index du tas ou le nombre d'allumettes est invalide
+   */
+  public void retirerAllumettes(int tas, long allumettes) {
+    verifierTas(tas);
+
+    long allumettesRestantes = lire(tas - 1);
+    if (allumettes < 1 || allumettes > allumettesRestantes) {
+      throw new IllegalArgumentException("Nombre d'allumettes invalide");
+    }
+
+    if (allumettes > contrainte && contrainte != 0) {
+      throw new IllegalArgumentException("Contrainte non respectée");
+    }
+
+    long restantes = allumettesRestantes - allumettes;
+    ecrire(tas - 1, restantes);
+
+    if (analyse) {
+      nimSomme ^= allumettesRestantes ^ restantes;
+      totalAllumettes -= allumettes;
+      tasNonVides -= restantes == 0 ? 1 : 0;
+    }
+  }
+
+  /**
+   * Vérifie que tous les tas soient vides
+   *
+   * @return true si tous les tas sont vides
+   */
+  public boolean estVide() {
+    return getTasNonVides() == 0;
+  }
+
+  /**
+   * Retourne le nombre de tas contenant encore au moins une allumette.
+   *
+   * @return le nombre de tas non vides
+   */
+  public int getTasNonVides() {
+    analyser();
+    return tasNonVides;
+  }
+
+  /**
+   * Retourne le nombre total d'allumettes restantes, tous tas confondus.
+   *
+   * @return le nombre total d'allumettes
+   * @throws ArithmeticException si le total dépasse {@link Long#MAX_VALUE}
+   */
+  public long getTotalAllumettes() {
+    analyser();
+    return totalAllumettes;
+  }
+
+  /**
+   * Retourne la somme de Nim des tas, c'est-à-dire le XOR de leurs nombres d'allumettes.
+   *
+   * @return la somme de Nim
+   */
+  public long getNimSomme() {
+    analyser();
+    return nimSomme;
+  }
+
+  /**
+   * Cherche un coup ramenant la somme de Nim à 0, c'est-à-dire un coup gagnant sans contrainte en
+   * règle normale, en parcourant le fichier par blocs en parallèle.
+   *
+   * @return le premier coup trouvé, ou null si la somme de Nim est déjà nulle
+   */
+  public ChoixNim chercherCoupAnnulant() {
+    long somme = getNimSomme();
+    if (somme == 0) {
+      return null;
+    }
+
+    // Les tas ayant le bit de poids fort de la somme sont exactement ceux qu'on peut réduire.
+    long bit = Long.highestOneBit(somme);
+    int indice =
+        IntStream.range(0, nombreBlocs())
+            .parallel()
+            .map(
+                bloc -> {
+                  int fin = finBloc(bloc);
+                  for (int i = bloc * TAS_PAR_BLOC; i < fin; ++i) {
+                    if ((lire(i) & bit) != 0) {
+                      return i;
+                    }
+                  }
+                  return -1;
+                })
+            .filter(i -> i >= 0)
+            .findFirst()
+            .orElseThrow();
+
+    long allumettesRestantes = lire(indice);
+    return new ChoixNim(indice + 1, allumettesRestantes - (allumettesRestantes ^ somme));
+  }
+
+  /**
+   * Écrit sur le disque les tas modifiés.
+   *
+   * <p>Les coups sont écrits dans la projection du fichier, que le système écrit de lui-même ;
+   * cette méthode attend qu'ils le soient.
+   */
+  public void synchroniser() {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+  }
+
+  /**
+   * Retourne la taille du plateau.
+   *
+   * @return la taille
+   */
+  public int getTaille() {
+    return taille;
+  }
+
+  /**
+   * Vérifie que la partie se joue en règle misère.
+   *
+   * @return true en règle misère
+   */
+  public boolean estMisere() {
+    return misere;
+  }
+
+  /**
+   * Retourne la contrainte
+   *
+   * @return la contrainte.
+   */
+  public int getContrainte() {
+    return contrainte;
+  }
+
+  /** Calcule les compteurs du plateau s'ils ne le sont pas encore, en parcourant les tas. */
+  private void analyser() {
+    if (analyse) {
+      return;
+    }
+
+    long[] bilan =
+        IntStream.range(0, nombreBlocs())
+            .parallel()
+            .mapToObj(this::analyserBloc)
+            .reduce(new long[3], PlateauNimFichier::combiner);
+    nimSomme = bilan[0];
+    totalAllumettes = bilan[1];
+    tasNonVides = (int) bilan[2];
+    analyse = true;
+  }
+
+  /**
+   * Calcule la somme de Nim, le nombre d'allumettes et le nombre de tas non vides d'un bloc.
+   *
+   * @param bloc le numéro du bloc
+   * @return la somme de Nim, le nombre d'allumettes et le nombre de tas non vides
+   */
+  private long[] analyserBloc(int bloc) {
+    long somme = 0;
+    long total = 0;
+    long nonVides = 0;
+    int fin = finBloc(bloc);
+    for (int i = bloc * TAS_PAR_BLOC; i < fin; ++i) {
+      long valeur = lire(i);
+      somme ^= valeur;
+      total = Math.addExact(total, valeur);
+      nonVides += valeur != 0 ? 1 : 0;
+    }
+
+    return new long[] {somme, total, nonVides};
+  }
+
+  /**
+   * Combine les compteurs de deux parties du plateau.
+   *
+   * @param a les compteurs de la première partie
+   * @param b les compteurs de la seconde partie
+   * @return les compteurs des deux parties
+   */
+  private static long[] combiner(long[] a, long[] b) {
+    return new long[] {a[0] ^ b[0], Math.addExact(a[1], b[1]), a[2] + b[2]};
+  }
+
+  /**
+   * Retourne le nombre de blocs du parcours parallèle.
+   *
+   * @return le nombre de blocs
+   */
+  private int nombreBlocs() {
+    return (int) (((long) taille + TAS_PAR_BLOC - 1) / TAS_PAR_BLOC);
+  }
+
+  /**
+   * Retourne l'indice suivant le dernier tas d'un bloc.
+   *
+   * @param bloc le numéro du bloc
+   * @return l'indice, exclu du bloc
+   */
+  private int finBloc(int bloc) {
+    return (int) Math.min(taille, (long) (bloc + 1) * TAS_PAR_BLOC);
+  }
+
+  /**
+   * Vérifie qu'un numéro de tas est valide.
+   *
+   * @param tas le numéro du tas
+   * @throws IllegalArgumentException si le numéro est invalide
+   */
+  private void verifierTas(int tas) {
+    if (tas < 1 || tas > taille) {
+      throw new IllegalArgumentException("Index de tas invalide");
+    }
+  }
+
+  /**
+   * Lit le nombre d'allumettes d'un tas dans le fichier.
+   *
+   * @param indice l'indice du tas, à partir de 0
+   * @return le nombre d'allumettes
+   */
+  private long lire(int indice) {
+    return segments[indice / TAS_PAR_SEGMENT].getLong((indice % TAS_PAR_SEGMENT) * Long.BYTES);
+  }
+
+  /**
+   * Écrit le nombre d'allumettes d'un tas dans le fichier.
+   *
+   * @param indice l'indice du tas, à partir de 0
+   * @param allumettes le nombre d'allumettes
+   */
+  private void ecrire(int indice, long allumettes) {
+    segments[indice / TAS_PAR_SEGMENT].putLong((indice % TAS_PAR_SEGMENT) * Long.BYTES, allumettes);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder string = new StringBuilder();
+    int affiches = Math.min(taille, AFFICHAGE_MAX);
+    for (int i = 1; i <= affiches; ++i) {
+      string.append("    Tas \033[1m").append(i).append("\033[0m :    ");
+      string.append(lire(i - 1)).append('\n');
+    }
+
+    if (affiches < taille) {
+      string.append("    ... et ").append(taille - affiches).append(" autres tas\n");
+    }
+    return string.toString();
+  }
+}
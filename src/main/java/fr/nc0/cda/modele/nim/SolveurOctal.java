@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.nim;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Calcul des valeurs de Grundy d'un jeu octal, dont les jeux de soustraction sont un cas
+ * particulier.
+ *
+ * <p>Un jeu octal est décrit par un code 0.d<sub>1</sub>d<sub>2</sub>...d<sub>t</sub>, chaque
+ * chiffre d<sub>k</sub> étant une somme de 1, 2 et 4 : retirer k allumettes d'un tas est permis
+ * s'il ne reste alors aucune allumette (1), s'il en reste dans un seul tas (2), ou si les
+ * allumettes restantes sont partagées en deux tas non vides (4). Le jeu de soustraction de
+ * retraits S a le chiffre 3 pour chaque retrait de S.
+ *
+ * <p>Les valeurs sont calculées une à une, la valeur d'un tas dépendant de celles des tas plus
+ * petits. Examiner les partages d'un grand tas est réparti entre les threads du {@link
+ * ForkJoinPool} commun.
+ *
+ * <p>D'après le théorème de Guy et Smith, si les valeurs vérifient g(n + p) = g(n) pour tout n de
+ * n<sub>0</sub> à 2n<sub>0</sub> + p + t, alors elles le vérifient pour tout n à partir de
+ * n<sub>0</sub>. La période est cherchée à chaque doublement de la table ; une fois trouvée, le
+ * calcul s'arrête et la valeur de tout tas est donnée en temps constant.
+ */
+public class SolveurOctal {
+  /** Capacité initiale de la table des valeurs */
+  private static final int TABLE_CAPACITE = 1024;
+
+  /** Taille maximale de la table des valeurs */
+  private static final int TABLE_MAX = Integer.MAX_VALUE - 8;
+
+  /** Nombre de valeurs à partir duquel la période est cherchée */
+  private static final int PREMIERE_VERIFICATION = 64;
+
+  /** Nombre de partages en deçà duquel ils sont examinés par un seul thread */
+  private static final int SEUIL_PARALLELE = 1 << 12;
+
+  /** Les chiffres du code, indexés par nombre d'allumettes retirées, le premier étant ignoré */
+  private final int[] chiffres;
+
+  /** Le nombre maximal d'allumettes retirées, c'est-à-dire l'indice du dernier chiffre non nul */
+  private final int dernier;
+
+  /** Les valeurs de Grundy déjà calculées, indexées par nombre d'allumettes */
+  private int[] table = new int[TABLE_CAPACITE];
+
+  /** Le nombre de valeurs de la table déjà calculées */
+  private int calculees = 0;
+
+  /** Une puissance de deux strictement supérieure à toutes les valeurs calculées */
+  private int borne = 1;
+
+  /** Le nombre de valeurs à partir duquel la période sera cherchée à nouveau */
+  private int prochaineVerification = PREMIERE_VERIFICATION;
+
+  /** Le premier tas à partir duquel les valeurs sont périodiques, une fois la période trouvée */
+  private int preperiode = 0;
+
+  /** La période des valeurs, ou 0 tant qu'elle n'a pas été trouvée */
+  private volatile int periode = 0;
+
+  /**
+   * Créer un solveur pour un jeu octal.
+   *
+   * @param code le code du jeu, par exemple {@code "0.137"} ou {@code ".6"}
+   * @throws IllegalArgumentException si le code est invalide ou ne permet aucun coup
+   */
+  public SolveurOctal(String code) {
+    this(lireCode(code));
+  }
+
+  /**
+   * Créer un solveur.
+   *
+   * @param chiffres les chiffres du code, le dernier étant non nul
+   */
+  private SolveurOctal(int[] chiffres) {
+    this.chiffres = chiffres;
+    this.dernier = chiffres.length - 1;
+  }
+
+  /**
+   * Créer un solveur pour un jeu de soustraction.
+   *
+   * @param retraits les nombres d'allumettes qu'il est permis de retirer d'un tas, tous positifs
+   * @return le solveur
+   * @throws IllegalArgumentException si l'ensemble est vide ou contient un retrait invalide
+   */
+  public static SolveurOctal soustraction(int... retraits) {
+    if (retraits.length == 0) {
+      throw new IllegalArgumentException("Aucun retrait autorisé");
+    }
+
+    int maximum = Arrays.stream(retraits).max().getAsInt();
+    if (Arrays.stream(retraits).anyMatch(r -> r < 1) || maximum >= TABLE_MAX) {
+      throw new IllegalArgumentException("Retrait invalide");
+    }
+
+    int[] chiffres = new int[maximum + 1];
+    for (int retrait : retraits) {
+      chiffres[retrait] = 3;
+    }
+    return new SolveurOctal(chiffres);
+  }
+
+  /**
+   * Retourne la valeur de Grundy d'un tas, en calculant la table jusqu'à ce tas ou jusqu'à
+   * trouver la période des valeurs.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @return la valeur de Grundy
+   * @throws IllegalArgumentException si le tas est négatif, ou trop grand pour la table alors
+   *     qu'aucune période n'a été trouvée
+   */
+  public int grundy(long tas) {
+    if (tas < 0) {
+      throw new IllegalArgumentException("Nombre d'allumettes négatif");
+    }
+
+    // La table n'est plus modifiée une fois la période trouvée, elle est lue sans verrou.
+    int p = periode;
+    if (p != 0) {
+      return table[(int) (tas < preperiode + p ? tas : preperiode + (tas - preperiode) % p)];
+    }
+
+    synchronized (this) {
+      if (tas >= calculees) {
+        calculer(tas);
+      }
+
+      return periode != 0 ? grundy(tas) : table[(int) tas];
+    }
+  }
+
+  /**
+   * Calcule la table jusqu'à un tas, ou jusqu'à trouver la période des valeurs.
+   *
+   * @param tas le nombre d'allumettes du dernier tas à calculer
+   * @throws IllegalArgumentException si le tas est trop grand pour la table et qu'aucune période
+   *     n'a été trouvée avant
+   */
+  public synchronized void calculer(long tas) {
+    while (periode == 0 && calculees <= tas) {
+      if (calculees >= TABLE_MAX) {
+        throw new IllegalArgumentException("Tas trop grand pour la table : " + tas);
+      }
+
+      ajouter(valeur(calculees));
+    }
+  }
+
+  /**
+   * Reprend des valeurs calculées auparavant, par exemple conservées dans un fichier, comme si
+   * elles venaient d'être calculées. La période est cherchée au fil des valeurs reprises.
+   *
+   * @param valeurs les valeurs des tas à partir de 0, celles déjà dans la table étant ignorées
+   */
+  public synchronized void reprendre(int[] valeurs) {
+    for (int tas = calculees; periode == 0 && tas < valeurs.length && tas < TABLE_MAX; ++tas) {
+      ajouter(valeurs[tas]);
+    }
+  }
+
+  /**
+   * Retourne le nombre de valeurs calculées, qui restent toutes accessibles par {@link
+   * #grundy(long)} une fois la période trouvée.
+   *
+   * @return le nombre de valeurs, qui sont celles des tas de 0 à ce nombre exclu
+   */
+  public synchronized int getCalculees() {
+    return calculees;
+  }
+
+  /**
+   * Retourne la période des valeurs.
+   *
+   * @return la période, ou 0 si elle n'a pas encore été trouvée
+   */
+  public int getPeriode() {
+    return periode;
+  }
+
+  /**
+   * Retourne le premier tas à partir duquel les valeurs sont périodiques.
+   *
+   * @return le tas, ou 0 si la période n'a pas encore été trouvée
+   */
+  public synchronized int getPreperiode() {
+    return preperiode;
+  }
+
+  /**
+   * Cherche un coup menant un tas à une valeur de Grundy donnée.
+   *
+   * <p>Toute valeur inférieure à celle du tas est atteignable, par définition de la valeur de
+   * Grundy.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @param cible la valeur de Grundy à atteindre, celle d'un tas ou le XOR de celles de deux tas
+   * @return le nombre d'allumettes à retirer et le nombre d'allumettes de l'un des deux tas
+   *     restants, 0 si le coup ne partage pas le tas, ou null si aucun coup n'atteint la cible
+   */
+  public long[] coupVers(long tas, int cible) {
+    for (int retrait = 1; retrait <= dernier && retrait <= tas; ++retrait) {
+      int chiffre = chiffres[retrait];
+      long reste = tas - retrait;
+      if ((chiffre & 1) != 0 && reste == 0 && cible == 0) {
+        return new long[] {retrait, 0};
+      }
+
+      if ((chiffre & 2) != 0 && reste > 0 && grundy(reste) == cible) {
+        return new long[] {retrait, 0};
+      }
+
+      if ((chiffre & 4) != 0) {
+        // Une fois les valeurs périodiques, les partages se répètent au-delà d'une période.
+        int p = periode;
+        long maximum = p != 0 ? Math.min(reste / 2, getPreperiode() + (long) p) : reste / 2;
+        for (long premier = 1; premier <= maximum; ++premier) {
+          if ((grundy(premier) ^ grundy(reste - premier)) == cible) {
+            return new long[] {retrait, premier};
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Ajoute la valeur du tas suivant à la table, et cherche la période lorsque le nombre de valeurs
+   * le demande.
+   *
+   * @param valeur la valeur de Grundy du tas
+   */
+  private void ajouter(int valeur) {
+    if (calculees == table.length) {
+      table = Arrays.copyOf(table, (int) Math.min(TABLE_MAX, 2L * table.length));
+    }
+
+    table[calculees++] = valeur;
+    while (valeur >= borne) {
+      borne <<= 1;
+    }
+
+    if (calculees == prochaineVerification) {
+      chercherPeriode();
+      prochaineVerification = (int) Math.min(TABLE_MAX, 2L * prochaineVerification);
+    }
+  }
+
+  /**
+   * Calcule la valeur d'un tas, celles des tas plus petits étant dans la table.
+   *
+   * @param tas le nombre d'allumettes du tas
+   * @return la valeur de Grundy
+   */
+  private int valeur(int tas) {
+    // Le XOR de deux valeurs reste inférieur à la borne, et le mex lui est au plus égal.
+    long[] vues = new long[borne / Long.SIZE + 1];
+    for (int retrait = 1; retrait <= dernier && retrait <= tas; ++retrait) {
+      int chiffre = chiffres[retrait];
+      int reste = tas - retrait;
+      if ((chiffre & 1) != 0 && reste == 0) {
+        vues[0] |= 1;
+      }
+
+      if ((chiffre & 2) != 0 && reste > 0) {
+        marquer(vues, table[reste]);
+      }
+
+      if ((chiffre & 4) != 0 && reste > 1) {
+        if (reste / 2 < SEUIL_PARALLELE) {
+          marquerPartages(vues, reste, 1, reste / 2);
+        } else {
+          long[] partages =
+              ForkJoinPool.commonPool().invoke(new Partages(reste, 1, reste / 2, vues.length));
+          for (int i = 0; i < vues.length; ++i) {
+            vues[i] |= partages[i];
+          }
+        }
+      }
+    }
+
+    int mot = 0;
+    while (vues[mot] == -1L) {
+      ++mot;
+    }
+    return mot * Long.SIZE + Long.numberOfTrailingZeros(~vues[mot]);
+  }
+
+  /**
+   * Marque les valeurs des partages d'un tas en deux tas non vides.
+   *
+   * @param vues les valeurs vues
+   * @param reste le nombre d'allumettes à partager
+   * @param debut le plus petit premier tas
+   * @param fin le plus grand premier tas
+   */
+  private void marquerPartages(long[] vues, int reste, int debut, int fin) {
+    for (int premier = debut; premier <= fin; ++premier) {
+      marquer(vues, table[premier] ^ table[reste - premier]);
+    }
+  }
+
+  /**
+   * Marque une valeur comme vue.
+   *
+   * @param vues les valeurs vues
+   * @param valeur la valeur
+   */
+  private static void marquer(long[] vues, int valeur) {
+    vues[valeur / Long.SIZE] |= 1L << valeur;
+  }
+
+  /**
+   * Cherche la plus petite période des valeurs calculées vérifiant le théorème de Guy et Smith,
+   * chaque période candidate étant examinée en parallèle.
+   */
+  private void chercherPeriode() {
+    int n = calculees;
+    int[] valeurs = table;
+    IntStream.rangeClosed(1, n / 2)
+        .parallel()
+        .filter(p -> 2L * preperiode(valeurs, n, p) + 2L * p + dernier <= n)
+        .findFirst()
+        .ifPresent(
+            p -> {
+              preperiode = preperiode(valeurs, n, p);
+              table = Arrays.copyOf(table, preperiode + p);
+              periode = p;
+            });
+  }
+
+  /**
+   * Retourne le plus petit tas à partir duquel les valeurs calculées se répètent avec une période
+   * donnée.
+   *
+   * @param valeurs les valeurs
+   * @param n le nombre de valeurs calculées
+   * @param p la période
+   * @return le tas
+   */
+  private static int preperiode(int[] valeurs, int n, int p) {
+    int tas = n - 1 - p;
+    while (tas >= 0 && valeurs[tas + p] == valeurs[tas]) {
+      --tas;
+    }
+    return tas + 1;
+  }
+
+  /**
+   * Lit le code d'un jeu octal.
+   *
+   * @param code le code
+   * @return les chiffres, indexés par nombre d'allumettes retirées
+   * @throws IllegalArgumentException si le code est invalide ou ne permet aucun coup
+   */
+  private static int[] lireCode(String code) {
+    int point = code.indexOf('.');
+    if (point < 0 || !code.substring(0, point).matches("0?")) {
+      throw new IllegalArgumentException("Code octal invalide : " + code);
+    }
+
+    String decimales = code.substring(point + 1).replaceFirst("0+$", "");
+    if (decimales.isEmpty() || !decimales.matches("[0-7]+")) {
+      throw new IllegalArgumentException("Code octal invalide : " + code);
+    }
+
+    int[] chiffres = new int[decimales.length() + 1];
+    for (int i = 0; i < decimales.length(); ++i) {
+      chiffres[i + 1] = decimales.charAt(i) - '0';
+    }
+    return chiffres;
+  }
+
+  /** Examen en parallèle des partages d'un tas en deux tas non vides. */
+  private final class Partages extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    /** Le nombre d'allumettes à partager */
+    private final int reste;
+
+    /** Le plus petit premier tas */
+    private final int debut;
+
+    /** Le plus grand premier tas */
+    private final int fin;
+
+    /** La taille des valeurs vues */
+    private final int mots;
+
+    Partages(int reste, int debut, int fin, int mots) {
+      this.reste = reste;
+      this.debut = debut;
+      this.fin = fin;
+      this.mots = mots;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (fin - debut < SEUIL_PARALLELE) {
+        long[] vues = new long[mots];
+        marquerPartages(vues, reste, debut, fin);
+        return vues;
+      }
+
+      int milieu = debut + (fin - debut) / 2;
+      Partages droite = new Partages(reste, milieu + 1, fin, mots);
+      droite.fork();
+      long[] vues = new Partages(reste, debut, milieu, mots).compute();
+      long[] autres = droite.join();
+      for (int i = 0; i < mots; ++i) {
+        vues[i] |= autres[i];
+      }
+      return vues;
+    }
+  }
+}
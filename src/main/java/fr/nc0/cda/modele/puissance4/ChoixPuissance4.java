@@ -51,4 +51,26 @@ public class ChoixPuissance4 implements Choix {
   public int getColonne() {
     return colonne;
   }
+
+  /**
+   * Retourne le premier coup autorisé sur un plateau, utilisé lorsqu'une recherche n'a trouvé
+   * aucun coup : la première colonne non pleine, sinon une rotation s'il en reste au joueur.
+   *
+   * @param plateau le plateau
+   * @return le premier coup autorisé, ou une insertion dans la première colonne si aucun coup ne
+   *     l'est
+   */
+  public static ChoixPuissance4 premierCoupAutorise(PlateauPuissance4 plateau) {
+    for (int colonne = 1; colonne <= plateau.getLongueur(); ++colonne) {
+      if (!plateau.verifierColonnePleine(colonne)) {
+        return new ChoixPuissance4(CoupPuissance4.INSERTION, null, colonne);
+      }
+    }
+
+    if (plateau.getRotationsRestantes(plateau.getTrait()) > 0) {
+      return new ChoixPuissance4(CoupPuissance4.ROTATION, RotationPuissance4.HORAIRE, 0);
+    }
+
+    return new ChoixPuissance4(CoupPuissance4.INSERTION, null, 1);
+  }
 }
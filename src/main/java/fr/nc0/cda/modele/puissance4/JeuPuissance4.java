@@ -7,14 +7,59 @@
 package fr.nc0.cda.modele.puissance4;
 
 import fr.nc0.cda.modele.jeu.*;
+import java.util.Arrays;
 
 /** Représente une partie de Puissance 4. */
 public class JeuPuissance4 extends Jeu<PlateauPuissance4, ChoixPuissance4> {
+  /** Les états de partie, indexés par leur ordinal */
+  private static final EtatPartie[] ETATS = EtatPartie.values();
+
+  /** Les joueurs, indexés par leur ordinal */
+  private static final Joueurs[] JOUEURS = Joueurs.values();
+
+  /** Capacité initiale de l'historique des coups annulables */
+  private static final int HISTORIQUE_CAPACITE = 64;
+
+  /** Jetons rouges avant chaque coup annulable */
+  private long[] historiqueRouges = new long[HISTORIQUE_CAPACITE];
+
+  /** Jetons jaunes avant chaque coup annulable */
+  private long[] historiqueJaunes = new long[HISTORIQUE_CAPACITE];
+
+  /** Clés de Zobrist avant chaque coup annulable */
+  private long[] historiqueCles = new long[HISTORIQUE_CAPACITE];
+
+  /**
+   * Dimensions de la grille, joueur dont c'est le tour et état de la partie avant chaque coup
+   * annulable
+   */
+  private int[] historiqueEtats = new int[HISTORIQUE_CAPACITE];
+
+  /** Rotations restantes des deux joueurs avant chaque coup annulable */
+  private int[] historiqueRotations = new int[HISTORIQUE_CAPACITE];
+
+  /** Nombre de coups annulables dans l'historique */
+  private int historique = 0;
+
   /** Créer une partie de Puissance 4 et la commence */
   public JeuPuissance4(int longueur, int hauteur) {
     super(new PlateauPuissance4(longueur, hauteur));
   }
 
+  /**
+   * Créer une partie de Puissance 4 à partir d'un plateau existant, par exemple pour explorer les
+   * coups possibles depuis une position.
+   *
+   * @param plateau le plateau de la partie, qui sera modifié par les coups joués
+   */
+  public JeuPuissance4(PlateauPuissance4 plateau) {
+    super(plateau);
+    etatPartie = plateau.verifierVictoire();
+    if (etatPartie == EtatPartie.EN_COURS && plateau.estPlein()) {
+      etatPartie = EtatPartie.MATCH_NUL;
+    }
+  }
+
   @Override
   public void jouer(Joueurs joueur, ChoixPuissance4 choix)
       throws CoupInvalideException, EtatPartieException {
@@ -25,8 +70,14 @@ public class JeuPuissance4 extends Jeu<PlateauPuissance4, ChoixPuissance4> {
     switch (choix.getCoup()) {
       case ROTATION:
         {
+          int rotationsRestantes = plateau.getRotationsRestantes(joueur);
+          if (rotationsRestantes <= 0) {
+            throw new CoupInvalideException("vous avez utilisé toutes vos rotations possibles");
+          }
+
           RotationPuissance4 rotation = choix.getRotation();
-          plateau = plateau.rotationner(rotation);
+          plateau.rotationner(rotation);
+          plateau.setRotationsRestantes(joueur, rotationsRestantes - 1);
           etatPartie = plateau.verifierVictoire();
           break;
         }
@@ -68,5 +119,78 @@ public class JeuPuissance4 extends Jeu<PlateauPuissance4, ChoixPuissance4> {
           throw new CoupInvalideException("la coup demandé est invalide");
         }
     }
+
+    plateau.setTrait(joueur == Joueurs.JOUEUR_1 ? Joueurs.JOUEUR_2 : Joueurs.JOUEUR_1);
+  }
+
+  /**
+   * Jouer un coup de la partie de façon réversible.
+   *
+   * <p>L'état de la partie avant le coup est sauvegardé sans créer de nouveau plateau, ce qui
+   * permet d'explorer un grand nombre de positions depuis la même partie.
+   *
+   * @param joueur le joueur qui joue
+   * @param choix le choix du joueur
+   * @return le jeton à passer à {@link #annuler(int)} pour revenir avant ce coup
+   * @throws CoupInvalideException le coup est invalide, rien n'est sauvegardé.
+   * @throws EtatPartieException la partie est terminée, rien n'est sauvegardé.
+   */
+  public int jouerAnnulable(Joueurs joueur, ChoixPuissance4 choix)
+      throws CoupInvalideException, EtatPartieException {
+    if (historique == historiqueEtats.length) {
+      int capacite = 2 * historique;
+      historiqueRouges = Arrays.copyOf(historiqueRouges, capacite);
+      historiqueJaunes = Arrays.copyOf(historiqueJaunes, capacite);
+      historiqueCles = Arrays.copyOf(historiqueCles, capacite);
+      historiqueEtats = Arrays.copyOf(historiqueEtats, capacite);
+      historiqueRotations = Arrays.copyOf(historiqueRotations, capacite);
+    }
+
+    int jeton = historique;
+    historiqueRouges[jeton] = plateau.getRouges();
+    historiqueJaunes[jeton] = plateau.getJaunes();
+    historiqueCles[jeton] = plateau.getCleZobrist();
+    historiqueEtats[jeton] =
+        plateau.getLongueur()
+            | plateau.getHauteur() << 8
+            | plateau.getTrait().ordinal() << 16
+            | etatPartie.ordinal() << 24;
+    historiqueRotations[jeton] =
+        plateau.getRotationsRestantes(Joueurs.JOUEUR_1)
+            | plateau.getRotationsRestantes(Joueurs.JOUEUR_2) << 16;
+
+    jouer(joueur, choix);
+    historique = jeton + 1;
+    return jeton;
+  }
+
+  /**
+   * Annule un coup joué avec {@link #jouerAnnulable(Joueurs, ChoixPuissance4)}, ainsi que tous les
+   * coups annulables joués après lui.
+   *
+   * <p>La grille, ses dimensions, le joueur dont c'est le tour, les rotations restantes et l'état
+   * de la partie redeviennent exactement ceux d'avant le coup.
+   *
+   * @param jeton le jeton retourné lors du coup
+   * @throws IllegalArgumentException si le jeton ne correspond à aucun coup à annuler
+   */
+  public void annuler(int jeton) {
+    if (jeton < 0 || jeton >= historique) {
+      throw new IllegalArgumentException("Le jeton " + jeton + " est invalide");
+    }
+
+    int etat = historiqueEtats[jeton];
+    int rotations = historiqueRotations[jeton];
+    plateau.restaurer(
+        historiqueRouges[jeton],
+        historiqueJaunes[jeton],
+        etat & 0xFF,
+        (etat >>> 8) & 0xFF,
+        JOUEURS[(etat >>> 16) & 0xFF],
+        rotations & 0xFFFF,
+        rotations >>> 16,
+        historiqueCles[jeton]);
+    etatPartie = ETATS[etat >>> 24];
+    historique = jeton;
   }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.puissance4;
+
+/**
+ * Masques précalculés pour une dimension de grille donnée, utilisés par les opérations sur les
+ * bitboards de {@link PlateauPuissance4}.
+ *
+ * <p>Les instances sont immuables et partagées entre toutes les grilles de même dimension.
+ */
+final class MasquesPuissance4 {
+  /** Nombre de jetons à aligner pour gagner */
+  static final int ALIGNEMENT = 4;
+
+  /** Nombre de directions d'alignement : verticale, horizontale et les deux diagonales */
+  static final int DIRECTIONS = 4;
+
+  /** Masques déjà calculés, indexés par longueur puis hauteur */
+  private static final MasquesPuissance4[][] CACHE =
+      new MasquesPuissance4[PlateauPuissance4.CELLULES_MAX + 1][PlateauPuissance4.CELLULES_MAX + 1];
+
+  /** Décalage en bits entre deux cellules voisines, pour chaque direction */
+  final int[] decalages;
+
+  /**
+   * Cellules à partir desquelles un alignement complet tient dans la grille, pour chaque
+   * direction.
+   */
+  final long[] debuts;
+
+  /** Toutes les cellules de la grille */
+  final long grille;
+
+  /** Nombre d'alignements possibles passant par chaque cellule, indexé par bit */
+  final int[] poids;
+
+  /**
+   * Cellules situées à une, deux et trois cases de chaque cellule, indexées par {@code 2 *
+   * direction + sens} puis par bit. Le sens 0 va vers les bits croissants, le sens 1 vers les bits
+   * décroissants. Un rayon s'arrête au bord de la grille.
+   */
+  final long[][] rayons;
+
+  private MasquesPuissance4(int longueur, int hauteur) {
+    // Verticale, horizontale, diagonale montante, diagonale descendante.
+    int[] decalagesColonne = {0, 1, 1, 1};
+    int[] decalagesLigne = {1, 0, 1, -1};
+
+    decalages = new int[DIRECTIONS];
+    debuts = new long[DIRECTIONS];
+    for (int d = 0; d < DIRECTIONS; ++d) {
+      decalages[d] = decalagesColonne[d] * hauteur + decalagesLigne[d];
+
+      for (int colonne = 0; colonne < longueur; ++colonne) {
+        for (int ligne = 0; ligne < hauteur; ++ligne) {
+          int colonneFin = colonne + (ALIGNEMENT - 1) * decalagesColonne[d];
+          int ligneFin = ligne + (ALIGNEMENT - 1) * decalagesLigne[d];
+          if (colonneFin < longueur && ligneFin >= 0 && ligneFin < hauteur) {
+            debuts[d] |= 1L << (colonne * hauteur + ligne);
+          }
+        }
+      }
+    }
+
+    int cellules = longueur * hauteur;
+    grille = cellules == Long.SIZE ? -1L : (1L << cellules) - 1;
+
+    poids = new int[cellules];
+    for (int d = 0; d < DIRECTIONS; ++d) {
+      for (long debut = debuts[d]; debut != 0; debut &= debut - 1) {
+        int bit = Long.numberOfTrailingZeros(debut);
+        for (int k = 0; k < ALIGNEMENT; ++k) {
+          ++poids[bit + k * decalages[d]];
+        }
+      }
+    }
+
+    rayons = new long[2 * DIRECTIONS][cellules];
+    for (int d = 0; d < DIRECTIONS; ++d) {
+      for (int sens = 0; sens < 2; ++sens) {
+        int signe = sens == 0 ? 1 : -1;
+        for (int colonne = 0; colonne < longueur; ++colonne) {
+          for (int ligne = 0; ligne < hauteur; ++ligne) {
+            long rayon = 0;
+            for (int k = 1; k < ALIGNEMENT; ++k) {
+              int c = colonne + signe * k * decalagesColonne[d];
+              int l = ligne + signe * k * decalagesLigne[d];
+              if (c < 0 || c >= longueur || l < 0 || l >= hauteur) {
+                break;
+              }
+
+              rayon |= 1L << (c * hauteur + l);
+            }
+
+            rayons[2 * d + sens][colonne * hauteur + ligne] = rayon;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Retourne les masques d'une grille.
+   *
+   * @param longueur la longueur de la grille
+   * @param hauteur la hauteur de la grille
+   * @return les masques de la grille
+   */
+  static MasquesPuissance4 pour(int longueur, int hauteur) {
+    MasquesPuissance4 masques = CACHE[longueur][hauteur];
+    if (masques == null) {
+      // Plusieurs threads peuvent calculer les mêmes masques, ce qui est sans conséquence.
+      masques = new MasquesPuissance4(longueur, hauteur);
+      CACHE[longueur][hauteur] = masques;
+    }
+
+    return masques;
+  }
+
+  /**
+   * Retourne les cellules faisant partie d'un alignement dans une direction.
+   *
+   * @param pions les jetons d'une couleur
+   * @param direction la direction, entre 0 et {@link #DIRECTIONS} exclu
+   * @return les cellules alignées
+   */
+  long alignes(long pions, int direction) {
+    int decalage = decalages[direction];
+    long debut =
+        pions
+            & (pions >>> decalage)
+            & (pions >>> (2 * decalage))
+            & (pions >>> (3 * decalage))
+            & debuts[direction];
+
+    return debut | (debut << decalage) | (debut << (2 * decalage)) | (debut << (3 * decalage));
+  }
+}
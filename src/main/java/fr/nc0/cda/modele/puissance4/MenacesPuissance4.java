@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.puissance4;
+
+/**
+ * Évaluation des alignements créés par l'insertion d'un jeton, calculée sur les bitboards de
+ * {@link PlateauPuissance4} sans copier ni modifier la grille.
+ *
+ * <p>Dans chaque direction, les jetons contigus à la cellule d'insertion sont comptés à l'aide des
+ * rayons précalculés de {@link MasquesPuissance4} : le premier trou du rayon est isolé, puis les
+ * cellules qui le précèdent sont comptées avec {@link Long#bitCount(long)}.
+ *
+ * <p>Le résultat d'une évaluation est une « menace » codée dans un {@code int}, lue avec {@link
+ * #longueur(int)} et {@link #prolongeable(int)}.
+ */
+public final class MenacesPuissance4 {
+  /** Indicateur d'une menace dont l'alignement peut être prolongé */
+  private static final int PROLONGEABLE = 1 << 8;
+
+  /** Les directions, dans l'ordre où elles sont comparées : horizontale, verticale et diagonales */
+  private static final int[] DIRECTIONS = {1, 0, 3, 2};
+
+  /**
+   * Le sens de chaque direction considéré comme « supérieur », c'est-à-dire vers la droite, ou vers
+   * le bas de l'affichage pour la verticale
+   */
+  private static final int[] SENS_SUPERIEURS = {0, 1, 0, 0};
+
+  /**
+   * Le sens dans lequel chercher la quatrième cellule lorsque l'alignement penche du côté
+   * supérieur. Pour la seconde diagonale, c'est le sens opposé, comme dans l'évaluation par
+   * clusters d'origine dont les priorités sont conservées.
+   */
+  private static final int[] SENS_PROLONGEMENTS = {0, 1, 0, 1};
+
+  private MenacesPuissance4() {}
+
+  /**
+   * Évalue l'alignement le plus long obtenu en insérant un jeton dans une colonne.
+   *
+   * <p>La longueur est celle de la plus longue suite de jetons de la couleur passant par la
+   * cellule d'insertion, au moins 1 et au plus 7. Parmi les directions de même longueur, la
+   * première dans l'ordre horizontale, verticale, diagonales est retenue. L'alignement est
+   * prolongeable si la cellule située à trois cases de la cellule d'insertion, du côté où
+   * l'alignement compte le plus de jetons, est vide.
+   *
+   * @param plateau le plateau, qui n'est pas modifié
+   * @param colonne la colonne, entre 1 et la longueur, qui ne doit pas être pleine
+   * @param couleur la couleur du jeton inséré
+   * @return la menace
+   */
+  public static int evaluer(PlateauPuissance4 plateau, int colonne, CellulePuissance4 couleur) {
+    if (colonne < 1 || colonne > plateau.getLongueur() || plateau.verifierColonnePleine(colonne)) {
+      throw new IllegalArgumentException("La colonne " + colonne + " est invalide");
+    }
+
+    long pions = couleur == CellulePuissance4.ROUGE ? plateau.getRouges() : plateau.getJaunes();
+    long[][] rayons = plateau.getMasques().rayons;
+    int bit = (colonne - 1) * plateau.getHauteur() + plateau.getHauteurColonne(colonne);
+
+    int max = 0;
+    int indiceMax = 0;
+    boolean superieurMax = false;
+    for (int i = 0; i < DIRECTIONS.length; ++i) {
+      int sens = SENS_SUPERIEURS[i];
+      int superieur = compter(rayons[2 * DIRECTIONS[i] + sens][bit], pions, sens);
+      int inferieur = compter(rayons[2 * DIRECTIONS[i] + 1 - sens][bit], pions, 1 - sens);
+
+      int longueur = 1 + superieur + inferieur;
+      if (longueur > max) {
+        max = longueur;
+        indiceMax = i;
+        superieurMax = superieur > inferieur;
+      }
+    }
+
+    int sens =
+        superieurMax ? SENS_PROLONGEMENTS[indiceMax] : 1 - SENS_PROLONGEMENTS[indiceMax];
+    long rayon = rayons[2 * DIRECTIONS[indiceMax] + sens][bit];
+    if (Long.bitCount(rayon) < MasquesPuissance4.ALIGNEMENT - 1) {
+      return max;
+    }
+
+    long quatrieme = sens == 0 ? Long.highestOneBit(rayon) : Long.lowestOneBit(rayon);
+    long occupees = plateau.getRouges() | plateau.getJaunes();
+    return (occupees & quatrieme) == 0 ? max | PROLONGEABLE : max;
+  }
+
+  /**
+   * Retourne la longueur de l'alignement d'une menace.
+   *
+   * @param menace la menace
+   * @return la longueur de l'alignement
+   */
+  public static int longueur(int menace) {
+    return menace & (PROLONGEABLE - 1);
+  }
+
+  /**
+   * Vérifie que l'alignement d'une menace peut être prolongé.
+   *
+   * @param menace la menace
+   * @return true si la quatrième cellule de l'alignement est vide
+   */
+  public static boolean prolongeable(int menace) {
+    return (menace & PROLONGEABLE) != 0;
+  }
+
+  /**
+   * Compte les jetons contigus au départ d'un rayon.
+   *
+   * @param rayon les cellules du rayon
+   * @param pions les jetons de la couleur
+   * @param sens le sens du rayon, 0 vers les bits croissants et 1 vers les bits décroissants
+   * @return le nombre de jetons précédant le premier trou du rayon
+   */
+  private static int compter(long rayon, long pions, int sens) {
+    long trous = rayon & ~pions;
+    if (trous == 0) {
+      return Long.bitCount(rayon);
+    }
+
+    // Les cellules précédant le premier trou sont celles de plus petit bit dans le sens 0, et
+    // celles de plus grand bit dans le sens 1.
+    long avant =
+        sens == 0
+            ? Long.lowestOneBit(trous) - 1
+            : ~((Long.highestOneBit(trous) << 1) - 1);
+    return Long.bitCount(rayon & avant);
+  }
+}
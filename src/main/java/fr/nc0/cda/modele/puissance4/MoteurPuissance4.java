@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.puissance4;
+
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Joueurs;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Moteur de recherche pour le Puissance 4, basé sur l'algorithme negamax avec élagage alpha-beta.
+ *
+ * <p>La recherche se fait par approfondissement itératif dans un temps limité, en jouant et
+ * annulant les coups sur une seule partie. Les positions déjà évaluées sont retenues dans une
+ * {@link TableTranspositionPuissance4}.
+ *
+ * <p>Les rotations sont explorées comme les insertions, tant que le joueur dont c'est le tour en
+ * dispose encore.
+ *
+ * <p>Un moteur n'est pas utilisable par plusieurs threads à la fois.
+ */
+public class MoteurPuissance4 {
+  /** Score d'une victoire immédiate, diminué du nombre de coups nécessaires pour l'obtenir */
+  public static final int VICTOIRE = 1_000_000;
+
+  /** Profondeur maximale d'une recherche */
+  public static final int PROFONDEUR_MAX = 128;
+
+  /** Borne supérieure de tous les scores */
+  private static final int INFINI = VICTOIRE + 1;
+
+  /** Nombre de nœuds visités entre deux vérifications du temps restant */
+  private static final int NOEUDS_ENTRE_VERIFICATIONS = 1024;
+
+  /** Code d'une rotation dans le sens horaire, une insertion étant codée par sa colonne */
+  static final int ROTATION_HORAIRE = PlateauPuissance4.CELLULES_MAX + 1;
+
+  /** Code d'une rotation dans le sens anti-horaire */
+  static final int ROTATION_ANTI_HORAIRE = PlateauPuissance4.CELLULES_MAX + 2;
+
+  /** Les choix, indexés par leur code, pour ne pas les créer pendant la recherche */
+  private static final ChoixPuissance4[] CHOIX = new ChoixPuissance4[ROTATION_ANTI_HORAIRE + 1];
+
+  static {
+    for (int colonne = 1; colonne <= PlateauPuissance4.CELLULES_MAX; ++colonne) {
+      CHOIX[colonne] = new ChoixPuissance4(CoupPuissance4.INSERTION, null, colonne);
+    }
+    CHOIX[ROTATION_HORAIRE] =
+        new ChoixPuissance4(CoupPuissance4.ROTATION, RotationPuissance4.HORAIRE, 0);
+    CHOIX[ROTATION_ANTI_HORAIRE] =
+        new ChoixPuissance4(CoupPuissance4.ROTATION, RotationPuissance4.ANTI_HORAIRE, 0);
+  }
+
+  /** La table de transposition */
+  private final TableTranspositionPuissance4 table;
+
+  /**
+   * Variante de la recherche, pour que des moteurs partageant la même table n'explorent pas tous
+   * l'arbre dans le même ordre
+   */
+  private final int variante;
+
+  /** Les coups à essayer, pour chaque profondeur de la recherche */
+  private final int[][] coups = new int[PROFONDEUR_MAX + 1][ROTATION_ANTI_HORAIRE];
+
+  /** La partie explorée */
+  private JeuPuissance4 jeu;
+
+  /** Le plateau de la partie explorée */
+  private PlateauPuissance4 plateau;
+
+  /** Nombre de nœuds visités depuis la création du moteur */
+  private long noeuds = 0;
+
+  /** Instant, selon {@link System#nanoTime()}, auquel la recherche doit s'arrêter */
+  private long echeance;
+
+  /** Condition d'arrêt anticipé de la recherche en cours */
+  private BooleanSupplier arret;
+
+  /** True si la recherche en cours a été interrompue */
+  private boolean interrompue;
+
+  /** Le meilleur coup trouvé à la racine lors de la dernière exploration */
+  private int meilleurCoupRacine;
+
+  /**
+   * Créer un moteur.
+   *
+   * @param table la table de transposition à utiliser
+   */
+  public MoteurPuissance4(TableTranspositionPuissance4 table) {
+    this(table, 0);
+  }
+
+  /**
+   * Créer un moteur destiné à chercher en parallèle d'autres moteurs partageant la même table.
+   *
+   * <p>Selon sa variante, le moteur commence à une profondeur différente et essaye les colonnes
+   * voisines du centre dans un ordre différent.
+   *
+   * @param table la table de transposition à utiliser
+   * @param variante la variante de la recherche, 0 pour la recherche normale
+   */
+  public MoteurPuissance4(TableTranspositionPuissance4 table, int variante) {
+    this.table = table;
+    this.variante = variante;
+  }
+
+  /**
+   * Retourne le nombre de nœuds visités depuis la création du moteur.
+   *
+   * @return le nombre de nœuds
+   */
+  public long getNoeuds() {
+    return noeuds;
+  }
+
+  /**
+   * Cherche le meilleur coup pour le joueur dont c'est le tour.
+   *
+   * <p>La recherche est approfondie tant que le temps le permet. Le coup retourné est celui de la
+   * dernière profondeur entièrement explorée, la première étant toujours explorée en entier.
+   *
+   * @param position la position à explorer, qui n'est pas modifiée
+   * @param budget le temps de recherche, en millisecondes
+   * @return le meilleur coup, ou null si aucun coup n'est possible
+   */
+  public ChoixPuissance4 chercher(PlateauPuissance4 position, long budget) {
+    return chercher(position, budget, () -> false);
+  }
+
+  /**
+   * Cherche le meilleur coup pour le joueur dont c'est le tour, en pouvant être arrêté avant la
+   * fin du temps de recherche.
+   *
+   * <p>La condition d'arrêt est consultée régulièrement, y compris pendant la première profondeur.
+   *
+   * @param position la position à explorer, qui n'est pas modifiée
+   * @param budget le temps de recherche, en millisecondes
+   * @param arret retourne true lorsque la recherche doit s'arrêter
+   * @return le meilleur coup, ou null si aucun coup n'est possible ou si la recherche a été
+   *     arrêtée avant la fin de la première profondeur
+   */
+  public ChoixPuissance4 chercher(PlateauPuissance4 position, long budget, BooleanSupplier arret) {
+    this.arret = arret;
+    plateau = position.dupliquer();
+    jeu = new JeuPuissance4(plateau);
+    if (jeu.getEtatPartie() != EtatPartie.EN_COURS) {
+      return null;
+    }
+
+    long fin = System.nanoTime() + budget * 1_000_000;
+    // La première profondeur est toujours explorée en entier.
+    echeance = Long.MAX_VALUE;
+    interrompue = false;
+
+    int meilleurCoup = 0;
+    // La partie ne peut pas durer plus longtemps que les insertions et rotations restantes.
+    int coupsRestants =
+        Long.bitCount(~occupees() & masques().grille)
+            + plateau.getRotationsRestantes(Joueurs.JOUEUR_1)
+            + plateau.getRotationsRestantes(Joueurs.JOUEUR_2);
+    int profondeurMax = Math.min(PROFONDEUR_MAX, coupsRestants);
+    for (int profondeur = 1 + variante % 2; profondeur <= profondeurMax; ++profondeur) {
+      int score = negamax(profondeur, -INFINI, INFINI, 0);
+      if (interrompue) {
+        break;
+      }
+
+      meilleurCoup = meilleurCoupRacine;
+      echeance = fin;
+
+      // Inutile de chercher plus loin une fois l'issue de la partie connue.
+      if (Math.abs(score) >= VICTOIRE - PROFONDEUR_MAX) {
+        break;
+      }
+    }
+
+    return meilleurCoup == 0 ? null : choix(meilleurCoup);
+  }
+
+  /**
+   * Explore une position avec l'algorithme negamax.
+   *
+   * @param profondeur la profondeur restante
+   * @param alpha le score minimal assuré au joueur dont c'est le tour
+   * @param beta le score maximal assuré à son adversaire
+   * @param distance le nombre de coups joués depuis la racine
+   * @return le score de la position pour le joueur dont c'est le tour
+   */
+  private int negamax(int profondeur, int alpha, int beta, int distance) {
+    if (++noeuds % NOEUDS_ENTRE_VERIFICATIONS == 0
+        && (System.nanoTime() > echeance || arret.getAsBoolean())) {
+      interrompue = true;
+    }
+
+    if (interrompue) {
+      return 0;
+    }
+
+    long cle = plateau.getCleZobrist();
+    long entree = table.lire(cle);
+    int coupTable = 0;
+    if (entree != TableTranspositionPuissance4.ABSENTE) {
+      coupTable = TableTranspositionPuissance4.coup(entree);
+
+      if (distance > 0 && TableTranspositionPuissance4.profondeur(entree) >= profondeur) {
+        int score = depuisTable(TableTranspositionPuissance4.score(entree), distance);
+        switch (TableTranspositionPuissance4.type(entree)) {
+          case TableTranspositionPuissance4.EXACT -> {
+            return score;
+          }
+          case TableTranspositionPuissance4.BORNE_INFERIEURE -> alpha = Math.max(alpha, score);
+          case TableTranspositionPuissance4.BORNE_SUPERIEURE -> beta = Math.min(beta, score);
+        }
+
+        if (alpha >= beta) {
+          return score;
+        }
+      }
+    }
+
+    if (profondeur == 0) {
+      return evaluer();
+    }
+
+    int alphaInitial = alpha;
+    int meilleurScore = -INFINI;
+    int meilleurCoup = 0;
+    Joueurs joueur = plateau.getTrait();
+    int nombreCoups = genererCoups(coups[distance], coupTable);
+
+    for (int i = 0; i < nombreCoups; ++i) {
+      int coup = coups[distance][i];
+      int jeton = jouer(joueur, coup);
+      if (jeton < 0) {
+        continue;
+      }
+
+      int score =
+          switch (jeu.getEtatPartie()) {
+            case EN_COURS -> -negamax(profondeur - 1, -beta, -alpha, distance + 1);
+            case MATCH_NUL -> 0;
+            case VICTOIRE_JOUEUR_1 -> joueur == Joueurs.JOUEUR_1
+                ? VICTOIRE - distance
+                : distance - VICTOIRE;
+            case VICTOIRE_JOUEUR_2 -> joueur == Joueurs.JOUEUR_2
+                ? VICTOIRE - distance
+                : distance - VICTOIRE;
+          };
+      jeu.annuler(jeton);
+
+      if (interrompue) {
+        return 0;
+      }
+
+      if (score > meilleurScore) {
+        meilleurScore = score;
+        meilleurCoup = coup;
+      }
+
+      alpha = Math.max(alpha, score);
+      if (alpha >= beta) {
+        break;
+      }
+    }
+
+    if (meilleurCoup == 0) {
+      // Aucun coup possible, la grille est pleine et aucune rotation ne reste.
+      return 0;
+    }
+
+    if (distance == 0) {
+      meilleurCoupRacine = meilleurCoup;
+    }
+
+    int type =
+        meilleurScore <= alphaInitial
+            ? TableTranspositionPuissance4.BORNE_SUPERIEURE
+            : meilleurScore >= beta
+                ? TableTranspositionPuissance4.BORNE_INFERIEURE
+                : TableTranspositionPuissance4.EXACT;
+    table.ecrire(cle, profondeur, versTable(meilleurScore, distance), type, meilleurCoup);
+
+    return meilleurScore;
+  }
+
+  /**
+   * Génère les coups possibles dans l'ordre où les essayer : le coup de la table de transposition,
+   * puis les colonnes en partant du centre, puis les rotations.
+   *
+   * @param destination le tableau à remplir
+   * @param coupTable le coup de la table de transposition, ou 0
+   * @return le nombre de coups générés
+   */
+  private int genererCoups(int[] destination, int coupTable) {
+    int longueur = plateau.getLongueur();
+    int nombre = 0;
+    if (coupTable != 0 && estJouable(coupTable)) {
+      destination[nombre++] = coupTable;
+    }
+
+    int centre = (longueur + 1) / 2;
+    for (int i = 0; i < longueur; ++i) {
+      // centre, centre + 1, centre - 1, centre + 2, ... ou son symétrique selon la variante
+      int colonne = (i % 2 == 0) ? centre - i / 2 : centre + (i + 1) / 2;
+      if (variante % 2 != 0) {
+        colonne = longueur + 1 - colonne;
+      }
+
+      if (colonne != coupTable && !plateau.verifierColonnePleine(colonne)) {
+        destination[nombre++] = colonne;
+      }
+    }
+
+    if (plateau.getRotationsRestantes(plateau.getTrait()) > 0) {
+      for (int rotation = ROTATION_HORAIRE; rotation <= ROTATION_ANTI_HORAIRE; ++rotation) {
+        if (rotation != coupTable) {
+          destination[nombre++] = rotation;
+        }
+      }
+    }
+
+    return nombre;
+  }
+
+  /**
+   * Vérifie qu'un coup est jouable dans la position courante.
+   *
+   * @param coup le coup
+   * @return true si le coup est jouable
+   */
+  private boolean estJouable(int coup) {
+    if (coup > PlateauPuissance4.CELLULES_MAX) {
+      return plateau.getRotationsRestantes(plateau.getTrait()) > 0;
+    }
+
+    return coup <= plateau.getLongueur() && !plateau.verifierColonnePleine(coup);
+  }
+
+  /**
+   * Joue un coup de façon annulable.
+   *
+   * @param joueur le joueur qui joue
+   * @param coup le coup
+   * @return le jeton d'annulation, ou -1 si le coup n'a pas pu être joué
+   */
+  private int jouer(Joueurs joueur, int coup) {
+    try {
+      return jeu.jouerAnnulable(joueur, choix(coup));
+    } catch (CoupInvalideException | EtatPartieException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Retourne le choix correspondant à un coup.
+   *
+   * @param coup le code du coup
+   * @return le choix
+   */
+  static ChoixPuissance4 choix(int coup) {
+    return CHOIX[coup];
+  }
+
+  /**
+   * Évalue une position sans l'explorer, en favorisant les cellules faisant partie du plus grand
+   * nombre d'alignements possibles.
+   *
+   * @return le score de la position pour le joueur dont c'est le tour
+   */
+  private int evaluer() {
+    int[] poids = masques().poids;
+    int score = 0;
+    for (long pions = plateau.getRouges(); pions != 0; pions &= pions - 1) {
+      score += poids[Long.numberOfTrailingZeros(pions)];
+    }
+    for (long pions = plateau.getJaunes(); pions != 0; pions &= pions - 1) {
+      score -= poids[Long.numberOfTrailingZeros(pions)];
+    }
+
+    return plateau.getTrait() == Joueurs.JOUEUR_1 ? score : -score;
+  }
+
+  /**
+   * Convertit un score relatif à la position courante en score à retenir dans la table, les
+   * victoires étant comptées depuis la position plutôt que depuis la racine.
+   *
+   * @param score le score
+   * @param distance le nombre de coups joués depuis la racine
+   * @return le score à retenir
+   */
+  private static int versTable(int score, int distance) {
+    if (score >= VICTOIRE - PROFONDEUR_MAX) {
+      return score + distance;
+    } else if (score <= PROFONDEUR_MAX - VICTOIRE) {
+      return score - distance;
+    }
+
+    return score;
+  }
+
+  /**
+   * Convertit un score lu dans la table en score relatif à la racine.
+   *
+   * @param score le score lu
+   * @param distance le nombre de coups joués depuis la racine
+   * @return le score relatif à la racine
+   */
+  private static int depuisTable(int score, int distance) {
+    if (score >= VICTOIRE - PROFONDEUR_MAX) {
+      return score - distance;
+    } else if (score <= PROFONDEUR_MAX - VICTOIRE) {
+      return score + distance;
+    }
+
+    return score;
+  }
+
+  /**
+   * Retourne les cellules occupées de la grille.
+   *
+   * @return le bitboard des cellules occupées
+   */
+  private long occupees() {
+    return plateau.getRouges() | plateau.getJaunes();
+  }
+
+  /**
+   * Retourne les masques de la grille explorée.
+   *
+   * @return les masques
+   */
+  private MasquesPuissance4 masques() {
+    return plateau.getMasques();
+  }
+}
@@ -7,14 +7,73 @@
 package fr.nc0.cda.modele.puissance4;
 
 import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.Joueurs;
 import fr.nc0.cda.modele.jeu.Plateau;
-import java.util.ArrayList;
-import java.util.List;
-
-/** Représente la grille de jeu du Puissance 4. */
+import java.util.SplittableRandom;
+
+/**
+ * Représente la grille de jeu du Puissance 4.
+ *
+ * <p>La grille est stockée sous la forme de deux « bitboards », un {@code long} par couleur, ainsi
+ * que de la hauteur de chaque colonne. La cellule de la colonne {@code c} située à {@code r} cases
+ * du bas de la grille correspond au bit {@code (c - 1) * hauteur + r}. Une grille ne peut donc pas
+ * contenir plus de 64 cellules.
+ */
 public class PlateauPuissance4 implements Plateau {
-  /** Les colonnes de la grille */
-  private final List<List<CellulePuissance4>> grille;
+  /** Nombre maximal de cellules d'une grille */
+  public static final int CELLULES_MAX = Long.SIZE;
+
+  /** Nombre maximal de rotations restantes d'un joueur */
+  public static final int ROTATIONS_MAX = 255;
+
+  /** Clés de Zobrist d'un jeton rouge, pour chaque bit de la grille */
+  private static final long[] CLES_ROUGES = new long[CELLULES_MAX];
+
+  /** Clés de Zobrist d'un jeton jaune, pour chaque bit de la grille */
+  private static final long[] CLES_JAUNES = new long[CELLULES_MAX];
+
+  /** Clés de Zobrist de la longueur de la grille */
+  private static final long[] CLES_LONGUEURS = new long[CELLULES_MAX + 1];
+
+  /** Clés de Zobrist de la hauteur de la grille */
+  private static final long[] CLES_HAUTEURS = new long[CELLULES_MAX + 1];
+
+  /** Clé de Zobrist ajoutée lorsque c'est au second joueur de jouer */
+  private static final long CLE_TRAIT_JOUEUR_2;
+
+  /**
+   * Clés de Zobrist des rotations restantes, pour chaque joueur et chaque nombre de rotations,
+   * nulles lorsqu'il n'en reste aucune
+   */
+  private static final long[][] CLES_ROTATIONS = new long[2][ROTATIONS_MAX + 1];
+
+  static {
+    // Graine fixe, pour que les clés soient les mêmes d'une exécution à l'autre.
+    SplittableRandom aleatoire = new SplittableRandom(0x5075_1554_4E43_E4L);
+    for (int i = 0; i < CELLULES_MAX; ++i) {
+      CLES_ROUGES[i] = aleatoire.nextLong();
+      CLES_JAUNES[i] = aleatoire.nextLong();
+    }
+    for (int i = 0; i <= CELLULES_MAX; ++i) {
+      CLES_LONGUEURS[i] = aleatoire.nextLong();
+      CLES_HAUTEURS[i] = aleatoire.nextLong();
+    }
+    CLE_TRAIT_JOUEUR_2 = aleatoire.nextLong();
+    for (long[] cles : CLES_ROTATIONS) {
+      for (int i = 1; i <= ROTATIONS_MAX; ++i) {
+        cles[i] = aleatoire.nextLong();
+      }
+    }
+  }
+
+  /** Les jetons rouges de la grille, un bit par cellule */
+  private long rouges;
+
+  /** Les jetons jaunes de la grille, un bit par cellule */
+  private long jaunes;
+
+  /** Le nombre de jetons de chaque colonne */
+  private final int[] hauteurs;
 
   /** La longueur de la grille */
   private int longueur;
@@ -22,32 +81,30 @@ public class PlateauPuissance4 implements Plateau {
   /** La hauteur de la grille */
   private int hauteur;
 
-  public PlateauPuissance4(int longueur, int hauteur) {
-    this.longueur = longueur;
-    this.hauteur = hauteur;
-    this.grille = initialiserGrille(hauteur, longueur);
-  }
+  /** Les masques correspondant aux dimensions de la grille */
+  private MasquesPuissance4 masques;
 
-  /**
-   * Initialise une grille 2D de cellules vides
-   *
-   * @param longueur longueur de la grille
-   * @param largeur largeur de la grille
-   * @return la grille
-   */
-  private List<List<CellulePuissance4>> initialiserGrille(int longueur, int largeur) {
-    List<List<CellulePuissance4>> grille = new ArrayList<>(longueur);
+  /** Le joueur dont c'est le tour */
+  private Joueurs trait = Joueurs.JOUEUR_1;
 
-    for (int i = 0; i < longueur; ++i) {
-      List<CellulePuissance4> colonne = new ArrayList<>(largeur);
-      for (int j = 0; j < largeur; ++j) {
-        colonne.add(CellulePuissance4.VIDE);
-      }
+  /** Les rotations que chaque joueur peut encore effectuer, indexées par joueur */
+  private final int[] rotationsRestantes = new int[2];
 
-      grille.add(colonne);
+  /** La clé de Zobrist de la position, mise à jour à chaque modification */
+  private long cleZobrist;
+
+  public PlateauPuissance4(int longueur, int hauteur) {
+    if (longueur < 1 || hauteur < 1 || longueur * hauteur > CELLULES_MAX) {
+      throw new IllegalArgumentException(
+          "La grille " + longueur + "x" + hauteur + " est invalide");
     }
 
-    return grille;
+    this.longueur = longueur;
+    this.hauteur = hauteur;
+    // Assez grand pour la grille une fois tournée, dont les dimensions sont échangées.
+    this.hauteurs = new int[Math.max(longueur, hauteur)];
+    this.masques = MasquesPuissance4.pour(longueur, hauteur);
+    this.cleZobrist = calculerCleZobrist();
   }
 
   /**
@@ -68,6 +125,17 @@ public class PlateauPuissance4 implements Plateau {
     return hauteur;
   }
 
+  /**
+   * Retourne le bit correspondant à une cellule, sans vérification.
+   *
+   * @param colonne la colonne, entre 1 et la longueur
+   * @param ligne la ligne, entre 1 et la hauteur
+   * @return le bit de la cellule
+   */
+  private long bit(int colonne, int ligne) {
+    return 1L << ((colonne - 1) * hauteur + hauteur - ligne);
+  }
+
   /**
    * Insère un jeton dans la colonne.
    *
@@ -84,15 +152,9 @@ public class PlateauPuissance4 implements Plateau {
       throw new IllegalArgumentException("Le colonne " + colonne + " est invalide");
     }
 
-    for (int ligne = longueur; ligne > 0; --ligne) {
-      if (getCellule(colonne, ligne) == CellulePuissance4.VIDE) {
-        setCellule(colonne, ligne, cellule);
-        return ligne;
-      }
-    }
-
-    /* unreachable */
-    throw new IllegalArgumentException("La colonne " + colonne + " est invalide");
+    int ligne = hauteur - hauteurs[colonne - 1];
+    setCellule(colonne, ligne, cellule);
+    return ligne;
   }
 
   /**
@@ -103,11 +165,18 @@ public class PlateauPuissance4 implements Plateau {
    * @return la cellule à la position donnée, ou {@code null} si la position est invalide.
    */
   public CellulePuissance4 getCellule(int colonne, int ligne) {
-    if (colonne < 1 || colonne > longueur || ligne < 1 || ligne > longueur) {
+    if (colonne < 1 || colonne > longueur || ligne < 1 || ligne > hauteur) {
       return null;
     }
 
-    return grille.get(ligne - 1).get(colonne - 1);
+    long bit = bit(colonne, ligne);
+    if ((rouges & bit) != 0) {
+      return CellulePuissance4.ROUGE;
+    } else if ((jaunes & bit) != 0) {
+      return CellulePuissance4.JAUNE;
+    }
+
+    return CellulePuissance4.VIDE;
   }
 
   /**
@@ -126,7 +195,40 @@ public class PlateauPuissance4 implements Plateau {
       throw new IllegalArgumentException("La ligne " + ligne + " est invalide");
     }
 
-    grille.get(ligne - 1).set(colonne - 1, cellule);
+    long bit = bit(colonne, ligne);
+    int indice = Long.numberOfTrailingZeros(bit);
+    if ((rouges & bit) != 0) {
+      cleZobrist ^= CLES_ROUGES[indice];
+    } else if ((jaunes & bit) != 0) {
+      cleZobrist ^= CLES_JAUNES[indice];
+    }
+
+    rouges &= ~bit;
+    jaunes &= ~bit;
+    switch (cellule) {
+      case ROUGE -> {
+        rouges |= bit;
+        cleZobrist ^= CLES_ROUGES[indice];
+      }
+      case JAUNE -> {
+        jaunes |= bit;
+        cleZobrist ^= CLES_JAUNES[indice];
+      }
+      case VIDE -> {}
+    }
+
+    calculerHauteur(colonne - 1);
+  }
+
+  /**
+   * Recalcule la hauteur d'une colonne, c'est-à-dire la position de son jeton le plus haut.
+   *
+   * @param indice l'indice de la colonne, entre 0 et la longueur exclue
+   */
+  private void calculerHauteur(int indice) {
+    long masque = (-1L >>> (Long.SIZE - hauteur)) << (indice * hauteur);
+    long colonne = ((rouges | jaunes) & masque) >>> (indice * hauteur);
+    hauteurs[indice] = Long.SIZE - Long.numberOfLeadingZeros(colonne);
   }
 
   /**
@@ -140,7 +242,7 @@ public class PlateauPuissance4 implements Plateau {
       throw new IllegalArgumentException("La colonne " + colonne + " est invalide");
     }
 
-    return getCellule(colonne, 1) != CellulePuissance4.VIDE;
+    return hauteurs[colonne - 1] == hauteur;
   }
 
   /**
@@ -149,71 +251,72 @@ public class PlateauPuissance4 implements Plateau {
    * @return true si le plateau est plein
    */
   public boolean estPlein() {
-    for (int i = 1; i <= hauteur; ++i) {
-      if (!verifierColonnePleine(i)) {
-        return false;
-      }
-    }
-
-    return true;
+    return (rouges | jaunes) == masques.grille;
   }
 
-  @SuppressWarnings("StringConcatenationInLoop")
   @Override
   public String toString() {
-    String string = "";
+    StringBuilder string = new StringBuilder();
 
-    for (List<CellulePuissance4> ligne : grille) {
-      string += "    ";
-      for (CellulePuissance4 cellule : ligne) {
-        string += " " + cellule.toString();
+    for (int ligne = 1; ligne <= hauteur; ++ligne) {
+      string.append("    ");
+      for (int colonne = 1; colonne <= longueur; ++colonne) {
+        string.append(' ').append(getCellule(colonne, ligne));
       }
-      string += "\n";
+      string.append('\n');
     }
 
-    string += "    ";
+    string.append("    ");
     for (int i = 1; i <= longueur; ++i) {
-      string += " \033[1m" + i + "\033[0m";
+      string.append(" \033[1m").append(i).append("\033[0m");
     }
-    string += "\n";
+    string.append('\n');
 
-    return string;
+    return string.toString();
   }
 
   /**
-   * Effectue une rotation de 90 degrés dans le sens voulu
+   * Effectue une rotation de 90 degrés dans le sens voulu, sur place.
+   *
+   * <p>Chaque ligne de la grille devient une colonne de la nouvelle grille, dont les jetons sont
+   * tassés vers le bas en un seul passage.
    *
    * @param sens le sens de rotation de 90
-   * @return le plateau avec une grille modifiée.
+   * @return ce plateau, avec une grille modifiée.
    */
   public PlateauPuissance4 rotationner(RotationPuissance4 sens) {
-    int nouvelleLongueur = hauteur;
-    int nouvelleHauteur = longueur;
-    PlateauPuissance4 nouveauPlateau = new PlateauPuissance4(nouvelleLongueur, nouvelleHauteur);
-
-    for (int ligne = 1; ligne <= hauteur; ++ligne) {
-      if (sens == RotationPuissance4.HORAIRE) {
-        for (int colonne = longueur; colonne > 0; --colonne) {
-          CellulePuissance4 cellule = getCellule(colonne, ligne);
-          if (cellule == CellulePuissance4.VIDE) {
-            continue;
-          }
-
-          nouveauPlateau.insererCellule(hauteur + 1 - ligne, cellule);
-        }
-      } else {
-        for (int colonne = 1; colonne <= longueur; ++colonne) {
-          CellulePuissance4 cellule = getCellule(colonne, ligne);
-          if (cellule == CellulePuissance4.VIDE) {
-            continue;
-          }
-
-          nouveauPlateau.insererCellule(ligne, cellule);
+    boolean horaire = sens == RotationPuissance4.HORAIRE;
+    long nouveauxRouges = 0;
+    long nouveauxJaunes = 0;
+
+    // La ligne située à r cases du bas devient la colonne r (sens horaire) ou la colonne
+    // hauteur - 1 - r (sens anti-horaire), de hauteur égale à l'ancienne longueur.
+    for (int r = 0; r < hauteur; ++r) {
+      int nouvelleColonne = horaire ? r : hauteur - 1 - r;
+      int base = nouvelleColonne * longueur;
+      int jetons = 0;
+
+      for (int i = 0; i < longueur; ++i) {
+        int colonne = horaire ? longueur - 1 - i : i;
+        long bit = 1L << (colonne * hauteur + r);
+        if ((rouges & bit) != 0) {
+          nouveauxRouges |= 1L << (base + jetons++);
+        } else if ((jaunes & bit) != 0) {
+          nouveauxJaunes |= 1L << (base + jetons++);
         }
       }
+
+      hauteurs[nouvelleColonne] = jetons;
     }
 
-    return nouveauPlateau;
+    int nouvelleLongueur = hauteur;
+    hauteur = longueur;
+    longueur = nouvelleLongueur;
+    masques = MasquesPuissance4.pour(longueur, hauteur);
+    rouges = nouveauxRouges;
+    jaunes = nouveauxJaunes;
+    cleZobrist = calculerCleZobrist();
+    return this;
   }
 
   /**
@@ -224,119 +327,216 @@ public class PlateauPuissance4 implements Plateau {
    * @return true si victoire
    */
   public boolean verifierCelluleVictorieuse(int colonne, int ligne) {
-    if (colonne < 1 || colonne > longueur || ligne < 1 || ligne > longueur) {
+    if (colonne < 1 || colonne > longueur || ligne < 1 || ligne > hauteur) {
       return false;
     }
 
-    CellulePuissance4 cellule = getCellule(colonne, ligne);
-    if (cellule == CellulePuissance4.VIDE) {
+    long bit = bit(colonne, ligne);
+    long pions = (rouges & bit) != 0 ? rouges : (jaunes & bit) != 0 ? jaunes : 0;
+    if (pions == 0) {
       return false;
     }
 
-    // Victoire
-
-    // Voisins à vérifier :
-    //
-    //       +-------------+       X = cellule courante
-    //     A |o     o     o|       o = cellule voisine
-    //     B |  o   o   o  |
-    //     C |    o o o    |
-    //     D |o o o X o o o|
-    //     E |    o o o    |
-    //     F |  o   o   o  |
-    //     G |o     o     o|
-    //       +-------------+
-    //        a b c d e f g
-
-    CellulePuissance4 aD = getCellule(colonne - 3, ligne);
-    CellulePuissance4 bD = getCellule(colonne - 2, ligne);
-    CellulePuissance4 cD = getCellule(colonne - 1, ligne);
-    CellulePuissance4 eD = getCellule(colonne + 1, ligne);
-    CellulePuissance4 fD = getCellule(colonne + 2, ligne);
-    CellulePuissance4 gD = getCellule(colonne + 3, ligne);
-    if (cellule == eD && cellule == fD && cellule == gD) return true;
-    if (cellule == cD && cellule == eD && cellule == fD) return true;
-    if (cellule == bD && cellule == cD && cellule == eD) return true;
-    if (cellule == aD && cellule == bD && cellule == cD) return true;
-
-    CellulePuissance4 dA = getCellule(colonne, ligne - 3);
-    CellulePuissance4 dB = getCellule(colonne, ligne - 2);
-    CellulePuissance4 dC = getCellule(colonne, ligne - 1);
-    CellulePuissance4 dE = getCellule(colonne, ligne + 1);
-    CellulePuissance4 dF = getCellule(colonne, ligne + 2);
-    CellulePuissance4 dG = getCellule(colonne, ligne + 3);
-    if (cellule == dE && cellule == dF && cellule == dG) return true;
-    if (cellule == dC && cellule == dE && cellule == dF) return true;
-    if (cellule == dB && cellule == dC && cellule == dE) return true;
-    if (cellule == dA && cellule == dB && cellule == dC) return true;
-
-    CellulePuissance4 aA = getCellule(colonne - 3, ligne - 3);
-    CellulePuissance4 bB = getCellule(colonne - 2, ligne - 2);
-    CellulePuissance4 cC = getCellule(colonne - 1, ligne - 1);
-    CellulePuissance4 eE = getCellule(colonne + 1, ligne + 1);
-    CellulePuissance4 fF = getCellule(colonne + 2, ligne + 2);
-    CellulePuissance4 gG = getCellule(colonne + 3, ligne + 3);
-    if (cellule == eE && cellule == fF && cellule == gG) return true;
-    if (cellule == cC && cellule == eE && cellule == fF) return true;
-    if (cellule == bB && cellule == cC && cellule == eE) return true;
-    if (cellule == aA && cellule == bB && cellule == cC) return true;
-
-    CellulePuissance4 aG = getCellule(colonne - 3, ligne + 3);
-    CellulePuissance4 bF = getCellule(colonne - 2, ligne + 2);
-    CellulePuissance4 cE = getCellule(colonne - 1, ligne + 1);
-    CellulePuissance4 eC = getCellule(colonne + 1, ligne - 1);
-    CellulePuissance4 fB = getCellule(colonne + 2, ligne - 2);
-    CellulePuissance4 gA = getCellule(colonne + 3, ligne - 3);
-    if (cellule == cE && cellule == bF && cellule == aG) return true;
-    if (cellule == eC && cellule == cE && cellule == bF) return true;
-    if (cellule == fB && cellule == eC && cellule == cE) return true;
-    return cellule == gA && cellule == fB && cellule == eC;
+    for (int direction = 0; direction < MasquesPuissance4.DIRECTIONS; ++direction) {
+      if ((masques.alignes(pions, direction) & bit) != 0) {
+        return true;
+      }
+    }
+
+    return false;
   }
 
   /**
    * Vérifie si le plateau actuel contient une situation victorieuse.
    *
+   * <p>Les alignements des deux couleurs sont recherchés en même temps, direction par direction,
+   * sur toute la grille.
+   *
    * @return la situation de victoire
    */
   public EtatPartie verifierVictoire() {
-    int victoiresRouges = 0;
-    int victoiresJaunes = 0;
-
-    iterations:
-    for (int colonne = 1; colonne <= longueur; ++colonne) {
-      for (int ligne = 1; ligne <= hauteur; ++ligne) {
-        CellulePuissance4 cellule = getCellule(colonne, ligne);
-        if (cellule == CellulePuissance4.VIDE
-            || (cellule == CellulePuissance4.ROUGE && victoiresRouges == 1)
-            || (cellule == CellulePuissance4.JAUNE && victoiresJaunes == 1)) {
-          continue;
-        }
+    boolean victoireRouge = false;
+    boolean victoireJaune = false;
 
-        boolean victoire = verifierCelluleVictorieuse(colonne, ligne);
-        if (victoire && cellule == CellulePuissance4.ROUGE) {
-          victoiresRouges = 1;
-        } else if (victoire && cellule == CellulePuissance4.JAUNE) {
-          victoiresJaunes = 1;
-        }
+    for (int direction = 0; direction < MasquesPuissance4.DIRECTIONS; ++direction) {
+      victoireRouge |= masques.alignes(rouges, direction) != 0;
+      victoireJaune |= masques.alignes(jaunes, direction) != 0;
 
-        // Early exit
-        if (victoiresRouges == 1 && victoiresJaunes == 1) {
-          break iterations;
-        }
+      // Early exit
+      if (victoireRouge && victoireJaune) {
+        return EtatPartie.MATCH_NUL;
       }
     }
 
-    if (victoiresRouges == 1 && victoiresJaunes == 1) {
-      return EtatPartie.MATCH_NUL;
-    } else if (victoiresRouges > victoiresJaunes) {
+    if (victoireRouge) {
       return EtatPartie.VICTOIRE_JOUEUR_1;
-    } else if (victoiresJaunes > victoiresRouges) {
+    } else if (victoireJaune) {
       return EtatPartie.VICTOIRE_JOUEUR_2;
     } else {
       return EtatPartie.EN_COURS;
     }
   }
 
+  /**
+   * Retourne les jetons rouges de la grille.
+   *
+   * @return le bitboard des jetons rouges
+   */
+  long getRouges() {
+    return rouges;
+  }
+
+  /**
+   * Retourne les jetons jaunes de la grille.
+   *
+   * @return le bitboard des jetons jaunes
+   */
+  long getJaunes() {
+    return jaunes;
+  }
+
+  /**
+   * Retourne le nombre de jetons d'une colonne.
+   *
+   * @param colonne la colonne, entre 1 et la longueur
+   * @return le nombre de jetons de la colonne
+   */
+  int getHauteurColonne(int colonne) {
+    return hauteurs[colonne - 1];
+  }
+
+  /**
+   * Retourne le joueur dont c'est le tour.
+   *
+   * @return le joueur qui doit jouer
+   */
+  public Joueurs getTrait() {
+    return trait;
+  }
+
+  /**
+   * Modifie le joueur dont c'est le tour.
+   *
+   * @param trait le joueur qui doit jouer
+   */
+  public void setTrait(Joueurs trait) {
+    if (this.trait != trait) {
+      this.trait = trait;
+      cleZobrist ^= CLE_TRAIT_JOUEUR_2;
+    }
+  }
+
+  /**
+   * Retourne le nombre de rotations qu'un joueur peut encore effectuer.
+   *
+   * @param joueur le joueur
+   * @return le nombre de rotations restantes
+   */
+  public int getRotationsRestantes(Joueurs joueur) {
+    return rotationsRestantes[joueur.ordinal()];
+  }
+
+  /**
+   * Modifie le nombre de rotations qu'un joueur peut encore effectuer.
+   *
+   * @param joueur le joueur
+   * @param rotations le nombre de rotations restantes, entre 0 et {@link #ROTATIONS_MAX}
+   */
+  public void setRotationsRestantes(Joueurs joueur, int rotations) {
+    if (rotations < 0 || rotations > ROTATIONS_MAX) {
+      throw new IllegalArgumentException(
+          "Le nombre de rotations " + rotations + " est invalide");
+    }
+
+    int indice = joueur.ordinal();
+    cleZobrist ^= CLES_ROTATIONS[indice][rotationsRestantes[indice]];
+    rotationsRestantes[indice] = rotations;
+    cleZobrist ^= CLES_ROTATIONS[indice][rotations];
+  }
+
+  /**
+   * Retourne la clé de Zobrist de la position, sur 64 bits.
+   *
+   * <p>La clé dépend des jetons de la grille, de ses dimensions, du joueur dont c'est le tour et
+   * des rotations restantes de chaque joueur. Deux positions égales ont toujours la même clé.
+   *
+   * @return la clé de la position
+   */
+  public long getCleZobrist() {
+    return cleZobrist;
+  }
+
+  /**
+   * Calcule entièrement la clé de Zobrist de la position.
+   *
+   * @return la clé de la position
+   */
+  private long calculerCleZobrist() {
+    long cle = CLES_LONGUEURS[longueur] ^ CLES_HAUTEURS[hauteur];
+    if (trait == Joueurs.JOUEUR_2) {
+      cle ^= CLE_TRAIT_JOUEUR_2;
+    }
+    for (int indice = 0; indice < rotationsRestantes.length; ++indice) {
+      cle ^= CLES_ROTATIONS[indice][rotationsRestantes[indice]];
+    }
+
+    for (long pions = rouges; pions != 0; pions &= pions - 1) {
+      cle ^= CLES_ROUGES[Long.numberOfTrailingZeros(pions)];
+    }
+    for (long pions = jaunes; pions != 0; pions &= pions - 1) {
+      cle ^= CLES_JAUNES[Long.numberOfTrailingZeros(pions)];
+    }
+
+    return cle;
+  }
+
+  /**
+   * Retourne les masques correspondant aux dimensions de la grille.
+   *
+   * @return les masques de la grille
+   */
+  MasquesPuissance4 getMasques() {
+    return masques;
+  }
+
+  /**
+   * Remplace toute la position par une position sauvegardée.
+   *
+   * @param rouges le bitboard des jetons rouges
+   * @param jaunes le bitboard des jetons jaunes
+   * @param longueur la longueur de la grille
+   * @param hauteur la hauteur de la grille
+   * @param trait le joueur dont c'est le tour
+   * @param rotationsJoueur1 les rotations restantes du premier joueur
+   * @param rotationsJoueur2 les rotations restantes du second joueur
+   * @param cleZobrist la clé de Zobrist de la position
+   */
+  void restaurer(
+      long rouges,
+      long jaunes,
+      int longueur,
+      int hauteur,
+      Joueurs trait,
+      int rotationsJoueur1,
+      int rotationsJoueur2,
+      long cleZobrist) {
+    this.rouges = rouges;
+    this.jaunes = jaunes;
+    this.trait = trait;
+    rotationsRestantes[Joueurs.JOUEUR_1.ordinal()] = rotationsJoueur1;
+    rotationsRestantes[Joueurs.JOUEUR_2.ordinal()] = rotationsJoueur2;
+    this.cleZobrist = cleZobrist;
+    if (this.longueur != longueur || this.hauteur != hauteur) {
+      this.longueur = longueur;
+      this.hauteur = hauteur;
+      this.masques = MasquesPuissance4.pour(longueur, hauteur);
+    }
+
+    for (int indice = 0; indice < longueur; ++indice) {
+      calculerHauteur(indice);
+    }
+  }
+
   /**
    * Créer une copie du plateau et de sa grille.
    *
@@ -344,17 +544,32 @@ public class PlateauPuissance4 implements Plateau {
    */
   public PlateauPuissance4 dupliquer() {
     PlateauPuissance4 copie = new PlateauPuissance4(longueur, hauteur);
-    for (int ligne = 1; ligne <= hauteur; ++ligne) {
-      for (int colonne = 1; colonne <= longueur; ++colonne) {
-        CellulePuissance4 cellule = getCellule(colonne, ligne);
-        if (cellule == CellulePuissance4.VIDE) {
-          continue;
-        }
-
-        copie.setCellule(colonne, ligne, cellule);
-      }
-    }
+    copie.rouges = rouges;
+    copie.jaunes = jaunes;
+    copie.trait = trait;
+    System.arraycopy(rotationsRestantes, 0, copie.rotationsRestantes, 0, 2);
+    copie.cleZobrist = cleZobrist;
+    System.arraycopy(hauteurs, 0, copie.hauteurs, 0, longueur);
+    return copie;
+  }
 
+  /**
+   * Créer une copie du plateau vue par l'autre joueur : les couleurs des jetons, le trait et les
+   * rotations restantes des deux joueurs sont échangés.
+   *
+   * <p>Un coup a le même effet sur les deux plateaux, ce qui permet à une stratégie ne sachant
+   * jouer que le jaune de jouer le rouge.
+   *
+   * @return la copie inversée
+   */
+  public PlateauPuissance4 inverser() {
+    PlateauPuissance4 copie = dupliquer();
+    copie.rouges = jaunes;
+    copie.jaunes = rouges;
+    copie.trait = trait == Joueurs.JOUEUR_1 ? Joueurs.JOUEUR_2 : Joueurs.JOUEUR_1;
+    copie.rotationsRestantes[0] = rotationsRestantes[1];
+    copie.rotationsRestantes[1] = rotationsRestantes[0];
+    copie.cleZobrist = copie.calculerCleZobrist();
     return copie;
   }
 }
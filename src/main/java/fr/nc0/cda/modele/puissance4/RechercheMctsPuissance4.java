@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.puissance4;
+
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Joueurs;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Recherche du meilleur coup au Puissance 4 par la méthode de Monte-Carlo (MCTS), avec la formule
+ * UCT pour choisir les coups à explorer.
+ *
+ * <p>Chaque thread construit son propre arbre depuis la position à explorer, en jouant des parties
+ * aléatoires avec son propre générateur. Les visites des coups de la racine sont ensuite
+ * additionnées entre les arbres, et le coup le plus visité est retenu.
+ *
+ * <p>Les insertions et les rotations sont explorées, dans la limite des rotations restantes de
+ * chaque joueur dans la position.
+ */
+public class RechercheMctsPuissance4 {
+  /** Constante d'exploration de la formule UCT */
+  private static final double EXPLORATION = Math.sqrt(2);
+
+  /** Capacité initiale d'un arbre, en nœuds */
+  private static final int CAPACITE_INITIALE = 1 << 12;
+
+  /** Les threads de la recherche */
+  private final ExecutorService threads;
+
+  /** Le nombre de threads de la recherche */
+  private final int nombreThreads;
+
+  /** Générateur à partir duquel sont créés ceux des threads */
+  private final SplittableRandom aleatoire;
+
+  /**
+   * Créer une recherche.
+   *
+   * @param nombreThreads le nombre de threads jouant des parties aléatoires en même temps
+   * @param graine la graine des générateurs aléatoires
+   */
+  public RechercheMctsPuissance4(int nombreThreads, long graine) {
+    if (nombreThreads < 1) {
+      throw new IllegalArgumentException("Le nombre de threads " + nombreThreads + " est invalide");
+    }
+
+    this.nombreThreads = nombreThreads;
+    this.aleatoire = new SplittableRandom(graine);
+    this.threads =
+        Executors.newFixedThreadPool(
+            nombreThreads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "mcts-puissance4");
+              // Les threads ne doivent pas empêcher l'application de s'arrêter.
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Cherche le meilleur coup pour le joueur dont c'est le tour.
+   *
+   * @param position la position à explorer, qui n'est pas modifiée
+   * @param budget le temps de recherche, en millisecondes
+   * @param noeudsMax le nombre maximal de nœuds de tous les arbres, ou 0 pour ne pas en limiter
+   *     le nombre
+   * @return le meilleur coup, ou null si aucun coup n'est possible
+   */
+  public ChoixPuissance4 chercher(PlateauPuissance4 position, long budget, long noeudsMax) {
+    return chercher(position, budget, noeudsMax, () -> false);
+  }
+
+  /**
+   * Cherche le meilleur coup pour le joueur dont c'est le tour, en s'arrêtant plus tôt à la
+   * demande.
+   *
+   * @param position la position à explorer, qui n'est pas modifiée
+   * @param budget le temps de recherche, en millisecondes
+   * @param noeudsMax le nombre maximal de nœuds de tous les arbres, ou 0 pour ne pas en limiter
+   *     le nombre
+   * @param arret retourne true lorsque la recherche doit s'arrêter
+   * @return le coup le plus visité jusque-là, ou null si aucun coup n'est possible
+   */
+  public synchronized ChoixPuissance4 chercher(
+      PlateauPuissance4 position, long budget, long noeudsMax, BooleanSupplier arret) {
+    long echeance = System.nanoTime() + budget * 1_000_000;
+    int capacite =
+        noeudsMax <= 0 ? Integer.MAX_VALUE : (int) Math.max(2, noeudsMax / nombreThreads);
+
+    List<Future<Arbre>> arbres = new ArrayList<>(nombreThreads);
+    for (int i = 0; i < nombreThreads; ++i) {
+      Arbre arbre = new Arbre(position, capacite, aleatoire.split());
+      arbres.add(threads.submit(() -> arbre.explorer(echeance, arret)));
+    }
+
+    // Visites de chaque coup de la racine, additionnées entre les arbres.
+    long[] visites = new long[MoteurPuissance4.ROTATION_ANTI_HORAIRE + 1];
+    for (Future<Arbre> future : arbres) {
+      Arbre arbre;
+      try {
+        arbre = future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("La recherche MCTS a échoué", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+
+      for (int enfant = arbre.premierEnfant[0];
+          enfant < arbre.premierEnfant[0] + arbre.nombreEnfants[0];
+          ++enfant) {
+        visites[arbre.coups[enfant]] += arbre.visites[enfant];
+      }
+    }
+
+    int meilleurCoup = 0;
+    for (int coup = 1; coup < visites.length; ++coup) {
+      if (visites[coup] > visites[meilleurCoup]) {
+        meilleurCoup = coup;
+      }
+    }
+
+    return meilleurCoup == 0 ? null : MoteurPuissance4.choix(meilleurCoup);
+  }
+
+  /** Arrête les threads de la recherche, qui ne peut plus être utilisée. */
+  public void fermer() {
+    threads.shutdownNow();
+  }
+
+  /**
+   * Arbre de recherche d'un thread, dont les nœuds sont rangés dans des tableaux.
+   *
+   * <p>Les enfants d'un nœud sont contigus. La racine est le nœud 0.
+   */
+  private static final class Arbre {
+    /** La partie explorée, dont les coups sont joués puis annulés */
+    private final JeuPuissance4 jeu;
+
+    /** Le plateau de la partie explorée */
+    private final PlateauPuissance4 plateau;
+
+    /** Le générateur aléatoire du thread */
+    private final SplittableRandom aleatoire;
+
+    /** Le nombre maximal de nœuds de l'arbre */
+    private final int capacite;
+
+    /** Le code du coup menant à chaque nœud */
+    private int[] coups = new int[CAPACITE_INITIALE];
+
+    /** Le joueur ayant joué le coup menant à chaque nœud */
+    private byte[] joueurs = new byte[CAPACITE_INITIALE];
+
+    /** Le premier enfant de chaque nœud */
+    private int[] premierEnfant = new int[CAPACITE_INITIALE];
+
+    /** Le nombre d'enfants de chaque nœud, -1 si le nœud n'a pas encore été développé */
+    private int[] nombreEnfants = new int[CAPACITE_INITIALE];
+
+    /** Le nombre de parties jouées depuis chaque nœud */
+    private int[] visites = new int[CAPACITE_INITIALE];
+
+    /** La somme des résultats des parties jouées depuis chaque nœud, pour le joueur du nœud */
+    private double[] gains = new double[CAPACITE_INITIALE];
+
+    /** Le nombre de nœuds de l'arbre */
+    private int taille = 0;
+
+    /** True lorsque l'arbre a atteint sa capacité et ne peut plus être développé */
+    private boolean plein = false;
+
+    /** Les nœuds parcourus lors de l'itération en cours */
+    private int[] chemin = new int[CAPACITE_INITIALE];
+
+    /** Les coups possibles de la position courante */
+    private final int[] coupsPossibles = new int[PlateauPuissance4.CELLULES_MAX + 2];
+
+    private Arbre(PlateauPuissance4 position, int capacite, SplittableRandom aleatoire) {
+      this.plateau = position.dupliquer();
+      this.jeu = new JeuPuissance4(plateau);
+      this.capacite = capacite;
+      this.aleatoire = aleatoire;
+      ajouterNoeud(0, plateau.getTrait() == Joueurs.JOUEUR_1 ? Joueurs.JOUEUR_2 : Joueurs.JOUEUR_1);
+    }
+
+    /**
+     * Joue des parties aléatoires jusqu'à l'échéance ou jusqu'à ce que l'arbre soit plein.
+     *
+     * @param echeance l'instant, selon {@link System#nanoTime()}, auquel s'arrêter
+     * @param arret retourne true lorsque l'exploration doit s'arrêter avant l'échéance
+     * @return cet arbre
+     */
+    private Arbre explorer(long echeance, BooleanSupplier arret) {
+      if (jeu.getEtatPartie() != EtatPartie.EN_COURS) {
+        return this;
+      }
+
+      // Au moins une itération, pour que la racine ait des enfants.
+      do {
+        iterer();
+      } while (!plein && System.nanoTime() < echeance && !arret.getAsBoolean());
+
+      return this;
+    }
+
+    /** Sélectionne un nœud, le développe, joue une partie aléatoire et remonte son résultat. */
+    private void iterer() {
+      int jetonRacine = -1;
+      int noeud = 0;
+      int profondeur = 0;
+      chemin[0] = 0;
+
+      // Sélection
+      while (nombreEnfants[noeud] > 0 && jeu.getEtatPartie() == EtatPartie.EN_COURS) {
+        noeud = selectionner(noeud);
+        int jeton = jouer(coups[noeud]);
+        jetonRacine = jetonRacine < 0 ? jeton : jetonRacine;
+        chemin = agrandir(chemin, profondeur + 1);
+        chemin[++profondeur] = noeud;
+      }
+
+      // Développement
+      if (nombreEnfants[noeud] < 0 && jeu.getEtatPartie() == EtatPartie.EN_COURS) {
+        int nombre = genererCoups();
+        plein = taille + nombre > capacite;
+        if (!plein) {
+          Joueurs joueur = plateau.getTrait();
+          premierEnfant[noeud] = taille;
+          nombreEnfants[noeud] = nombre;
+          for (int i = 0; i < nombre; ++i) {
+            ajouterNoeud(coupsPossibles[i], joueur);
+          }
+
+          noeud = premierEnfant[noeud] + aleatoire.nextInt(nombre);
+          int jeton = jouer(coups[noeud]);
+          jetonRacine = jetonRacine < 0 ? jeton : jetonRacine;
+          chemin = agrandir(chemin, profondeur + 1);
+          chemin[++profondeur] = noeud;
+        }
+      }
+
+      // Simulation
+      while (jeu.getEtatPartie() == EtatPartie.EN_COURS) {
+        int nombre = genererCoups();
+        int jeton = jouer(coupsPossibles[aleatoire.nextInt(nombre)]);
+        jetonRacine = jetonRacine < 0 ? jeton : jetonRacine;
+      }
+
+      // Rétropropagation
+      EtatPartie resultat = jeu.getEtatPartie();
+      for (int i = 0; i <= profondeur; ++i) {
+        int n = chemin[i];
+        ++visites[n];
+        if (resultat == EtatPartie.MATCH_NUL) {
+          gains[n] += 0.5;
+        } else if ((resultat == EtatPartie.VICTOIRE_JOUEUR_1) == (joueurs[n] == 0)) {
+          gains[n] += 1;
+        }
+      }
+
+      if (jetonRacine >= 0) {
+        jeu.annuler(jetonRacine);
+      }
+    }
+
+    /**
+     * Choisit l'enfant d'un nœud à explorer selon la formule UCT, les enfants jamais visités étant
+     * choisis en premier.
+     *
+     * @param noeud le nœud
+     * @return l'enfant choisi
+     */
+    private int selectionner(int noeud) {
+      double logVisites = Math.log(visites[noeud]);
+      int meilleur = premierEnfant[noeud];
+      double meilleureValeur = Double.NEGATIVE_INFINITY;
+
+      for (int enfant = premierEnfant[noeud];
+          enfant < premierEnfant[noeud] + nombreEnfants[noeud];
+          ++enfant) {
+        if (visites[enfant] == 0) {
+          return enfant;
+        }
+
+        double valeur =
+            gains[enfant] / visites[enfant]
+                + EXPLORATION * Math.sqrt(logVisites / visites[enfant]);
+        if (valeur > meilleureValeur) {
+          meilleureValeur = valeur;
+          meilleur = enfant;
+        }
+      }
+
+      return meilleur;
+    }
+
+    /**
+     * Génère les coups possibles de la position courante.
+     *
+     * @return le nombre de coups, rangés dans {@link #coupsPossibles}
+     */
+    private int genererCoups() {
+      int nombre = 0;
+      for (int colonne = 1; colonne <= plateau.getLongueur(); ++colonne) {
+        if (!plateau.verifierColonnePleine(colonne)) {
+          coupsPossibles[nombre++] = colonne;
+        }
+      }
+
+      if (plateau.getRotationsRestantes(plateau.getTrait()) > 0) {
+        coupsPossibles[nombre++] = MoteurPuissance4.ROTATION_HORAIRE;
+        coupsPossibles[nombre++] = MoteurPuissance4.ROTATION_ANTI_HORAIRE;
+      }
+
+      return nombre;
+    }
+
+    /**
+     * Joue un coup de façon annulable pour le joueur dont c'est le tour.
+     *
+     * @param coup le code du coup
+     * @return le jeton d'annulation
+     */
+    private int jouer(int coup) {
+      try {
+        return jeu.jouerAnnulable(plateau.getTrait(), MoteurPuissance4.choix(coup));
+      } catch (CoupInvalideException | EtatPartieException e) {
+        // Seuls les coups générés pour la position courante sont joués.
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /**
+     * Ajoute un nœud non développé à l'arbre.
+     *
+     * @param coup le code du coup menant au nœud
+     * @param joueur le joueur ayant joué le coup
+     */
+    private void ajouterNoeud(int coup, Joueurs joueur) {
+      if (taille == coups.length) {
+        int nouvelleCapacite = 2 * taille;
+        coups = Arrays.copyOf(coups, nouvelleCapacite);
+        joueurs = Arrays.copyOf(joueurs, nouvelleCapacite);
+        premierEnfant = Arrays.copyOf(premierEnfant, nouvelleCapacite);
+        nombreEnfants = Arrays.copyOf(nombreEnfants, nouvelleCapacite);
+        visites = Arrays.copyOf(visites, nouvelleCapacite);
+        gains = Arrays.copyOf(gains, nouvelleCapacite);
+      }
+
+      coups[taille] = coup;
+      joueurs[taille] = (byte) joueur.ordinal();
+      nombreEnfants[taille] = -1;
+      ++taille;
+    }
+
+    /**
+     * Agrandit un tableau si besoin pour qu'il contienne l'indice demandé.
+     *
+     * @param tableau le tableau
+     * @param indice l'indice
+     * @return le tableau, éventuellement agrandi
+     */
+    private static int[] agrandir(int[] tableau, int indice) {
+      return indice < tableau.length ? tableau : Arrays.copyOf(tableau, 2 * tableau.length);
+    }
+  }
+}
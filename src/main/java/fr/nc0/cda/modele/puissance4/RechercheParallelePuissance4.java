@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.puissance4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Recherche parallèle du meilleur coup au Puissance 4, selon la méthode « Lazy SMP ».
+ *
+ * <p>Plusieurs {@link MoteurPuissance4} explorent la même position en même temps, chacun dans son
+ * thread, en partageant une seule {@link TableTranspositionPuissance4}. Les positions évaluées par
+ * un moteur profitent ainsi aux autres. Le coup retenu est celui du moteur principal, qui tourne
+ * dans le thread appelant.
+ */
+public class RechercheParallelePuissance4 {
+  /** La table partagée par tous les moteurs */
+  private final TableTranspositionPuissance4 table;
+
+  /** Les moteurs, le premier étant le moteur principal */
+  private final MoteurPuissance4[] moteurs;
+
+  /** Les threads des moteurs secondaires */
+  private final ExecutorService threads;
+
+  /** True lorsque les moteurs secondaires doivent s'arrêter */
+  private volatile boolean arret;
+
+  /**
+   * Créer une recherche parallèle.
+   *
+   * @param nombreThreads le nombre de moteurs cherchant en même temps, au moins 1
+   * @param tableBits le logarithme en base 2 du nombre d'entrées de la table partagée
+   */
+  public RechercheParallelePuissance4(int nombreThreads, int tableBits) {
+    if (nombreThreads < 1) {
+      throw new IllegalArgumentException("Le nombre de threads " + nombreThreads + " est invalide");
+    }
+
+    table = new TableTranspositionPuissance4(tableBits);
+    moteurs = new MoteurPuissance4[nombreThreads];
+    for (int i = 0; i < nombreThreads; ++i) {
+      moteurs[i] = new MoteurPuissance4(table, i);
+    }
+
+    threads =
+        nombreThreads == 1
+            ? null
+            : Executors.newFixedThreadPool(
+                nombreThreads - 1,
+                runnable -> {
+                  Thread thread = new Thread(runnable, "recherche-puissance4");
+                  // Les threads ne doivent pas empêcher l'application de s'arrêter.
+                  thread.setDaemon(true);
+                  return thread;
+                });
+  }
+
+  /**
+   * Retourne le nombre de moteurs cherchant en même temps.
+   *
+   * @return le nombre de threads
+   */
+  public int getNombreThreads() {
+    return moteurs.length;
+  }
+
+  /**
+   * Retourne le nombre total de nœuds visités par tous les moteurs.
+   *
+   * @return le nombre de nœuds
+   */
+  public long getNoeuds() {
+    long noeuds = 0;
+    for (MoteurPuissance4 moteur : moteurs) {
+      noeuds += moteur.getNoeuds();
+    }
+
+    return noeuds;
+  }
+
+  /**
+   * Cherche le meilleur coup pour le joueur dont c'est le tour, avec tous les moteurs.
+   *
+   * @param position la position à explorer, qui n'est pas modifiée
+   * @param budget le temps de recherche, en millisecondes
+   * @return le meilleur coup, ou null si aucun coup n'est possible
+   */
+  public ChoixPuissance4 chercher(PlateauPuissance4 position, long budget) {
+    return chercher(position, budget, () -> false);
+  }
+
+  /**
+   * Cherche le meilleur coup pour le joueur dont c'est le tour, avec tous les moteurs, en
+   * s'arrêtant plus tôt à la demande.
+   *
+   * @param position la position à explorer, qui n'est pas modifiée
+   * @param budget le temps de recherche, en millisecondes
+   * @param arretDemande retourne true lorsque la recherche doit s'arrêter
+   * @return le meilleur coup de la dernière profondeur terminée, ou null si aucun coup n'est
+   *     possible
+   */
+  public synchronized ChoixPuissance4 chercher(
+      PlateauPuissance4 position, long budget, BooleanSupplier arretDemande) {
+    arret = false;
+
+    List<Future<ChoixPuissance4>> secondaires = new ArrayList<>(moteurs.length - 1);
+    for (int i = 1; i < moteurs.length; ++i) {
+      MoteurPuissance4 moteur = moteurs[i];
+      secondaires.add(
+          threads.submit(
+              () -> moteur.chercher(position, budget, () -> arret || arretDemande.getAsBoolean())));
+    }
+
+    ChoixPuissance4 choix;
+    try {
+      choix = moteurs[0].chercher(position, budget, arretDemande);
+    } finally {
+      arret = true;
+      for (Future<ChoixPuissance4> secondaire : secondaires) {
+        try {
+          secondaire.get();
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("La recherche parallèle a échoué", e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    return choix;
+  }
+
+  /**
+   * Mesure le nombre de nœuds visités par seconde selon le nombre de threads, de 1 jusqu'au nombre
+   * maximal demandé.
+   *
+   * @param position la position à explorer
+   * @param threadsMax le nombre maximal de threads
+   * @param budget le temps de recherche de chaque mesure, en millisecondes
+   * @param tableBits le logarithme en base 2 du nombre d'entrées de la table
+   * @return le nombre de nœuds par seconde, indexé par le nombre de threads moins un
+   */
+  public static double[] mesurerDebit(
+      PlateauPuissance4 position, int threadsMax, long budget, int tableBits) {
+    double[] debits = new double[threadsMax];
+    for (int nombreThreads = 1; nombreThreads <= threadsMax; ++nombreThreads) {
+      RechercheParallelePuissance4 recherche =
+          new RechercheParallelePuissance4(nombreThreads, tableBits);
+      long debut = System.nanoTime();
+      recherche.chercher(position, budget);
+      double secondes = (System.nanoTime() - debut) / 1e9;
+      debits[nombreThreads - 1] = recherche.getNoeuds() / secondes;
+      recherche.fermer();
+    }
+
+    return debits;
+  }
+
+  /** Arrête les threads de la recherche, qui ne peut plus être utilisée. */
+  public void fermer() {
+    if (threads != null) {
+      threads.shutdownNow();
+    }
+  }
+}
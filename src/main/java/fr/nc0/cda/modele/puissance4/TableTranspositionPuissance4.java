@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.modele.puissance4;
+
+import java.util.Arrays;
+
+/**
+ * Table de transposition de taille fixe, indexée par la clé de Zobrist des positions.
+ *
+ * <p>Chaque entrée retient le score d'une position, la profondeur à laquelle il a été calculé, sa
+ * nature (exact ou borne) et le meilleur coup trouvé, le tout dans un seul {@code long}.
+ *
+ * <p>La table peut être partagée sans verrou entre plusieurs threads : la clé est retenue combinée
+ * par XOR avec les données, si bien qu'une entrée dont la clé et les données ont été écrites par
+ * deux threads différents n'est jamais reconnue lors d'une lecture.
+ */
+public final class TableTranspositionPuissance4 {
+  /** Valeur retournée lorsque la position n'est pas dans la table */
+  public static final long ABSENTE = 0;
+
+  /** Le score est exact */
+  public static final int EXACT = 0;
+
+  /** Le score est une borne inférieure du score réel */
+  public static final int BORNE_INFERIEURE = 1;
+
+  /** Le score est une borne supérieure du score réel */
+  public static final int BORNE_SUPERIEURE = 2;
+
+  /** Bit indiquant qu'une entrée est présente */
+  private static final long PRESENTE = 1L << 63;
+
+  /** Les clés des positions retenues, combinées avec leurs données */
+  private final long[] cles;
+
+  /** Les données des positions retenues */
+  private final long[] donnees;
+
+  /** Masque donnant l'indice d'une clé dans la table */
+  private final int masque;
+
+  /**
+   * Créer une table vide.
+   *
+   * @param bits le logarithme en base 2 du nombre d'entrées, entre 1 et 30
+   */
+  public TableTranspositionPuissance4(int bits) {
+    if (bits < 1 || bits > 30) {
+      throw new IllegalArgumentException("La taille de table " + bits + " est invalide");
+    }
+
+    cles = new long[1 << bits];
+    donnees = new long[1 << bits];
+    masque = (1 << bits) - 1;
+  }
+
+  /**
+   * Cherche une position dans la table.
+   *
+   * @param cle la clé de Zobrist de la position
+   * @return les données de la position, ou {@link #ABSENTE}
+   */
+  public long lire(long cle) {
+    int indice = (int) cle & masque;
+    long donnee = donnees[indice];
+    return (cles[indice] ^ donnee) == cle ? donnee : ABSENTE;
+  }
+
+  /**
+   * Retient une position, en remplaçant l'entrée existante sauf si elle concerne la même position
+   * à une profondeur supérieure.
+   *
+   * @param cle la clé de Zobrist de la position
+   * @param profondeur la profondeur de la recherche, entre 0 et 255
+   * @param score le score de la position
+   * @param type la nature du score
+   * @param coup le meilleur coup trouvé, entre 0 et 255
+   */
+  public void ecrire(long cle, int profondeur, int score, int type, int coup) {
+    int indice = (int) cle & masque;
+    long existante = donnees[indice];
+    if ((cles[indice] ^ existante) == cle && profondeur(existante) > profondeur) {
+      return;
+    }
+
+    long donnee =
+        PRESENTE
+            | (score & 0xFFFF_FFFFL)
+            | (long) profondeur << 32
+            | (long) type << 40
+            | (long) coup << 42;
+    cles[indice] = cle ^ donnee;
+    donnees[indice] = donnee;
+  }
+
+  /** Vide la table. */
+  public void vider() {
+    Arrays.fill(cles, 0);
+    Arrays.fill(donnees, 0);
+  }
+
+  /**
+   * Retourne le score d'une entrée.
+   *
+   * @param donnees les données lues
+   * @return le score
+   */
+  public static int score(long donnees) {
+    return (int) donnees;
+  }
+
+  /**
+   * Retourne la profondeur d'une entrée.
+   *
+   * @param donnees les données lues
+   * @return la profondeur
+   */
+  public static int profondeur(long donnees) {
+    return (int) (donnees >>> 32) & 0xFF;
+  }
+
+  /**
+   * Retourne la nature du score d'une entrée.
+   *
+   * @param donnees les données lues
+   * @return {@link #EXACT}, {@link #BORNE_INFERIEURE} ou {@link #BORNE_SUPERIEURE}
+   */
+  public static int type(long donnees) {
+    return (int) (donnees >>> 40) & 0x3;
+  }
+
+  /**
+   * Retourne le meilleur coup d'une entrée.
+   *
+   * @param donnees les données lues
+   * @return le coup
+   */
+  public static int coup(long donnees) {
+    return (int) (donnees >>> 42) & 0xFF;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.serveur;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Jeu;
+import fr.nc0.cda.modele.jeu.Joueurs;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.joueur.Joueur;
+import fr.nc0.cda.modele.joueur.Strategie;
+
+/**
+ * Une partie d'une session du serveur, entre le client, joueur 1, et une AI, joueur 2.
+ *
+ * <p>Une partie traduit les coups du protocole en choix du modèle, et le plateau en une ligne du
+ * protocole.
+ *
+ * @param <P> le plateau du jeu
+ * @param <C> les choix du jeu
+ */
+abstract class Partie<P extends Plateau, C extends Choix> {
+  /** La partie du modèle */
+  final Jeu<P, C> jeu;
+
+  /** L'AI */
+  private final Joueur ai;
+
+  /**
+   * Créer une partie.
+   *
+   * @param jeu la partie du modèle
+   * @param strategie la stratégie de l'AI
+   */
+  Partie(Jeu<P, C> jeu, Strategie strategie) {
+    this.jeu = jeu;
+    this.ai = new Joueur(Joueur.NOM_AI);
+    ai.setStrategie(strategie);
+  }
+
+  /**
+   * Lit un coup du client.
+   *
+   * @param mots la commande du client, découpée en mots
+   * @return le choix correspondant
+   * @throws IllegalArgumentException si la commande n'est pas un coup de ce jeu
+   */
+  abstract C lire(String[] mots);
+
+  /**
+   * Décrit un coup dans le protocole, sous la forme de la commande qui le joue, lue par {@link
+   * #lire}.
+   *
+   * @param choix le coup
+   * @return la description
+   */
+  abstract String decrire(C choix);
+
+  /**
+   * Décrit le plateau dans le protocole, sur une ligne.
+   *
+   * @return la description
+   */
+  abstract String decrirePlateau();
+
+  /**
+   * Donne le plateau à l'AI : une copie si ses stratégies modifient le plateau.
+   *
+   * @return le plateau de l'AI
+   */
+  abstract P plateauAi();
+
+  /**
+   * Joue un coup du client.
+   *
+   * @param choix le coup
+   * @throws CoupInvalideException si le coup est invalide, la partie restant alors inchangée
+   */
+  void jouerClient(C choix) throws CoupInvalideException, EtatPartieException {
+    jeu.jouer(Joueurs.JOUEUR_1, choix);
+  }
+
+  /**
+   * Cherche le coup de l'AI, sans le jouer. Peut prendre du temps.
+   *
+   * @return le coup de l'AI
+   */
+  @SuppressWarnings("unchecked")
+  C chercherAi() {
+    return (C) ai.getStrategie().jouer(null, plateauAi(), ai);
+  }
+
+  /**
+   * Joue un coup de l'AI.
+   *
+   * @param choix le coup
+   * @throws CoupInvalideException si le coup est invalide, la partie restant alors inchangée
+   */
+  void jouerAi(C choix) throws CoupInvalideException, EtatPartieException {
+    jeu.jouer(Joueurs.JOUEUR_2, choix);
+  }
+
+  /** Ferme la stratégie de l'AI, la partie étant finie ou abandonnée. */
+  void fermer() {
+    ai.getStrategie().fermer();
+  }
+
+  /**
+   * Retourne l'état de la partie.
+   *
+   * @return l'état de la partie
+   */
+  EtatPartie getEtatPartie() {
+    return jeu.getEtatPartie();
+  }
+}
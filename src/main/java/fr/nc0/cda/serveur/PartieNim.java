@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.serveur;
+
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.nim.ChoixNim;
+import fr.nc0.cda.modele.nim.JeuNim;
+import fr.nc0.cda.modele.nim.PlateauNim;
+
+/**
+ * Une partie de Nim du serveur.
+ *
+ * <p>Un coup s'écrit {@code JOUER <tas> <allumettes>} et le plateau {@code TAS <allumettes du tas
+ * 1> <allumettes du tas 2> ...}.
+ */
+final class PartieNim extends Partie<PlateauNim, ChoixNim> {
+  /**
+   * Créer une partie.
+   *
+   * @param jeu la partie du modèle
+   * @param strategie la stratégie de l'AI
+   */
+  PartieNim(JeuNim jeu, Strategie strategie) {
+    super(jeu, strategie);
+  }
+
+  @Override
+  ChoixNim lire(String[] mots) {
+    if (mots.length != 3 || !mots[0].equalsIgnoreCase("JOUER")) {
+      throw new IllegalArgumentException("Coup attendu : JOUER <tas> <allumettes>");
+    }
+
+    return new ChoixNim(Integer.parseInt(mots[1]), Long.parseLong(mots[2]));
+  }
+
+  @Override
+  String decrire(ChoixNim choix) {
+    return "JOUER " + choix.getTas() + " " + choix.getAllumettesExactes();
+  }
+
+  @Override
+  String decrirePlateau() {
+    PlateauNim plateau = jeu.getPlateau();
+    StringBuilder ligne = new StringBuilder("TAS");
+    for (int tas = 1; tas <= plateau.getTaille(); ++tas) {
+      ligne.append(' ').append(plateau.getAllumettesRestantesExactes(tas));
+    }
+
+    return ligne.toString();
+  }
+
+  @Override
+  PlateauNim plateauAi() {
+    // Les stratégies du Nim lisent le plateau sans le modifier, et la session attend l'AI.
+    return jeu.getPlateau();
+  }
+}
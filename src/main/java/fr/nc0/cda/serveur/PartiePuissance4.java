@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.serveur;
+
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Joueurs;
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.puissance4.ChoixPuissance4;
+import fr.nc0.cda.modele.puissance4.CoupPuissance4;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import fr.nc0.cda.modele.puissance4.PlateauPuissance4;
+import fr.nc0.cda.modele.puissance4.RotationPuissance4;
+
+/**
+ * Une partie de Puissance 4 du serveur. Le client joue le rouge, l'AI le jaune.
+ *
+ * <p>Un coup s'écrit {@code JOUER <colonne>} ou {@code ROTATION <HORAIRE|ANTI_HORAIRE>}. Le plateau
+ * s'écrit {@code GRILLE <ligne> ... <ligne> <rotations du client> <rotations de l'AI>}, les lignes
+ * allant du haut vers le bas, chaque cellule étant {@code R}, {@code J} ou {@code .}.
+ */
+final class PartiePuissance4 extends Partie<PlateauPuissance4, ChoixPuissance4> {
+  /** True si les rotations sont permises */
+  private final boolean rotationsActivees;
+
+  /**
+   * Créer une partie.
+   *
+   * @param jeu la partie du modèle
+   * @param strategie la stratégie de l'AI
+   */
+  PartiePuissance4(JeuPuissance4 jeu, Strategie strategie) {
+    super(jeu, strategie);
+    PlateauPuissance4 plateau = jeu.getPlateau();
+    rotationsActivees =
+        plateau.getRotationsRestantes(Joueurs.JOUEUR_1) > 0
+            || plateau.getRotationsRestantes(Joueurs.JOUEUR_2) > 0;
+  }
+
+  @Override
+  ChoixPuissance4 lire(String[] mots) {
+    if (mots.length == 2 && mots[0].equalsIgnoreCase("JOUER")) {
+      return new ChoixPuissance4(CoupPuissance4.INSERTION, null, Integer.parseInt(mots[1]));
+    }
+    if (mots.length == 2 && mots[0].equalsIgnoreCase("ROTATION")) {
+      RotationPuissance4 sens = RotationPuissance4.valueOf(mots[1].toUpperCase());
+      return new ChoixPuissance4(CoupPuissance4.ROTATION, sens, 0);
+    }
+
+    throw new IllegalArgumentException(
+        "Coup attendu : JOUER <colonne> ou ROTATION <HORAIRE|ANTI_HORAIRE>");
+  }
+
+  @Override
+  String decrire(ChoixPuissance4 choix) {
+    if (choix.getCoup() == CoupPuissance4.ROTATION) {
+      return "ROTATION " + choix.getRotation();
+    }
+
+    return "JOUER " + choix.getColonne();
+  }
+
+  @Override
+  String decrirePlateau() {
+    PlateauPuissance4 plateau = jeu.getPlateau();
+    StringBuilder ligne = new StringBuilder("GRILLE");
+    for (int rang = 1; rang <= plateau.getHauteur(); ++rang) {
+      ligne.append(' ');
+      for (int colonne = 1; colonne <= plateau.getLongueur(); ++colonne) {
+        ligne.append(
+            switch (plateau.getCellule(colonne, rang)) {
+              case ROUGE -> 'R';
+              case JAUNE -> 'J';
+              case VIDE -> '.';
+            });
+      }
+    }
+    ligne.append(' ').append(plateau.getRotationsRestantes(Joueurs.JOUEUR_1));
+    ligne.append(' ').append(plateau.getRotationsRestantes(Joueurs.JOUEUR_2));
+
+    return ligne.toString();
+  }
+
+  @Override
+  PlateauPuissance4 plateauAi() {
+    return jeu.getPlateau().dupliquer();
+  }
+
+  @Override
+  void jouerClient(ChoixPuissance4 choix) throws CoupInvalideException, EtatPartieException {
+    // Les rotations restantes sont vérifiées et décomptées par la partie.
+    if (choix.getCoup() == CoupPuissance4.ROTATION && !rotationsActivees) {
+      throw new CoupInvalideException("Les rotations ne sont pas autorisées cette partie.");
+    }
+
+    super.jouerClient(choix);
+  }
+}
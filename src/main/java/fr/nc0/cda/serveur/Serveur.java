@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.serveur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serveur de parties de Nim et de Puissance 4 contre l'AI, sur un protocole en lignes de texte
+ * décrit par {@link Session}.
+ *
+ * <p>Chaque connexion est servie par son propre thread, virtuel lorsque la JVM en propose (Java 21
+ * et plus) : des milliers de sessions peuvent attendre leurs clients sans occuper autant de threads
+ * du système. Les coups des AI, qui occupent le processeur, sont cherchés par un nombre borné de
+ * threads partagés entre les sessions, afin de ne jamais priver les connexions de processeur.
+ */
+public class Serveur implements Closeable {
+  /** Le port par défaut du serveur */
+  public static final int PORT_DEFAUT = 4444;
+
+  /** Le délai d'inactivité d'un client au-delà duquel sa session est fermée, en millisecondes */
+  private static final int DELAI_INACTIVITE = 10 * 60 * 1000;
+
+  /** La socket d'écoute */
+  private final ServerSocket ecoute;
+
+  /** L'exécuteur des sessions, un thread par connexion */
+  private final ExecutorService sessions;
+
+  /** True si les sessions tournent sur des threads virtuels */
+  private final boolean threadsVirtuels;
+
+  /** L'exécuteur des AI, au nombre de threads borné */
+  private final ExecutorService ai;
+
+  /** Les connexions ouvertes, fermées à l'arrêt du serveur */
+  private final Set<Socket> connexions = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Créer un serveur écoutant sur l'interface locale.
+   *
+   * @param port le port d'écoute, ou 0 pour un port libre
+   * @param threadsAi le nombre de threads cherchant les coups des AI
+   * @throws IOException si le port ne peut pas être ouvert
+   */
+  public Serveur(int port, int threadsAi) throws IOException {
+    if (threadsAi < 1) {
+      throw new IllegalArgumentException("Nombre de threads invalide : " + threadsAi);
+    }
+
+    ecoute = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    ai = Executors.newFixedThreadPool(threadsAi);
+
+    ExecutorService virtuels = creerExecuteurVirtuel();
+    threadsVirtuels = virtuels != null;
+    sessions = threadsVirtuels ? virtuels : Executors.newCachedThreadPool();
+  }
+
+  /**
+   * Créer un exécuteur lançant un thread virtuel par tâche, si la JVM en propose.
+   *
+   * <p>L'exécuteur est cherché par réflexion, l'application devant aussi tourner sur Java 17.
+   *
+   * @return l'exécuteur, ou null si la JVM n'a pas de threads virtuels
+   */
+  private static ExecutorService creerExecuteurVirtuel() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Retourne le port d'écoute.
+   *
+   * @return le port
+   */
+  public int getPort() {
+    return ecoute.getLocalPort();
+  }
+
+  /**
+   * Vérifie si les sessions tournent sur des threads virtuels.
+   *
+   * @return true si les threads sont virtuels
+   */
+  public boolean utiliseThreadsVirtuels() {
+    return threadsVirtuels;
+  }
+
+  /**
+   * Accepte les connexions jusqu'à la fermeture du serveur.
+   *
+   * @throws IOException si la socket d'écoute échoue
+   */
+  public void servir() throws IOException {
+    while (!ecoute.isClosed()) {
+      Socket connexion;
+      try {
+        connexion = ecoute.accept();
+      } catch (SocketException e) {
+        if (ecoute.isClosed()) {
+          break;
+        }
+        throw e;
+      }
+
+      connexion.setSoTimeout(DELAI_INACTIVITE);
+      connexion.setTcpNoDelay(true);
+      connexions.add(connexion);
+      sessions.execute(
+          () -> {
+            try {
+              new Session(connexion, ai).run();
+            } finally {
+              connexions.remove(connexion);
+            }
+          });
+    }
+  }
+
+  /** Arrête le serveur et ferme toutes les sessions. */
+  @Override
+  public void close() throws IOException {
+    ecoute.close();
+    for (Socket connexion : connexions) {
+      connexion.close();
+    }
+    sessions.shutdownNow();
+    ai.shutdownNow();
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT_DEFAUT;
+    int threadsAi =
+        args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+    try (Serveur serveur = new Serveur(port, threadsAi)) {
+      System.out.println(
+          "Serveur à l'écoute sur le port "
+              + serveur.getPort()
+              + (serveur.utiliseThreadsVirtuels() ? ", threads virtuels" : ", threads du système"));
+      serveur.servir();
+    }
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.serveur;
+
+import fr.nc0.cda.modele.Jeux;
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Joueurs;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.joueur.StrategieNimAiGagnante;
+import fr.nc0.cda.modele.joueur.StrategieNimAiGrundy;
+import fr.nc0.cda.modele.joueur.StrategieNimAiMisere;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiOptimisee;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiSimple;
+import fr.nc0.cda.modele.nim.JeuNim;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import fr.nc0.cda.modele.puissance4.PlateauPuissance4;
+import fr.nc0.cda.simulation.Strategies;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Une session du serveur : les parties successives d'un client contre l'AI, sur une connexion.
+ *
+ * <p>Le protocole est fait de lignes de texte en UTF-8. Le client envoie une commande par ligne :
+ *
+ * <ul>
+ *   <li>{@code NIM <tas> [contrainte] [misere] [stratégie]} commence une partie de Nim, {@code
+ *       misere} valant {@code oui} ou {@code non} ;
+ *   <li>{@code PUISSANCE4 [rotations] [stratégie]} commence une partie de Puissance 4 ;
+ *   <li>un coup, dont la forme dépend du jeu ;
+ *   <li>{@code PLATEAU} redemande le plateau ;
+ *   <li>{@code QUITTER} ferme la session.
+ * </ul>
+ *
+ * <p>Le serveur répond par {@code ERREUR <message>}, ou par le plateau suivi du coup de l'AI
+ * ({@code COUP <coup>}, le coup étant écrit comme le client l'enverrait, par exemple {@code COUP
+ * JOUER 4}), puis du plateau, puis de {@code A_VOUS} ou de {@code FIN <GAGNE|PERDU|NUL>}. Le
+ * client joue toujours en premier.
+ *
+ * <p>Une session occupe un thread, virtuel si possible, qui attend les lignes du client. Les coups
+ * de l'AI sont cherchés par l'exécuteur des AI, partagé entre les sessions. Les stratégies
+ * cherchant sur leurs propres threads ne peuvent donc pas être choisies, ni celles dont la table
+ * de transpositions occuperait plusieurs mégaoctets pour chaque partie.
+ */
+final class Session implements Runnable {
+  /** Le nombre maximal de tas d'une partie de Nim */
+  private static final int TAS_MAX = 10_000;
+
+  /** La longueur d'une grille de Puissance 4 */
+  private static final int LONGUEUR = 7;
+
+  /** La hauteur d'une grille de Puissance 4 */
+  private static final int HAUTEUR = 7;
+
+  /**
+   * Les stratégies de Puissance 4 cherchant sur leurs propres threads, hors de l'exécuteur, ou
+   * allouant une grande table de transpositions par partie
+   */
+  private static final Set<String> STRATEGIES_EXCLUES = Set.of("negamax", "parallele", "mcts");
+
+  /** La connexion au client */
+  private final Socket connexion;
+
+  /** L'exécuteur des AI */
+  private final ExecutorService ai;
+
+  /** La sortie vers le client */
+  private Writer sortie;
+
+  /** La partie en cours, ou null */
+  private Partie<?, ?> partie;
+
+  /**
+   * Créer une session.
+   *
+   * @param connexion la connexion au client
+   * @param ai l'exécuteur des AI
+   */
+  Session(Socket connexion, ExecutorService ai) {
+    this.connexion = connexion;
+    this.ai = ai;
+  }
+
+  @Override
+  public void run() {
+    try (connexion;
+        BufferedReader entree =
+            new BufferedReader(
+                new InputStreamReader(connexion.getInputStream(), StandardCharsets.UTF_8))) {
+      sortie =
+          new BufferedWriter(
+              new OutputStreamWriter(connexion.getOutputStream(), StandardCharsets.UTF_8));
+      envoyer("BIENVENUE");
+      sortie.flush();
+
+      String ligne;
+      while ((ligne = entree.readLine()) != null) {
+        String[] mots = ligne.trim().split("\\s+");
+        if (mots[0].equalsIgnoreCase("QUITTER")) {
+          envoyer("AU_REVOIR");
+          break;
+        }
+
+        try {
+          traiter(mots);
+        } catch (IllegalArgumentException e) {
+          envoyer("ERREUR " + e.getMessage());
+        }
+        sortie.flush();
+      }
+
+      sortie.flush();
+    } catch (IOException e) {
+      // Le client s'est déconnecté ou n'a plus rien envoyé : la session se termine.
+    } catch (InterruptedException e) {
+      // Le serveur s'arrête.
+      Thread.currentThread().interrupt();
+    } finally {
+      abandonner();
+    }
+  }
+
+  /**
+   * Traite une commande du client.
+   *
+   * @param mots la commande, découpée en mots
+   * @throws IllegalArgumentException si la commande est invalide
+   */
+  private void traiter(String[] mots) throws IOException, InterruptedException {
+    switch (mots[0].toUpperCase()) {
+      case "NIM" -> commencer(creerNim(mots));
+      case "PUISSANCE4" -> commencer(creerPuissance4(mots));
+      case "PLATEAU" -> envoyer(partieEnCours().decrirePlateau());
+      default -> jouer(partieEnCours(), mots);
+    }
+  }
+
+  /**
+   * Retourne la partie en cours.
+   *
+   * @return la partie
+   * @throws IllegalArgumentException s'il n'y a pas de partie en cours
+   */
+  private Partie<?, ?> partieEnCours() {
+    if (partie == null) {
+      throw new IllegalArgumentException("Aucune partie en cours, commencez par NIM ou PUISSANCE4");
+    }
+
+    return partie;
+  }
+
+  /**
+   * Commence une partie.
+   *
+   * @param nouvelle la partie
+   */
+  private void commencer(Partie<?, ?> nouvelle) throws IOException {
+    abandonner();
+    partie = nouvelle;
+    envoyer(partie.decrirePlateau());
+    envoyer("A_VOUS");
+  }
+
+  /**
+   * Créer une partie de Nim.
+   *
+   * @param mots la commande, {@code NIM <tas> [contrainte] [misere] [stratégie]}
+   * @return la partie
+   */
+  private static PartieNim creerNim(String[] mots) {
+    if (mots.length < 2 || mots.length > 5) {
+      throw new IllegalArgumentException("Usage : NIM <tas> [contrainte] [misere] [stratégie]");
+    }
+
+    int tas = Integer.parseInt(mots[1]);
+    int contrainte = mots.length > 2 ? Integer.parseInt(mots[2]) : 0;
+    boolean misere = mots.length > 3 && mots[3].equalsIgnoreCase("oui");
+    if (tas < 1 || tas > TAS_MAX) {
+      throw new IllegalArgumentException("Le nombre de tas doit être entre 1 et " + TAS_MAX);
+    }
+    if (contrainte < 0) {
+      throw new IllegalArgumentException("La contrainte ne peut pas être négative");
+    }
+
+    // Comme ControleurNim, à défaut de stratégie demandée.
+    Strategie strategie;
+    if (mots.length > 4) {
+      strategie = Strategies.trouver(Jeux.NIM, mots[4]).get();
+    } else if (misere) {
+      strategie = new StrategieNimAiMisere();
+    } else if (contrainte != 0) {
+      strategie = new StrategieNimAiGrundy();
+    } else {
+      strategie = new StrategieNimAiGagnante();
+    }
+
+    return new PartieNim(new JeuNim(tas, contrainte, misere), strategie);
+  }
+
+  /**
+   * Créer une partie de Puissance 4.
+   *
+   * @param mots la commande, {@code PUISSANCE4 [rotations] [stratégie]}
+   * @return la partie
+   */
+  private static PartiePuissance4 creerPuissance4(String[] mots) {
+    if (mots.length > 3) {
+      throw new IllegalArgumentException("Usage : PUISSANCE4 [rotations] [stratégie]");
+    }
+
+    int rotations = mots.length > 1 ? Integer.parseInt(mots[1]) : 0;
+    JeuPuissance4 jeu = new JeuPuissance4(LONGUEUR, HAUTEUR);
+    PlateauPuissance4 plateau = jeu.getPlateau();
+    plateau.setRotationsRestantes(Joueurs.JOUEUR_1, rotations);
+    plateau.setRotationsRestantes(Joueurs.JOUEUR_2, rotations);
+
+    // Comme ControleurPuissance4 avec l'AI de base, à défaut de stratégie demandée.
+    Strategie strategie;
+    if (mots.length > 2 && STRATEGIES_EXCLUES.contains(mots[2].toLowerCase())) {
+      throw new IllegalArgumentException(
+          "La stratégie " + mots[2] + " n'est pas disponible sur le serveur");
+    } else if (mots.length > 2) {
+      strategie = Strategies.trouver(Jeux.PUISSANCE4, mots[2]).get();
+    } else if (rotations != 0) {
+      strategie = new StrategiePuissance4AiSimple();
+    } else {
+      strategie = new StrategiePuissance4AiOptimisee();
+    }
+
+    return new PartiePuissance4(jeu, strategie);
+  }
+
+  /**
+   * Joue un coup du client, puis la réponse de l'AI.
+   *
+   * @param partie la partie
+   * @param mots le coup, découpé en mots
+   * @param <P> le plateau du jeu
+   * @param <C> les choix du jeu
+   */
+  private <P extends Plateau, C extends Choix> void jouer(Partie<P, C> partie, String[] mots)
+      throws IOException, InterruptedException {
+    try {
+      partie.jouerClient(partie.lire(mots));
+    } catch (CoupInvalideException e) {
+      envoyer("ERREUR " + e.getMessage());
+      return;
+    } catch (EtatPartieException e) {
+      throw new IllegalStateException(e);
+    }
+
+    envoyer(partie.decrirePlateau());
+    if (terminer(partie)) {
+      return;
+    }
+
+    // L'AI calcule sur l'exécuteur des AI pendant que la session attend.
+    Future<C> recherche = ai.submit(partie::chercherAi);
+    C choix;
+    try {
+      choix = recherche.get();
+    } catch (InterruptedException e) {
+      recherche.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      envoyer("ERREUR L'AI a échoué : " + e.getCause());
+      abandonner();
+      return;
+    }
+
+    envoyer("COUP " + partie.decrire(choix));
+    try {
+      partie.jouerAi(choix);
+    } catch (CoupInvalideException e) {
+      // L'AI perd par forfait.
+      envoyer("FIN GAGNE");
+      abandonner();
+      return;
+    } catch (EtatPartieException e) {
+      throw new IllegalStateException(e);
+    }
+
+    envoyer(partie.decrirePlateau());
+    if (!terminer(partie)) {
+      envoyer("A_VOUS");
+    }
+  }
+
+  /**
+   * Termine la partie si elle est finie, en envoyant son issue au client.
+   *
+   * @param partie la partie
+   * @return true si la partie est finie
+   */
+  private boolean terminer(Partie<?, ?> partie) throws IOException {
+    EtatPartie etat = partie.getEtatPartie();
+    if (etat == EtatPartie.EN_COURS) {
+      return false;
+    }
+
+    envoyer(
+        switch (etat) {
+          case VICTOIRE_JOUEUR_1 -> "FIN GAGNE";
+          case VICTOIRE_JOUEUR_2 -> "FIN PERDU";
+          default -> "FIN NUL";
+        });
+    abandonner();
+    return true;
+  }
+
+  /** Ferme la partie en cours, s'il y en a une. */
+  private void abandonner() {
+    if (partie != null) {
+      partie.fermer();
+      partie = null;
+    }
+  }
+
+  /**
+   * Envoie une ligne au client, sans vider le tampon de sortie.
+   *
+   * @param ligne la ligne
+   */
+  private void envoyer(String ligne) throws IOException {
+    sortie.write(ligne);
+    sortie.write('\n');
+  }
+}
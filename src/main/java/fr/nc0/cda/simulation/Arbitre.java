@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.CoupInvalideException;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Jeu;
+import fr.nc0.cda.modele.jeu.Joueurs;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.joueur.Joueur;
+import fr.nc0.cda.modele.nim.ChoixNim;
+import fr.nc0.cda.modele.nim.JeuNim;
+import fr.nc0.cda.modele.nim.PlateauNim;
+import fr.nc0.cda.modele.puissance4.ChoixPuissance4;
+import fr.nc0.cda.modele.puissance4.CoupPuissance4;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import fr.nc0.cda.modele.puissance4.PlateauPuissance4;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Joue une partie entre deux joueurs d'AI, directement sur le modèle.
+ *
+ * <p>Un coup invalide fait perdre la partie à son auteur, une stratégie ne pouvant pas réessayer
+ * comme le ferait un humain. Un arbitre n'a pas d'état propre et peut être partagé entre threads.
+ *
+ * <p>Une partie peut être tirée d'une graine : la position de départ est alors tirée au hasard par
+ * l'ouverture du jeu, et chaque stratégie reçoit sa propre graine. Une même graine rejoue la même
+ * ouverture, et la même partie si les stratégies ne dépendent que de leur graine.
+ *
+ * @param <P> le plateau du jeu
+ * @param <C> les choix du jeu
+ */
+final class Arbitre<P extends Plateau, C extends Choix> {
+  /** Le nombre de coups joués au hasard au début d'une partie de Puissance 4, pair */
+  static final int OUVERTURE_PUISSANCE4 = 4;
+
+  /** Crée une nouvelle partie, le joueur 1 jouant en premier */
+  private final Supplier<? extends Jeu<P, C>> parties;
+
+  /** Donne aux stratégies le plateau de la partie, copié si elles le modifient */
+  private final UnaryOperator<P> copie;
+
+  /** Tire au hasard la position de départ d'une partie */
+  private final Ouverture<P, C> ouverture;
+
+  /** Tire au hasard la position de départ d'une partie. */
+  interface Ouverture<P extends Plateau, C extends Choix> {
+    /**
+     * Modifie une nouvelle partie, qui doit rester en cours et donner le trait au joueur 1.
+     *
+     * @param jeu la partie
+     * @param hasard le générateur de la partie
+     */
+    void jouer(Jeu<P, C> jeu, SplittableRandom hasard)
+        throws CoupInvalideException, EtatPartieException;
+  }
+
+  /**
+   * Créer un arbitre dont les parties commencent toujours à la position de départ.
+   *
+   * @param parties crée une nouvelle partie, le joueur 1 jouant en premier
+   * @param copie copie un plateau, ou le donne tel quel s'il n'est pas modifié par les stratégies
+   */
+  Arbitre(Supplier<? extends Jeu<P, C>> parties, UnaryOperator<P> copie) {
+    this(parties, copie, (jeu, hasard) -> {});
+  }
+
+  /**
+   * Créer un arbitre.
+   *
+   * @param parties crée une nouvelle partie, le joueur 1 jouant en premier
+   * @param copie copie un plateau, ou le donne tel quel s'il n'est pas modifié par les stratégies
+   * @param ouverture tire au hasard la position de départ des parties jouées avec une graine
+   */
+  Arbitre(
+      Supplier<? extends Jeu<P, C>> parties, UnaryOperator<P> copie, Ouverture<P, C> ouverture) {
+    this.parties = parties;
+    this.copie = copie;
+    this.ouverture = ouverture;
+  }
+
+  /**
+   * Créer un arbitre du jeu de Nim.
+   *
+   * <p>L'ouverture tire le nombre d'allumettes de chaque tas entre 1 et sa taille de départ, hors
+   * mode grand.
+   *
+   * @param parties crée une nouvelle partie
+   * @return l'arbitre
+   */
+  static Arbitre<PlateauNim, ChoixNim> nim(Supplier<JeuNim> parties) {
+    // Les stratégies du Nim ne modifient pas le plateau, copier ses tas serait linéaire.
+    return new Arbitre<>(
+        parties,
+        UnaryOperator.identity(),
+        (jeu, hasard) -> {
+          PlateauNim plateau = jeu.getPlateau();
+          if (plateau.estGrand()) {
+            return;
+          }
+
+          for (int tas = 1; tas <= plateau.getTaille(); ++tas) {
+            long allumettes = plateau.getAllumettesRestantes(tas);
+            if (allumettes > 1) {
+              plateau.setAllumettes(tas, 1 + hasard.nextLong(allumettes));
+            }
+          }
+        });
+  }
+
+  /**
+   * Créer un arbitre du Puissance 4.
+   *
+   * <p>Chaque stratégie voit le plateau comme si elle jouait le jaune, les stratégies les plus
+   * simples ne sachant pas jouer le rouge. L'ouverture insère {@value #OUVERTURE_PUISSANCE4} jetons
+   * dans des colonnes tirées au hasard, autant pour chaque joueur.
+   *
+   * @param parties crée une nouvelle partie, dont le plateau donne le trait au joueur 1
+   * @return l'arbitre
+   */
+  static Arbitre<PlateauPuissance4, ChoixPuissance4> puissance4(Supplier<JeuPuissance4> parties) {
+    // Comme avec ControleurPuissance4, les stratégies jouent toujours le jaune : le joueur 1 reçoit
+    // le plateau inversé.
+    return new Arbitre<>(
+        parties,
+        p -> p.getTrait() == Joueurs.JOUEUR_1 ? p.inverser() : p.dupliquer(),
+        (jeu, hasard) -> {
+          PlateauPuissance4 plateau = jeu.getPlateau();
+          for (int coup = 0; coup < OUVERTURE_PUISSANCE4; ++coup) {
+            int libres = 0;
+            for (int colonne = 1; colonne <= plateau.getLongueur(); ++colonne) {
+              libres += plateau.verifierColonnePleine(colonne) ? 0 : 1;
+            }
+
+            // La colonne tirée est la rang-ième colonne non pleine.
+            int rang = hasard.nextInt(libres);
+            int colonne = 1;
+            while (plateau.verifierColonnePleine(colonne) || rang-- > 0) {
+              ++colonne;
+            }
+
+            Joueurs joueur = coup % 2 == 0 ? Joueurs.JOUEUR_1 : Joueurs.JOUEUR_2;
+            jeu.jouer(joueur, new ChoixPuissance4(CoupPuissance4.INSERTION, null, colonne));
+            if (jeu.getEtatPartie() != EtatPartie.EN_COURS) {
+              throw new IllegalStateException("La grille est trop petite pour l'ouverture");
+            }
+          }
+        });
+  }
+
+  /**
+   * Joue une partie depuis la position de départ.
+   *
+   * @param joueur1 le joueur jouant en premier
+   * @param joueur2 le joueur jouant en second
+   * @return l'issue de la partie
+   */
+  Issue arbitrer(Joueur joueur1, Joueur joueur2) throws EtatPartieException {
+    return arbitrer(parties.get(), joueur1, joueur2);
+  }
+
+  /**
+   * Joue une partie tirée d'une graine. Les coups de l'ouverture ne sont pas comptés.
+   *
+   * @param joueur1 le joueur jouant en premier après l'ouverture
+   * @param joueur2 le joueur jouant en second
+   * @param graine la graine de la partie
+   * @return l'issue de la partie
+   */
+  Issue arbitrer(Joueur joueur1, Joueur joueur2, long graine) throws EtatPartieException {
+    SplittableRandom hasard = new SplittableRandom(graine);
+    joueur1.getStrategie().semer(hasard.nextLong());
+    joueur2.getStrategie().semer(hasard.nextLong());
+
+    Jeu<P, C> jeu = parties.get();
+    try {
+      ouverture.jouer(jeu, hasard);
+    } catch (CoupInvalideException e) {
+      throw new IllegalStateException("L'ouverture a joué un coup invalide", e);
+    }
+
+    return arbitrer(jeu, joueur1, joueur2);
+  }
+
+  /**
+   * Joue une partie jusqu'à sa fin.
+   *
+   * @param jeu la partie, donnant le trait au joueur 1
+   * @param joueur1 le joueur jouant en premier
+   * @param joueur2 le joueur jouant en second
+   * @return l'issue de la partie
+   */
+  private Issue arbitrer(Jeu<P, C> jeu, Joueur joueur1, Joueur joueur2)
+      throws EtatPartieException {
+    Joueurs courant = Joueurs.JOUEUR_1;
+    long coups = 0;
+    EtatPartie etat = jeu.getEtatPartie();
+    while (etat == EtatPartie.EN_COURS) {
+      Joueur joueur = courant == Joueurs.JOUEUR_1 ? joueur1 : joueur2;
+      try {
+        @SuppressWarnings("unchecked")
+        C choix = (C) joueur.getStrategie().jouer(null, copie.apply(jeu.getPlateau()), joueur);
+        jeu.jouer(courant, choix);
+      } catch (CoupInvalideException e) {
+        // L'autre joueur gagne par forfait.
+        if (courant == Joueurs.JOUEUR_1) {
+          return new Issue(EtatPartie.VICTOIRE_JOUEUR_2, true, coups);
+        }
+        return new Issue(EtatPartie.VICTOIRE_JOUEUR_1, true, coups);
+      }
+
+      ++coups;
+      etat = jeu.getEtatPartie();
+      courant = courant == Joueurs.JOUEUR_1 ? Joueurs.JOUEUR_2 : Joueurs.JOUEUR_1;
+    }
+
+    return new Issue(etat, false, coups);
+  }
+
+  /** L'issue d'une partie. */
+  static final class Issue {
+    /** L'état final de la partie */
+    final EtatPartie etat;
+
+    /** True si le perdant a joué un coup invalide */
+    final boolean forfait;
+
+    /** Le nombre de coups valides joués */
+    final long coups;
+
+    Issue(EtatPartie etat, boolean forfait, long coups) {
+      this.etat = etat;
+      this.forfait = forfait;
+      this.coups = coups;
+    }
+  }
+}
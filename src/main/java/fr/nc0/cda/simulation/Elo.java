@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+/**
+ * Estimation des classements Elo d'un tournoi.
+ *
+ * <p>Les classements maximisent la vraisemblance du modèle de Bradley-Terry, où le joueur de force
+ * γ<sub>i</sub> marque contre celui de force γ<sub>j</sub> avec la probabilité γ<sub>i</sub> /
+ * (γ<sub>i</sub> + γ<sub>j</sub>), un nul comptant pour une demi-victoire. Comme dans BayesElo,
+ * chaque joueur fait en plus deux nuls virtuels contre un adversaire de classement 0, ce qui garde
+ * un classement fini au joueur ayant tout gagné ou tout perdu. Les forces sont trouvées par
+ * l'algorithme MM de Hunter, dont chaque itération augmente la vraisemblance.
+ *
+ * <p>La marge d'un classement est le demi-intervalle de confiance à 95 %, tiré de l'information de
+ * Fisher du joueur seul, les autres classements étant supposés exacts.
+ */
+final class Elo {
+  /** Le nombre de nuls virtuels de chaque joueur contre l'adversaire de classement 0 */
+  private static final double NULS_VIRTUELS = 2;
+
+  /** L'écart relatif des forces en dessous duquel les itérations s'arrêtent */
+  private static final double PRECISION = 1e-12;
+
+  /** Le nombre maximal d'itérations */
+  private static final int ITERATIONS_MAX = 100_000;
+
+  /** Le quantile à 97,5 % de la loi normale */
+  private static final double QUANTILE_95 = 1.959964;
+
+  /** Le nombre de points Elo par unité du logarithme népérien de la force */
+  private static final double ECHELLE = 400 / Math.log(10);
+
+  private Elo() {}
+
+  /**
+   * Estime les classements.
+   *
+   * @param points les points marqués par chaque joueur contre chaque autre, un nul valant 1/2
+   * @param parties le nombre de parties entre chaque paire de joueurs, symétrique
+   * @return les classements, de moyenne nulle, puis leurs marges
+   */
+  static double[][] estimer(double[][] points, double[][] parties) {
+    int n = points.length;
+    double[] forces = new double[n];
+    double[] totaux = new double[n];
+    for (int i = 0; i < n; ++i) {
+      forces[i] = 1;
+      totaux[i] = NULS_VIRTUELS / 2;
+      for (int j = 0; j < n; ++j) {
+        totaux[i] += points[i][j];
+      }
+    }
+
+    double[] suivantes = new double[n];
+    for (int iteration = 0; iteration < ITERATIONS_MAX; ++iteration) {
+      double ecart = 0;
+      for (int i = 0; i < n; ++i) {
+        double denominateur = NULS_VIRTUELS / (forces[i] + 1);
+        for (int j = 0; j < n; ++j) {
+          if (j != i && parties[i][j] != 0) {
+            denominateur += parties[i][j] / (forces[i] + forces[j]);
+          }
+        }
+
+        suivantes[i] = totaux[i] / denominateur;
+        ecart = Math.max(ecart, Math.abs(suivantes[i] - forces[i]) / forces[i]);
+      }
+
+      System.arraycopy(suivantes, 0, forces, 0, n);
+      if (ecart < PRECISION) {
+        break;
+      }
+    }
+
+    double[] classements = new double[n];
+    double[] marges = new double[n];
+    double moyenne = 0;
+    for (int i = 0; i < n; ++i) {
+      classements[i] = ECHELLE * Math.log(forces[i]);
+      moyenne += classements[i] / n;
+
+      double information = NULS_VIRTUELS * forces[i] / ((forces[i] + 1) * (forces[i] + 1));
+      for (int j = 0; j < n; ++j) {
+        if (j != i && parties[i][j] != 0) {
+          double somme = forces[i] + forces[j];
+          information += parties[i][j] * forces[i] * forces[j] / (somme * somme);
+        }
+      }
+      marges[i] = QUANTILE_95 * ECHELLE / Math.sqrt(information);
+    }
+
+    for (int i = 0; i < n; ++i) {
+      classements[i] -= moyenne;
+    }
+
+    return new double[][] {classements, marges};
+  }
+}
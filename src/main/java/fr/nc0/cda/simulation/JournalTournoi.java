@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Journal binaire des parties d'un tournoi, permettant de reprendre un tournoi interrompu.
+ *
+ * <p>Le journal commence par un en-tête décrivant le tournoi, suivi d'un enregistrement de {@value
+ * #TAILLE_ENREGISTREMENT} octets par partie terminée : le numéro de la partie (int), son issue
+ * (byte) et son nombre de coups (int). Les enregistrements sont ajoutés à la fin du fichier dans
+ * l'ordre où les parties se terminent. Un enregistrement incomplet, laissé par un arrêt brutal, est
+ * supprimé à la réouverture.
+ */
+final class JournalTournoi implements Closeable {
+  /** Les premiers octets d'un journal, "TOUR" */
+  private static final int MAGIQUE = 0x544F5552;
+
+  /** La version du format */
+  private static final short VERSION = 2;
+
+  /** La taille d'un enregistrement, en octets */
+  static final int TAILLE_ENREGISTREMENT = 9;
+
+  /** Le délai maximal entre deux écritures sur le disque, en nanosecondes */
+  private static final long DELAI_ECRITURE = 1_000_000_000L;
+
+  /** Reçoit les parties lues dans un journal */
+  interface Lecteur {
+    /**
+     * Reçoit une partie.
+     *
+     * @param partie le numéro de la partie
+     * @param issue l'issue de la partie
+     * @param coups le nombre de coups de la partie
+     */
+    void lire(int partie, byte issue, int coups);
+  }
+
+  /** La sortie, en fin de fichier */
+  private final DataOutputStream sortie;
+
+  /** Le moment de la dernière écriture sur le disque */
+  private long derniereEcriture = System.nanoTime();
+
+  /**
+   * Ouvre un journal, en le créant s'il n'existe pas, et lit les parties qu'il contient déjà.
+   *
+   * @param chemin le fichier du journal
+   * @param jeu le nom du jeu
+   * @param strategies les noms des stratégies, dans l'ordre du tournoi
+   * @param partiesParPaire le nombre de parties par paire de stratégies
+   * @param graine la graine du tournoi
+   * @param lecteur reçoit les parties déjà jouées
+   * @throws IOException si le fichier ne peut pas être lu ou écrit, ou est le journal d'un autre
+   *     tournoi
+   */
+  JournalTournoi(
+      Path chemin,
+      String jeu,
+      List<String> strategies,
+      int partiesParPaire,
+      long graine,
+      Lecteur lecteur)
+      throws IOException {
+    byte[] entete = entete(jeu, strategies, partiesParPaire, graine);
+
+    long taille = Files.exists(chemin) ? Files.size(chemin) : 0;
+    if (taille == 0) {
+      Files.write(chemin, entete);
+    } else {
+      long enregistrements = (taille - entete.length) / TAILLE_ENREGISTREMENT;
+      try (InputStream fichier = Files.newInputStream(chemin);
+          DataInputStream entree = new DataInputStream(new BufferedInputStream(fichier))) {
+        byte[] lu = new byte[entete.length];
+        try {
+          entree.readFully(lu);
+        } catch (EOFException e) {
+          lu = null;
+        }
+        if (!Arrays.equals(lu, entete)) {
+          throw new IOException("Le fichier " + chemin + " est le journal d'un autre tournoi");
+        }
+
+        for (long i = 0; i < enregistrements; ++i) {
+          lecteur.lire(entree.readInt(), entree.readByte(), entree.readInt());
+        }
+      }
+
+      long valide = entete.length + enregistrements * TAILLE_ENREGISTREMENT;
+      if (valide != taille) {
+        try (FileChannel canal = FileChannel.open(chemin, StandardOpenOption.WRITE)) {
+          canal.truncate(valide);
+        }
+      }
+    }
+
+    sortie =
+        new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(chemin, StandardOpenOption.APPEND)));
+  }
+
+  /**
+   * Construit l'en-tête d'un journal.
+   *
+   * @param jeu le nom du jeu
+   * @param strategies les noms des stratégies
+   * @param partiesParPaire le nombre de parties par paire de stratégies
+   * @param graine la graine du tournoi
+   * @return l'en-tête
+   */
+  private static byte[] entete(
+      String jeu, List<String> strategies, int partiesParPaire, long graine) throws IOException {
+    ByteArrayOutputStream octets = new ByteArrayOutputStream();
+    try (DataOutputStream entete = new DataOutputStream(octets)) {
+      entete.writeInt(MAGIQUE);
+      entete.writeShort(VERSION);
+      entete.writeUTF(jeu);
+      entete.writeInt(partiesParPaire);
+      entete.writeLong(graine);
+      entete.writeInt(strategies.size());
+      for (String strategie : strategies) {
+        entete.writeUTF(strategie);
+      }
+    }
+
+    return octets.toByteArray();
+  }
+
+  /**
+   * Ajoute une partie au journal. Les parties sont écrites sur le disque au plus tard une seconde
+   * après la précédente écriture.
+   *
+   * @param partie le numéro de la partie
+   * @param issue l'issue de la partie
+   * @param coups le nombre de coups de la partie
+   * @throws IOException si le fichier ne peut pas être écrit
+   */
+  synchronized void ecrire(int partie, byte issue, int coups) throws IOException {
+    sortie.writeInt(partie);
+    sortie.writeByte(issue);
+    sortie.writeInt(coups);
+
+    long maintenant = System.nanoTime();
+    if (maintenant - derniereEcriture >= DELAI_ECRITURE) {
+      sortie.flush();
+      derniereEcriture = maintenant;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    sortie.close();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+/** Le bilan d'une simulation de parties entre deux stratégies A et B. */
+public class ResultatSimulation {
+  /** Le nombre de parties jouées */
+  private final long parties;
+
+  /** Le nombre de parties gagnées par A, forfaits de B compris */
+  private final long victoiresA;
+
+  /** Le nombre de parties gagnées par B, forfaits de A compris */
+  private final long victoiresB;
+
+  /** Le nombre de parties perdues par A sur un coup invalide */
+  private final long forfaitsA;
+
+  /** Le nombre de parties perdues par B sur un coup invalide */
+  private final long forfaitsB;
+
+  /** Le nombre total de coups joués */
+  private final long coups;
+
+  /** Le nombre de coups de la plus courte partie */
+  private final long coupsMin;
+
+  /** Le nombre de coups de la plus longue partie */
+  private final long coupsMax;
+
+  /** La durée de la simulation, en nanosecondes */
+  private final long duree;
+
+  ResultatSimulation(
+      long parties,
+      long victoiresA,
+      long victoiresB,
+      long forfaitsA,
+      long forfaitsB,
+      long coups,
+      long coupsMin,
+      long coupsMax,
+      long duree) {
+    this.parties = parties;
+    this.victoiresA = victoiresA;
+    this.victoiresB = victoiresB;
+    this.forfaitsA = forfaitsA;
+    this.forfaitsB = forfaitsB;
+    this.coups = coups;
+    this.coupsMin = coupsMin;
+    this.coupsMax = coupsMax;
+    this.duree = duree;
+  }
+
+  /** Le nombre de parties jouées */
+  public long getParties() {
+    return parties;
+  }
+
+  /** Le nombre de parties gagnées par A, forfaits de B compris */
+  public long getVictoiresA() {
+    return victoiresA;
+  }
+
+  /** Le nombre de parties gagnées par B, forfaits de A compris */
+  public long getVictoiresB() {
+    return victoiresB;
+  }
+
+  /** Le nombre de matchs nuls */
+  public long getNuls() {
+    return parties - victoiresA - victoiresB;
+  }
+
+  /** Le nombre de parties perdues par A sur un coup invalide */
+  public long getForfaitsA() {
+    return forfaitsA;
+  }
+
+  /** Le nombre de parties perdues par B sur un coup invalide */
+  public long getForfaitsB() {
+    return forfaitsB;
+  }
+
+  /** Le nombre total de coups joués */
+  public long getCoups() {
+    return coups;
+  }
+
+  /** Le nombre de coups de la plus courte partie, 0 sans partie */
+  public long getCoupsMin() {
+    return parties == 0 ? 0 : coupsMin;
+  }
+
+  /** Le nombre de coups de la plus longue partie */
+  public long getCoupsMax() {
+    return coupsMax;
+  }
+
+  /** Le nombre moyen de coups par partie */
+  public double getCoupsMoyens() {
+    return parties == 0 ? 0 : (double) coups / parties;
+  }
+
+  /** La durée de la simulation, en nanosecondes */
+  public long getDuree() {
+    return duree;
+  }
+
+  /** Le nombre de parties jouées par seconde */
+  public double getPartiesParSeconde() {
+    return duree == 0 ? 0 : parties * 1e9 / duree;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d parties : A %d (%d forfaits de B), B %d (%d forfaits de A), nuls %d%n"
+            + "coups par partie : min %d, moyenne %.2f, max %d%n"
+            + "%.3f s, %.1f parties/s",
+        parties,
+        victoiresA,
+        forfaitsB,
+        victoiresB,
+        forfaitsA,
+        getNuls(),
+        getCoupsMin(),
+        getCoupsMoyens(),
+        coupsMax,
+        duree / 1e9,
+        getPartiesParSeconde());
+  }
+}
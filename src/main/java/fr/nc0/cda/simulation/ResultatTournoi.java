@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** Le bilan d'un tournoi toutes rondes entre des stratégies. */
+public class ResultatTournoi {
+  /** Les noms des stratégies */
+  private final List<String> strategies;
+
+  /** Le nombre de victoires de chaque stratégie contre chaque autre, forfaits compris */
+  private final long[][] victoires;
+
+  /** Le nombre de nuls entre chaque paire de stratégies */
+  private final long[][] nuls;
+
+  /** Le nombre de parties perdues par chaque stratégie contre chaque autre sur un coup invalide */
+  private final long[][] forfaits;
+
+  /** Le nombre de parties jouées, reprises comprises */
+  private final long parties;
+
+  /** Le nombre de parties reprises d'un journal */
+  private final long reprises;
+
+  /** Le nombre total de coups joués */
+  private final long coups;
+
+  /** La durée du tournoi, hors lecture du journal, en nanosecondes */
+  private final long duree;
+
+  /** Le classement Elo de chaque stratégie */
+  private final double[] elo;
+
+  /** La marge d'erreur à 95 % de chaque classement */
+  private final double[] marges;
+
+  ResultatTournoi(
+      List<String> strategies,
+      long[][] victoires,
+      long[][] nuls,
+      long[][] forfaits,
+      long parties,
+      long reprises,
+      long coups,
+      long duree) {
+    this.strategies = strategies;
+    this.victoires = victoires;
+    this.nuls = nuls;
+    this.forfaits = forfaits;
+    this.parties = parties;
+    this.reprises = reprises;
+    this.coups = coups;
+    this.duree = duree;
+
+    int n = strategies.size();
+    double[][] points = new double[n][n];
+    double[][] rencontres = new double[n][n];
+    for (int i = 0; i < n; ++i) {
+      for (int j = 0; j < n; ++j) {
+        points[i][j] = victoires[i][j] + nuls[i][j] / 2.0;
+        rencontres[i][j] = victoires[i][j] + victoires[j][i] + nuls[i][j];
+      }
+    }
+
+    double[][] classements = Elo.estimer(points, rencontres);
+    elo = classements[0];
+    marges = classements[1];
+  }
+
+  /** Les noms des stratégies, dans l'ordre du tournoi */
+  public List<String> getStrategies() {
+    return strategies;
+  }
+
+  /**
+   * Retourne le classement Elo d'une stratégie, la moyenne des classements étant 0.
+   *
+   * @param strategie le nom de la stratégie
+   * @return le classement
+   */
+  public double getElo(String strategie) {
+    return elo[indice(strategie)];
+  }
+
+  /**
+   * Retourne la marge d'erreur du classement Elo d'une stratégie, le classement ayant 95 % de
+   * chances d'être à moins de cette marge du classement estimé.
+   *
+   * @param strategie le nom de la stratégie
+   * @return la marge
+   */
+  public double getMarge(String strategie) {
+    return marges[indice(strategie)];
+  }
+
+  /**
+   * Retourne le nombre de parties gagnées par une stratégie contre une autre, forfaits compris.
+   *
+   * @param gagnante le nom de la stratégie ayant gagné
+   * @param perdante le nom de la stratégie ayant perdu
+   * @return le nombre de victoires
+   */
+  public long getVictoires(String gagnante, String perdante) {
+    return victoires[indice(gagnante)][indice(perdante)];
+  }
+
+  /**
+   * Retourne le nombre de matchs nuls entre deux stratégies.
+   *
+   * @param a le nom de la première stratégie
+   * @param b le nom de la seconde stratégie
+   * @return le nombre de nuls
+   */
+  public long getNuls(String a, String b) {
+    return nuls[indice(a)][indice(b)];
+  }
+
+  /**
+   * Retourne le nombre de parties perdues par une stratégie contre une autre sur un coup invalide.
+   *
+   * @param fautive le nom de la stratégie ayant joué le coup invalide
+   * @param adversaire le nom de l'autre stratégie
+   * @return le nombre de forfaits
+   */
+  public long getForfaits(String fautive, String adversaire) {
+    return forfaits[indice(fautive)][indice(adversaire)];
+  }
+
+  /** Le nombre de parties jouées, reprises du journal comprises */
+  public long getParties() {
+    return parties;
+  }
+
+  /** Le nombre de parties reprises du journal */
+  public long getPartiesReprises() {
+    return reprises;
+  }
+
+  /** Le nombre moyen de coups par partie */
+  public double getCoupsMoyens() {
+    return parties == 0 ? 0 : (double) coups / parties;
+  }
+
+  /** La durée du tournoi, hors lecture du journal, en nanosecondes */
+  public long getDuree() {
+    return duree;
+  }
+
+  /**
+   * Retourne le numéro d'une stratégie.
+   *
+   * @param strategie le nom de la stratégie
+   * @return son numéro
+   * @throws IllegalArgumentException si la stratégie n'a pas participé au tournoi
+   */
+  private int indice(String strategie) {
+    int indice = strategies.indexOf(strategie);
+    if (indice < 0) {
+      throw new IllegalArgumentException("Stratégie inconnue : " + strategie);
+    }
+
+    return indice;
+  }
+
+  @Override
+  public String toString() {
+    int n = strategies.size();
+    List<Integer> ordre = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      ordre.add(i);
+    }
+    ordre.sort(Comparator.comparingDouble((Integer i) -> -elo[i]));
+
+    StringBuilder sortie = new StringBuilder();
+    sortie.append(
+        String.format(
+            "%d parties (%d reprises), %.2f coups par partie, %.3f s%n",
+            parties, reprises, getCoupsMoyens(), duree / 1e9));
+    sortie.append(
+        String.format("%4s  %-12s %7s %7s %9s%n", "Rang", "Stratégie", "Elo", "±", "Score"));
+    for (int rang = 0; rang < n; ++rang) {
+      int i = ordre.get(rang);
+      double points = 0;
+      long rencontres = 0;
+      for (int j = 0; j < n; ++j) {
+        points += victoires[i][j] + nuls[i][j] / 2.0;
+        rencontres += victoires[i][j] + victoires[j][i] + nuls[i][j];
+      }
+      sortie.append(
+          String.format(
+              "%4d  %-12s %7.1f %7.1f %8.1f%%%n",
+              rang + 1,
+              strategies.get(i),
+              elo[i],
+              marges[i],
+              rencontres == 0 ? 0 : 100 * points / rencontres));
+    }
+
+    sortie.append(
+        String.format("%nVictoires-nuls-défaites (forfaits) de chaque stratégie contre chacune%n"));
+    for (int i : ordre) {
+      for (int j : ordre) {
+        if (i != j) {
+          sortie.append(
+              String.format(
+                  "  %-12s %-12s %d-%d-%d (%d)%n",
+                  strategies.get(i),
+                  strategies.get(j),
+                  victoires[i][j],
+                  nuls[i][j],
+                  victoires[j][i],
+                  forfaits[i][j]));
+        }
+      }
+    }
+
+    return sortie.toString();
+  }
+}
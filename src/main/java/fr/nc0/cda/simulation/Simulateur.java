@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import fr.nc0.cda.modele.Jeux;
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.nim.JeuNim;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Lance une simulation ou un tournoi depuis la ligne de commande.
+ *
+ * <p>Usage : {@code Simulateur <nim|puissance4> <stratégie A> <stratégie B> <parties> [threads]
+ * [tas|longueur] [contrainte|hauteur]}, ou {@code Simulateur tournoi <nim|puissance4> <parties par
+ * paire> [journal|-] [threads] [stratégies séparées par des virgules|-] [graine]}. Un tournoi se
+ * joue sur 5 tas sans contrainte au Nim, et sur une grille 7x6 au Puissance 4, depuis des positions
+ * tirées de sa graine. Ses stratégies cherchent chacune sur un seul thread, les parties étant déjà
+ * jouées en parallèle.
+ */
+public class Simulateur {
+  private Simulateur() {}
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length >= 3 && args[0].equalsIgnoreCase("tournoi")) {
+      tournoi(args);
+      return;
+    }
+    if (args.length < 4) {
+      System.err.println(
+          "Usage : Simulateur <nim|puissance4> <stratégie A> <stratégie B> <parties> [threads]"
+              + " [tas|longueur] [contrainte|hauteur]\n"
+              + "        Simulateur tournoi <nim|puissance4> <parties par paire> [journal|-]"
+              + " [threads] [stratégies séparées par des virgules|-] [graine]");
+      System.exit(2);
+    }
+
+    Jeux jeu = Jeux.valueOf(args[0].toUpperCase());
+    Supplier<Strategie> a = Strategies.trouver(jeu, args[1]);
+    Supplier<Strategie> b = Strategies.trouver(jeu, args[2]);
+    long parties = Long.parseLong(args[3]);
+    int threads =
+        args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+    ResultatSimulation resultat =
+        switch (jeu) {
+          case NIM -> {
+            int tas = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+            int contrainte = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+            yield Simulation.nim(() -> new JeuNim(tas, contrainte), a, b, threads).lancer(parties);
+          }
+          case PUISSANCE4 -> {
+            int longueur = args.length > 5 ? Integer.parseInt(args[5]) : 7;
+            int hauteur = args.length > 6 ? Integer.parseInt(args[6]) : 6;
+            yield Simulation.puissance4(() -> new JeuPuissance4(longueur, hauteur), a, b, threads)
+                .lancer(parties);
+          }
+        };
+
+    System.out.println(args[1] + " (A) contre " + args[2] + " (B)");
+    System.out.println(resultat);
+  }
+
+  /**
+   * Lance un tournoi.
+   *
+   * @param args les arguments de la ligne de commande, dont le premier est "tournoi"
+   */
+  private static void tournoi(String[] args) throws IOException, InterruptedException {
+    Jeux jeu = Jeux.valueOf(args[1].toUpperCase());
+    int partiesParPaire = Integer.parseInt(args[2]);
+    Path journal = args.length > 3 && !args[3].equals("-") ? Path.of(args[3]) : null;
+    int threads =
+        args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+    // Sinon, l'Elo des stratégies à plusieurs threads mesurerait surtout leur concurrence.
+    Map<String, Supplier<Strategie>> unThread = Strategies.unThread(jeu);
+    Map<String, Supplier<Strategie>> strategies = new LinkedHashMap<>();
+    if (args.length > 5 && !args[5].equals("-")) {
+      for (String nom : args[5].split(",")) {
+        strategies.put(nom, Strategies.trouver(unThread, nom));
+      }
+    } else {
+      strategies.putAll(unThread);
+    }
+
+    Tournoi<?, ?> tournoi =
+        switch (jeu) {
+          case NIM -> Tournoi.nim(() -> new JeuNim(5, 0), strategies, partiesParPaire, threads);
+          case PUISSANCE4 -> Tournoi.puissance4(
+              () -> new JeuPuissance4(7, 6), strategies, partiesParPaire, threads);
+        };
+
+    long graine = args.length > 6 ? Long.parseLong(args[6]) : Tournoi.GRAINE_DEFAUT;
+    System.out.println(tournoi.lancer(journal, graine));
+  }
+}
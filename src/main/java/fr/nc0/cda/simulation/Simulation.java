@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.EtatPartieException;
+import fr.nc0.cda.modele.jeu.Jeu;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.joueur.Joueur;
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.nim.ChoixNim;
+import fr.nc0.cda.modele.nim.JeuNim;
+import fr.nc0.cda.modele.nim.PlateauNim;
+import fr.nc0.cda.modele.puissance4.ChoixPuissance4;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import fr.nc0.cda.modele.puissance4.PlateauPuissance4;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Simulation de parties entre deux stratégies d'AI, sans IHM.
+ *
+ * <p>Les parties sont jouées directement sur le modèle, réparties entre plusieurs threads. Chaque
+ * thread crée ses propres stratégies, qui peuvent ainsi garder un état d'un coup à l'autre sans
+ * être partagées. A joue en premier une partie sur deux. Un coup invalide fait perdre la partie à
+ * son auteur, une stratégie ne pouvant pas réessayer comme le ferait un humain.
+ *
+ * @param <P> le plateau du jeu
+ * @param <C> les choix du jeu
+ */
+public class Simulation<P extends Plateau, C extends Choix> {
+  /** Joue les parties */
+  private final Arbitre<P, C> arbitre;
+
+  /** Crée la stratégie A */
+  private final Supplier<? extends Strategie> strategieA;
+
+  /** Crée la stratégie B */
+  private final Supplier<? extends Strategie> strategieB;
+
+  /** Le nombre de threads jouant les parties */
+  private final int nombreThreads;
+
+  /**
+   * Créer une simulation.
+   *
+   * @param parties crée une nouvelle partie, le joueur 1 jouant en premier
+   * @param copie copie un plateau
+   * @param strategieA crée la stratégie A, une fois par thread
+   * @param strategieB crée la stratégie B, une fois par thread
+   * @param nombreThreads le nombre de threads jouant les parties
+   */
+  public Simulation(
+      Supplier<? extends Jeu<P, C>> parties,
+      UnaryOperator<P> copie,
+      Supplier<? extends Strategie> strategieA,
+      Supplier<? extends Strategie> strategieB,
+      int nombreThreads) {
+    this(new Arbitre<>(parties, copie), strategieA, strategieB, nombreThreads);
+  }
+
+  /**
+   * Créer une simulation.
+   *
+   * @param arbitre joue les parties
+   * @param strategieA crée la stratégie A, une fois par thread
+   * @param strategieB crée la stratégie B, une fois par thread
+   * @param nombreThreads le nombre de threads jouant les parties
+   */
+  private Simulation(
+      Arbitre<P, C> arbitre,
+      Supplier<? extends Strategie> strategieA,
+      Supplier<? extends Strategie> strategieB,
+      int nombreThreads) {
+    if (nombreThreads < 1) {
+      throw new IllegalArgumentException("Nombre de threads invalide : " + nombreThreads);
+    }
+
+    this.arbitre = arbitre;
+    this.strategieA = strategieA;
+    this.strategieB = strategieB;
+    this.nombreThreads = nombreThreads;
+  }
+
+  /**
+   * Créer une simulation du jeu de Nim.
+   *
+   * @param parties crée une nouvelle partie
+   * @param strategieA crée la stratégie A, une fois par thread
+   * @param strategieB crée la stratégie B, une fois par thread
+   * @param nombreThreads le nombre de threads jouant les parties
+   * @return la simulation
+   */
+  public static Simulation<PlateauNim, ChoixNim> nim(
+      Supplier<JeuNim> parties,
+      Supplier<? extends Strategie> strategieA,
+      Supplier<? extends Strategie> strategieB,
+      int nombreThreads) {
+    return new Simulation<>(Arbitre.nim(parties), strategieA, strategieB, nombreThreads);
+  }
+
+  /**
+   * Créer une simulation du Puissance 4.
+   *
+   * <p>Chaque stratégie voit le plateau comme si elle jouait le jaune, les stratégies les plus
+   * simples ne sachant pas jouer le rouge.
+   *
+   * @param parties crée une nouvelle partie, dont le plateau donne le trait au joueur 1
+   * @param strategieA crée la stratégie A, une fois par thread
+   * @param strategieB crée la stratégie B, une fois par thread
+   * @param nombreThreads le nombre de threads jouant les parties
+   * @return la simulation
+   */
+  public static Simulation<PlateauPuissance4, ChoixPuissance4> puissance4(
+      Supplier<JeuPuissance4> parties,
+      Supplier<? extends Strategie> strategieA,
+      Supplier<? extends Strategie> strategieB,
+      int nombreThreads) {
+    return new Simulation<>(Arbitre.puissance4(parties), strategieA, strategieB, nombreThreads);
+  }
+
+  /**
+   * Joue des parties et en fait le bilan.
+   *
+   * @param nombreParties le nombre de parties à jouer
+   * @return le bilan des parties
+   * @throws InterruptedException si le thread est interrompu pendant la simulation
+   * @throws IllegalStateException si une stratégie ou une partie lève une exception inattendue
+   */
+  public ResultatSimulation lancer(long nombreParties) throws InterruptedException {
+    AtomicLong prochaine = new AtomicLong();
+    long debut = System.nanoTime();
+
+    ExecutorService executeur = Executors.newFixedThreadPool(nombreThreads);
+    Compteurs total = new Compteurs();
+    try {
+      List<Future<Compteurs>> resultats = new ArrayList<>();
+      for (int i = 0; i < nombreThreads; ++i) {
+        resultats.add(executeur.submit(() -> jouerParties(prochaine, nombreParties)));
+      }
+
+      for (Future<Compteurs> resultat : resultats) {
+        total.ajouter(resultat.get());
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("La simulation a échoué", e.getCause());
+    } finally {
+      executeur.shutdownNow();
+    }
+
+    return new ResultatSimulation(
+        total.parties,
+        total.victoiresA,
+        total.victoiresB,
+        total.forfaitsA,
+        total.forfaitsB,
+        total.coups,
+        total.coupsMin,
+        total.coupsMax,
+        System.nanoTime() - debut);
+  }
+
+  /**
+   * Joue des parties jusqu'à ce qu'elles aient toutes été prises par les threads.
+   *
+   * @param prochaine le numéro de la prochaine partie à jouer, partagé entre les threads
+   * @param nombreParties le nombre de parties à jouer
+   * @return le bilan des parties jouées par ce thread
+   */
+  private Compteurs jouerParties(AtomicLong prochaine, long nombreParties)
+      throws EtatPartieException {
+    Joueur a = new Joueur(Joueur.NOM_AI);
+    a.setStrategie(strategieA.get());
+    Joueur b = new Joueur(Joueur.NOM_AI);
+    b.setStrategie(strategieB.get());
+
+    Compteurs compteurs = new Compteurs();
+    try {
+      for (long partie = prochaine.getAndIncrement();
+          partie < nombreParties && !Thread.currentThread().isInterrupted();
+          partie = prochaine.getAndIncrement()) {
+        boolean aCommence = partie % 2 == 0;
+        jouerPartie(aCommence ? a : b, aCommence ? b : a, aCommence, compteurs);
+      }
+    } finally {
+      a.getStrategie().fermer();
+      b.getStrategie().fermer();
+    }
+
+    return compteurs;
+  }
+
+  /**
+   * Joue une partie et l'ajoute au bilan.
+   *
+   * @param joueur1 le joueur jouant en premier
+   * @param joueur2 le joueur jouant en second
+   * @param aCommence true si le joueur 1 est A
+   * @param compteurs le bilan
+   */
+  private void jouerPartie(Joueur joueur1, Joueur joueur2, boolean aCommence, Compteurs compteurs)
+      throws EtatPartieException {
+    Arbitre.Issue issue = arbitre.arbitrer(joueur1, joueur2);
+    if (issue.forfait) {
+      boolean fautifA = (issue.etat == EtatPartie.VICTOIRE_JOUEUR_2) == aCommence;
+      compteurs.forfaitsA += fautifA ? 1 : 0;
+      compteurs.forfaitsB += fautifA ? 0 : 1;
+    }
+
+    compteurs.ajouterPartie(issue.etat, aCommence, issue.coups);
+  }
+
+  /** Le bilan, en cours, des parties d'un thread. */
+  private static final class Compteurs {
+    long parties = 0;
+    long victoiresA = 0;
+    long victoiresB = 0;
+    long forfaitsA = 0;
+    long forfaitsB = 0;
+    long coups = 0;
+    long coupsMin = Long.MAX_VALUE;
+    long coupsMax = 0;
+
+    /**
+     * Ajoute une partie terminée au bilan.
+     *
+     * @param etat l'état final de la partie
+     * @param aCommence true si A était le joueur 1
+     * @param coups le nombre de coups joués
+     */
+    void ajouterPartie(EtatPartie etat, boolean aCommence, long coups) {
+      ++parties;
+      if (etat == EtatPartie.VICTOIRE_JOUEUR_1) {
+        victoiresA += aCommence ? 1 : 0;
+        victoiresB += aCommence ? 0 : 1;
+      } else if (etat == EtatPartie.VICTOIRE_JOUEUR_2) {
+        victoiresA += aCommence ? 0 : 1;
+        victoiresB += aCommence ? 1 : 0;
+      }
+
+      this.coups += coups;
+      coupsMin = Math.min(coupsMin, coups);
+      coupsMax = Math.max(coupsMax, coups);
+    }
+
+    /**
+     * Ajoute le bilan d'un autre thread.
+     *
+     * @param autres le bilan
+     */
+    void ajouter(Compteurs autres) {
+      parties += autres.parties;
+      victoiresA += autres.victoiresA;
+      victoiresB += autres.victoiresB;
+      forfaitsA += autres.forfaitsA;
+      forfaitsB += autres.forfaitsB;
+      coups += autres.coups;
+      coupsMin = Math.min(coupsMin, autres.coupsMin);
+      coupsMax = Math.max(coupsMax, autres.coupsMax);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import fr.nc0.cda.modele.Jeux;
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.joueur.StrategieNimAiAleatoire;
+import fr.nc0.cda.modele.joueur.StrategieNimAiGagnante;
+import fr.nc0.cda.modele.joueur.StrategieNimAiGrundy;
+import fr.nc0.cda.modele.joueur.StrategieNimAiMisere;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiMcts;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiNegamax;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiOptimisee;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiParallele;
+import fr.nc0.cda.modele.joueur.StrategiePuissance4AiSimple;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/** Les stratégies d'AI de chaque jeu, désignées par un nom court. */
+public final class Strategies {
+  /** Les stratégies du jeu de Nim */
+  private static final Map<String, Supplier<Strategie>> NIM = new LinkedHashMap<>();
+
+  /** Les stratégies du Puissance 4 */
+  private static final Map<String, Supplier<Strategie>> PUISSANCE4 = new LinkedHashMap<>();
+
+  /** Les stratégies du Puissance 4, dont chaque recherche n'utilise qu'un thread */
+  private static final Map<String, Supplier<Strategie>> PUISSANCE4_UN_THREAD =
+      new LinkedHashMap<>();
+
+  static {
+    NIM.put("aleatoire", StrategieNimAiAleatoire::new);
+    NIM.put("ponderee", () -> new StrategieNimAiAleatoire(true));
+    NIM.put("gagnante", StrategieNimAiGagnante::new);
+    NIM.put("grundy", StrategieNimAiGrundy::new);
+    NIM.put("misere", StrategieNimAiMisere::new);
+
+    PUISSANCE4.put("simple", StrategiePuissance4AiSimple::new);
+    PUISSANCE4.put("optimisee", StrategiePuissance4AiOptimisee::new);
+    PUISSANCE4.put("negamax", StrategiePuissance4AiNegamax::new);
+    PUISSANCE4.put("parallele", StrategiePuissance4AiParallele::new);
+    PUISSANCE4.put("mcts", StrategiePuissance4AiMcts::new);
+
+    long budget = StrategiePuissance4AiNegamax.BUDGET_DEFAUT;
+    PUISSANCE4_UN_THREAD.putAll(PUISSANCE4);
+    PUISSANCE4_UN_THREAD.put("parallele", () -> new StrategiePuissance4AiParallele(1, budget));
+    PUISSANCE4_UN_THREAD.put("mcts", () -> new StrategiePuissance4AiMcts(1, budget, 0));
+  }
+
+  private Strategies() {}
+
+  /**
+   * Récupère les stratégies d'un jeu.
+   *
+   * @param jeu le jeu
+   * @return les stratégies, par nom, dans un ordre fixe
+   */
+  public static Map<String, Supplier<Strategie>> de(Jeux jeu) {
+    return Collections.unmodifiableMap(
+        switch (jeu) {
+          case NIM -> NIM;
+          case PUISSANCE4 -> PUISSANCE4;
+        });
+  }
+
+  /**
+   * Récupère les stratégies d'un jeu, celles qui cherchent sur plusieurs threads n'en utilisant
+   * qu'un, pour que plusieurs parties jouées en même temps ne se disputent pas les cœurs.
+   *
+   * @param jeu le jeu
+   * @return les stratégies, par nom, dans le même ordre que {@link #de}
+   */
+  public static Map<String, Supplier<Strategie>> unThread(Jeux jeu) {
+    return Collections.unmodifiableMap(
+        switch (jeu) {
+          case NIM -> NIM;
+          case PUISSANCE4 -> PUISSANCE4_UN_THREAD;
+        });
+  }
+
+  /**
+   * Récupère une stratégie d'un jeu par son nom.
+   *
+   * @param jeu le jeu
+   * @param nom le nom de la stratégie, sans tenir compte de la casse
+   * @return de quoi créer la stratégie
+   * @throws IllegalArgumentException si le jeu n'a pas de stratégie de ce nom
+   */
+  public static Supplier<Strategie> trouver(Jeux jeu, String nom) {
+    return trouver(de(jeu), nom);
+  }
+
+  /**
+   * Récupère une stratégie par son nom.
+   *
+   * @param strategies les stratégies, par nom
+   * @param nom le nom de la stratégie, sans tenir compte de la casse
+   * @return de quoi créer la stratégie
+   * @throws IllegalArgumentException s'il n'y a pas de stratégie de ce nom
+   */
+  public static Supplier<Strategie> trouver(
+      Map<String, Supplier<Strategie>> strategies, String nom) {
+    Supplier<Strategie> strategie = strategies.get(nom.toLowerCase());
+    if (strategie == null) {
+      throw new IllegalArgumentException(
+          "Stratégie inconnue : " + nom + ", parmi " + strategies.keySet());
+    }
+
+    return strategie;
+  }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2024 Lucas Paulo, Younes Ouaammou, Nicolas Paul.
+ * Use of this source code is governed by a BSD-style license
+ * that can be found in the COPYRIGHT file.
+ */
+
+package fr.nc0.cda.simulation;
+
+import fr.nc0.cda.modele.jeu.Choix;
+import fr.nc0.cda.modele.jeu.EtatPartie;
+import fr.nc0.cda.modele.jeu.Plateau;
+import fr.nc0.cda.modele.joueur.Joueur;
+import fr.nc0.cda.modele.joueur.Strategie;
+import fr.nc0.cda.modele.nim.ChoixNim;
+import fr.nc0.cda.modele.nim.JeuNim;
+import fr.nc0.cda.modele.nim.PlateauNim;
+import fr.nc0.cda.modele.puissance4.ChoixPuissance4;
+import fr.nc0.cda.modele.puissance4.JeuPuissance4;
+import fr.nc0.cda.modele.puissance4.PlateauPuissance4;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tournoi toutes rondes entre des stratégies d'AI, sans IHM.
+ *
+ * <p>Chaque paire de stratégies joue le même nombre de parties, chacune jouant en premier une
+ * partie sur deux. Toutes les parties du tournoi sont réparties entre plusieurs threads, chaque
+ * thread créant ses propres stratégies. Le bilan donne le classement Elo de chaque stratégie.
+ *
+ * <p>Chaque partie est tirée d'une graine, déduite de la graine du tournoi et du numéro de la
+ * partie, qui donne sa position de départ et le hasard des stratégies. Les deux parties d'une paire
+ * jouées en échangeant les couleurs partent de la même position.
+ *
+ * <p>Les parties peuvent être enregistrées au fil de l'eau dans un journal ; relancer le tournoi
+ * avec le même journal ne rejoue que les parties qui n'y figurent pas. Le journal identifie le
+ * tournoi par le nom du jeu, les stratégies, le nombre de parties par paire et la graine, mais pas
+ * par la configuration des parties, qui doit rester la même.
+ *
+ * @param <P> le plateau du jeu
+ * @param <C> les choix du jeu
+ */
+public class Tournoi<P extends Plateau, C extends Choix> {
+  /** La graine d'un tournoi qui n'en précise pas */
+  public static final long GRAINE_DEFAUT = 0;
+
+  /** Issue d'une partie nulle */
+  private static final byte NUL = 0;
+
+  /** Issue d'une partie gagnée par le joueur 1 */
+  private static final byte VICTOIRE_PREMIER = 1;
+
+  /** Issue d'une partie gagnée par le joueur 2 */
+  private static final byte VICTOIRE_SECOND = 2;
+
+  /** Drapeau d'issue d'une partie perdue sur un coup invalide */
+  private static final byte FORFAIT = 4;
+
+  /** Le nom du jeu, inscrit dans le journal */
+  private final String jeu;
+
+  /** Joue les parties */
+  private final Arbitre<P, C> arbitre;
+
+  /** Les noms des stratégies */
+  private final List<String> noms;
+
+  /** Créent les stratégies, dans l'ordre des noms */
+  private final List<Supplier<? extends Strategie>> strategies;
+
+  /** Le nombre de parties jouées par chaque paire de stratégies */
+  private final int partiesParPaire;
+
+  /** Le nombre de threads jouant les parties */
+  private final int nombreThreads;
+
+  /** La première stratégie de chaque paire, par numéro de paire */
+  private final int[] premieres;
+
+  /** La seconde stratégie de chaque paire, par numéro de paire */
+  private final int[] secondes;
+
+  /**
+   * Créer un tournoi.
+   *
+   * @param jeu le nom du jeu
+   * @param arbitre joue les parties
+   * @param strategies crée chaque stratégie, par nom, une fois par thread
+   * @param partiesParPaire le nombre de parties jouées par chaque paire de stratégies
+   * @param nombreThreads le nombre de threads jouant les parties
+   */
+  private Tournoi(
+      String jeu,
+      Arbitre<P, C> arbitre,
+      Map<String, ? extends Supplier<? extends Strategie>> strategies,
+      int partiesParPaire,
+      int nombreThreads) {
+    if (strategies.size() < 2) {
+      throw new IllegalArgumentException("Il faut au moins deux stratégies");
+    }
+    if (partiesParPaire < 1) {
+      throw new IllegalArgumentException("Nombre de parties invalide : " + partiesParPaire);
+    }
+    if (nombreThreads < 1) {
+      throw new IllegalArgumentException("Nombre de threads invalide : " + nombreThreads);
+    }
+
+    this.jeu = jeu;
+    this.arbitre = arbitre;
+    this.noms = List.copyOf(strategies.keySet());
+    this.strategies = List.copyOf(strategies.values());
+    this.partiesParPaire = partiesParPaire;
+    this.nombreThreads = nombreThreads;
+
+    int n = noms.size();
+    int paires = n * (n - 1) / 2;
+    if ((long) paires * partiesParPaire > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Le tournoi compte trop de parties");
+    }
+
+    premieres = new int[paires];
+    secondes = new int[paires];
+    int paire = 0;
+    for (int i = 0; i < n; ++i) {
+      for (int j = i + 1; j < n; ++j) {
+        premieres[paire] = i;
+        secondes[paire] = j;
+        ++paire;
+      }
+    }
+  }
+
+  /**
+   * Créer un tournoi du jeu de Nim.
+   *
+   * @param parties crée une nouvelle partie
+   * @param strategies crée chaque stratégie, par nom, une fois par thread
+   * @param partiesParPaire le nombre de parties jouées par chaque paire de stratégies
+   * @param nombreThreads le nombre de threads jouant les parties
+   * @return le tournoi
+   */
+  public static Tournoi<PlateauNim, ChoixNim> nim(
+      Supplier<JeuNim> parties,
+      Map<String, ? extends Supplier<? extends Strategie>> strategies,
+      int partiesParPaire,
+      int nombreThreads) {
+    return new Tournoi<>("nim", Arbitre.nim(parties), strategies, partiesParPaire, nombreThreads);
+  }
+
+  /**
+   * Créer un tournoi du Puissance 4.
+   *
+   * <p>Chaque stratégie voit le plateau comme si elle jouait le jaune, les stratégies les plus
+   * simples ne sachant pas jouer le rouge.
+   *
+   * @param parties crée une nouvelle partie, dont le plateau donne le trait au joueur 1
+   * @param strategies crée chaque stratégie, par nom, une fois par thread
+   * @param partiesParPaire le nombre de parties jouées par chaque paire de stratégies
+   * @param nombreThreads le nombre de threads jouant les parties
+   * @return le tournoi
+   */
+  public static Tournoi<PlateauPuissance4, ChoixPuissance4> puissance4(
+      Supplier<JeuPuissance4> parties,
+      Map<String, ? extends Supplier<? extends Strategie>> strategies,
+      int partiesParPaire,
+      int nombreThreads) {
+    return new Tournoi<>(
+        "puissance4", Arbitre.puissance4(parties), strategies, partiesParPaire, nombreThreads);
+  }
+
+  /**
+   * Joue le tournoi, sans journal.
+   *
+   * @return le bilan du tournoi
+   * @throws InterruptedException si le thread est interrompu pendant le tournoi
+   * @throws IllegalStateException si une stratégie ou une partie lève une exception inattendue
+   */
+  public ResultatTournoi lancer() throws InterruptedException {
+    try {
+      return lancer(null, GRAINE_DEFAUT);
+    } catch (IOException e) {
+      // Aucun journal n'est écrit.
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Joue le tournoi, en reprenant les parties déjà enregistrées dans un journal.
+   *
+   * @param chemin le fichier du journal, créé s'il n'existe pas, ou null pour ne pas en tenir
+   * @param graine la graine du tournoi, qui doit être celle du journal
+   * @return le bilan du tournoi, parties reprises du journal comprises
+   * @throws IOException si le journal ne peut pas être lu ou écrit
+   * @throws InterruptedException si le thread est interrompu pendant le tournoi
+   * @throws IllegalStateException si une stratégie ou une partie lève une exception inattendue
+   */
+  public ResultatTournoi lancer(Path chemin, long graine)
+      throws IOException, InterruptedException {
+    int nombreParties = premieres.length * partiesParPaire;
+    BitSet jouees = new BitSet(nombreParties);
+    Bilan total = new Bilan(noms.size());
+
+    JournalTournoi journal = null;
+    if (chemin != null) {
+      journal =
+          new JournalTournoi(
+              chemin,
+              jeu,
+              noms,
+              partiesParPaire,
+              graine,
+              (partie, issue, coups) -> {
+                if (partie >= 0 && partie < nombreParties && !jouees.get(partie)) {
+                  jouees.set(partie);
+                  ajouter(total, partie, issue, coups);
+                }
+              });
+    }
+    long reprises = total.parties;
+
+    long debut = System.nanoTime();
+    AtomicInteger prochaine = new AtomicInteger();
+    ExecutorService executeur = Executors.newFixedThreadPool(nombreThreads);
+    try {
+      List<Future<Bilan>> resultats = new ArrayList<>();
+      for (int i = 0; i < nombreThreads; ++i) {
+        JournalTournoi sortie = journal;
+        resultats.add(
+            executeur.submit(
+                () -> jouerParties(prochaine, nombreParties, jouees, sortie, graine)));
+      }
+
+      for (Future<Bilan> resultat : resultats) {
+        total.ajouter(resultat.get());
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException("Le tournoi a échoué", e.getCause());
+    } finally {
+      executeur.shutdownNow();
+      if (journal != null) {
+        journal.close();
+      }
+    }
+
+    return new ResultatTournoi(
+        noms,
+        total.victoires,
+        total.nuls,
+        total.forfaits,
+        total.parties,
+        reprises,
+        total.coups,
+        System.nanoTime() - debut);
+  }
+
+  /**
+   * Joue des parties jusqu'à ce qu'elles aient toutes été prises par les threads.
+   *
+   * @param prochaine le numéro de la prochaine partie à jouer, partagé entre les threads
+   * @param nombreParties le nombre de parties du tournoi
+   * @param jouees les parties déjà jouées, lues dans le journal
+   * @param journal le journal, ou null
+   * @param graine la graine du tournoi
+   * @return le bilan des parties jouées par ce thread
+   */
+  private Bilan jouerParties(
+      AtomicInteger prochaine,
+      int nombreParties,
+      BitSet jouees,
+      JournalTournoi journal,
+      long graine)
+      throws Exception {
+    Joueur[] joueurs = new Joueur[noms.size()];
+    Bilan bilan = new Bilan(noms.size());
+    try {
+      for (int partie = prochaine.getAndIncrement();
+          partie < nombreParties && !Thread.currentThread().isInterrupted();
+          partie = prochaine.getAndIncrement()) {
+        if (jouees.get(partie)) {
+          continue;
+        }
+
+        int premier = premier(partie);
+        int second = second(partie);
+        for (int strategie : new int[] {premier, second}) {
+          if (joueurs[strategie] == null) {
+            joueurs[strategie] = new Joueur(Joueur.NOM_AI);
+            joueurs[strategie].setStrategie(strategies.get(strategie).get());
+          }
+        }
+
+        Arbitre.Issue issue =
+            arbitre.arbitrer(joueurs[premier], joueurs[second], graine + ouverture(partie));
+        byte code =
+            switch (issue.etat) {
+              case VICTOIRE_JOUEUR_1 -> VICTOIRE_PREMIER;
+              case VICTOIRE_JOUEUR_2 -> VICTOIRE_SECOND;
+              default -> NUL;
+            };
+        if (issue.forfait) {
+          code |= FORFAIT;
+        }
+        int coups = (int) Math.min(issue.coups, Integer.MAX_VALUE);
+
+        ajouter(bilan, partie, code, coups);
+        if (journal != null) {
+          journal.ecrire(partie, code, coups);
+        }
+      }
+    } finally {
+      for (Joueur joueur : joueurs) {
+        if (joueur != null) {
+          joueur.getStrategie().fermer();
+        }
+      }
+    }
+
+    return bilan;
+  }
+
+  /**
+   * Retourne la stratégie jouant en premier une partie. Dans chaque paire, la première stratégie
+   * commence une partie sur deux, à partir de la première.
+   *
+   * @param partie le numéro de la partie
+   * @return le numéro de la stratégie
+   */
+  private int premier(int partie) {
+    int paire = partie / partiesParPaire;
+    return partie % partiesParPaire % 2 == 0 ? premieres[paire] : secondes[paire];
+  }
+
+  /**
+   * Retourne le numéro de l'ouverture d'une partie, celui de la première des deux parties de sa
+   * paire jouées en échangeant les couleurs.
+   *
+   * @param partie le numéro de la partie
+   * @return le numéro de l'ouverture
+   */
+  private int ouverture(int partie) {
+    return partie - partie % partiesParPaire % 2;
+  }
+
+  /**
+   * Retourne la stratégie jouant en second une partie.
+   *
+   * @param partie le numéro de la partie
+   * @return le numéro de la stratégie
+   */
+  private int second(int partie) {
+    int paire = partie / partiesParPaire;
+    return partie % partiesParPaire % 2 == 0 ? secondes[paire] : premieres[paire];
+  }
+
+  /**
+   * Ajoute une partie terminée à un bilan.
+   *
+   * @param bilan le bilan
+   * @param partie le numéro de la partie
+   * @param issue l'issue de la partie
+   * @param coups le nombre de coups de la partie
+   */
+  private void ajouter(Bilan bilan, int partie, byte issue, int coups) {
+    int premier = premier(partie);
+    int second = second(partie);
+    ++bilan.parties;
+    bilan.coups += coups;
+    switch (issue & ~FORFAIT) {
+      case VICTOIRE_PREMIER -> {
+        ++bilan.victoires[premier][second];
+        bilan.forfaits[second][premier] += (issue & FORFAIT) != 0 ? 1 : 0;
+      }
+      case VICTOIRE_SECOND -> {
+        ++bilan.victoires[second][premier];
+        bilan.forfaits[premier][second] += (issue & FORFAIT) != 0 ? 1 : 0;
+      }
+      default -> {
+        ++bilan.nuls[premier][second];
+        ++bilan.nuls[second][premier];
+      }
+    }
+  }
+
+  /** Le bilan, en cours, des parties d'un thread. */
+  private static final class Bilan {
+    /** Le nombre de victoires de chaque stratégie contre chaque autre */
+    final long[][] victoires;
+
+    /** Le nombre de nuls entre chaque paire de stratégies, symétrique */
+    final long[][] nuls;
+
+    /** Le nombre de forfaits de chaque stratégie contre chaque autre */
+    final long[][] forfaits;
+
+    long parties = 0;
+    long coups = 0;
+
+    Bilan(int strategies) {
+      victoires = new long[strategies][strategies];
+      nuls = new long[strategies][strategies];
+      forfaits = new long[strategies][strategies];
+    }
+
+    /**
+     * Ajoute le bilan d'un autre thread.
+     *
+     * @param autre le bilan
+     */
+    void ajouter(Bilan autre) {
+      for (int i = 0; i < victoires.length; ++i) {
+        for (int j = 0; j < victoires.length; ++j) {
+          victoires[i][j] += autre.victoires[i][j];
+          nuls[i][j] += autre.nuls[i][j];
+          forfaits[i][j] += autre.forfaits[i][j];
+        }
+      }
+      parties += autre.parties;
+      coups += autre.coups;
+    }
+  }
+}